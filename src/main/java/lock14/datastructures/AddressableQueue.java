@@ -0,0 +1,48 @@
+package lock14.datastructures;
+
+/**
+ * A priority queue whose elements can be reached after insertion through the {@link Handle} that
+ * {@link #insert(Object)} returns, so that an element can change priority or leave the queue
+ * without searching for it.
+ */
+public interface AddressableQueue<E> extends Queue<E> {
+
+    /**
+     * A reference to an element in the queue. A handle stays valid until its element is dequeued or
+     * removed.
+     */
+    interface Handle<E> {
+        E element();
+    }
+
+    @Override
+    default void enqueue(E element) {
+        insert(element);
+    }
+
+    /**
+     * Adds the element and returns its handle.
+     */
+    Handle<E> insert(E element);
+
+    /**
+     * Returns whether the handle refers to an element that is still in this queue.
+     */
+    boolean contains(Handle<E> handle);
+
+    /**
+     * Replaces the element of the handle with one that has the same or a higher priority.
+     *
+     * @throws IllegalArgumentException if the new element has a lower priority than the old one
+     */
+    void decreaseKey(Handle<E> handle, E element);
+
+    /**
+     * Replaces the element of the handle with one that has the same or a lower priority.
+     *
+     * @throws IllegalArgumentException if the new element has a higher priority than the old one
+     */
+    void increaseKey(Handle<E> handle, E element);
+
+    void remove(Handle<E> handle);
+}
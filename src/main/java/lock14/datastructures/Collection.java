@@ -1,6 +1,10 @@
 package lock14.datastructures;
 
 import java.util.Iterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 public interface Collection<E> extends Iterable<E> {
 
@@ -25,4 +29,21 @@ public interface Collection<E> extends Iterable<E> {
     void retainAll(Collection<?> c);
 
     int size();
+
+    /**
+     * Returns a spliterator over the elements. The default splits off batches of elements copied from
+     * the iterator; implementations that can split their storage directly override it.
+     */
+    @Override
+    default Spliterator<E> spliterator() {
+        return Spliterators.spliterator(iterator(), size(), 0);
+    }
+
+    default Stream<E> stream() {
+        return StreamSupport.stream(spliterator(), false);
+    }
+
+    default Stream<E> parallelStream() {
+        return StreamSupport.stream(spliterator(), true);
+    }
 }
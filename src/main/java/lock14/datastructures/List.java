@@ -1,6 +1,8 @@
 package lock14.datastructures;
 
 import java.util.ListIterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
 
 public interface List<E> extends Collection<E> {
 
@@ -17,4 +19,9 @@ public interface List<E> extends Collection<E> {
     void remove(int index);
 
     void set(int index, E element);
+
+    @Override
+    default Spliterator<E> spliterator() {
+        return Spliterators.spliterator(iterator(), size(), Spliterator.ORDERED);
+    }
 }
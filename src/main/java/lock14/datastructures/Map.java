@@ -1,5 +1,9 @@
 package lock14.datastructures;
 
+import java.util.Objects;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
 /**
  * @param <K> - The type of keys maintained by this map
  * @param <V> - Type of mapped getLabel
@@ -106,4 +110,111 @@ public interface Map<K, V> {
 
     Set<Pair<K, V>> entrySet();
 
+    /**
+     * Returns the value to which the specified key is mapped, or the default value if this map contains
+     * no mapping for the key.
+     *
+     * @param key - the key whose associated value is to be returned
+     * @param defaultValue - the value to return if the key is not mapped
+     * @return the value to which the key is mapped, or the default value
+     */
+    default V getOrDefault(Object key, V defaultValue) {
+        V value = get(key);
+        return value != null || containsKey(key) ? value : defaultValue;
+    }
+
+    /**
+     * Associates the specified value with the specified key unless the key is already mapped to a
+     * non-null value.
+     *
+     * @return the previous value associated with the key, or null if there was none
+     */
+    default V putIfAbsent(K key, V value) {
+        V result = get(key);
+        if (result == null) {
+            result = put(key, value);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the value associated with the specified key, first computing one with the mapping
+     * function and adding it if the key is not mapped. Nothing is added if the function returns null.
+     *
+     * @return the current (existing or computed) value associated with the key, or null if the computed
+     *         value is null
+     */
+    default V computeIfAbsent(K key, Function<? super K, ? extends V> mappingFunction) {
+        Objects.requireNonNull(mappingFunction);
+        V value = get(key);
+        if (value == null) {
+            value = mappingFunction.apply(key);
+            if (value != null) {
+                put(key, value);
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Replaces the value associated with the specified key by the result of the remapping function if
+     * the key is mapped. The mapping is removed if the function returns null.
+     *
+     * @return the new value associated with the key, or null if there is none
+     */
+    default V computeIfPresent(K key, BiFunction<? super K, ? super V, ? extends V> remappingFunction) {
+        Objects.requireNonNull(remappingFunction);
+        V oldValue = get(key);
+        if (oldValue == null) {
+            return null;
+        }
+        V value = remappingFunction.apply(key, oldValue);
+        if (value == null) {
+            remove(key);
+        } else {
+            put(key, value);
+        }
+        return value;
+    }
+
+    /**
+     * Replaces the value associated with the specified key by the result of the remapping function,
+     * which is passed null if the key is not mapped. The mapping is removed, or not added, if the
+     * function returns null.
+     *
+     * @return the new value associated with the key, or null if there is none
+     */
+    default V compute(K key, BiFunction<? super K, ? super V, ? extends V> remappingFunction) {
+        Objects.requireNonNull(remappingFunction);
+        V oldValue = get(key);
+        V value = remappingFunction.apply(key, oldValue);
+        if (value == null) {
+            if (oldValue != null) {
+                remove(key);
+            }
+        } else {
+            put(key, value);
+        }
+        return value;
+    }
+
+    /**
+     * Associates the specified value with the specified key if the key is not mapped, and otherwise
+     * replaces the associated value by the result of combining it with the specified value. The mapping
+     * is removed if the remapping function returns null.
+     *
+     * @return the new value associated with the key, or null if there is none
+     */
+    default V merge(K key, V value, BiFunction<? super V, ? super V, ? extends V> remappingFunction) {
+        Objects.requireNonNull(value);
+        Objects.requireNonNull(remappingFunction);
+        V oldValue = get(key);
+        V newValue = oldValue == null ? value : remappingFunction.apply(oldValue, value);
+        if (newValue == null) {
+            remove(key);
+        } else {
+            put(key, newValue);
+        }
+        return newValue;
+    }
 }
@@ -1,4 +1,12 @@
 package lock14.datastructures;
 
+import java.util.Spliterator;
+import java.util.Spliterators;
+
 public interface Set<E> extends Collection<E> {
+
+    @Override
+    default Spliterator<E> spliterator() {
+        return Spliterators.spliterator(iterator(), size(), Spliterator.DISTINCT);
+    }
 }
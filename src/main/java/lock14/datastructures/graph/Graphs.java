@@ -1,6 +1,9 @@
 package lock14.datastructures.graph;
 
+import lock14.datastructures.AddressableQueue;
+import lock14.datastructures.AddressableQueue.Handle;
 import lock14.datastructures.Pair;
+import lock14.datastructures.impl.IndexedHeap;
 
 import java.math.BigDecimal;
 import java.math.BigInteger;
@@ -8,10 +11,12 @@ import java.util.ArrayDeque;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.Deque;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.PriorityQueue;
 import java.util.Queue;
@@ -174,29 +179,36 @@ public final class Graphs {
                                                                                      BinaryOperator<L> plus,
                                                                                      L zero) {
         VertexProperties<V> properties = new VertexProperties<>();
-        Queue<Pair<V, L>> fringe = new PriorityQueue<>(Comparator.comparing(Pair::second));
+        // each vertex is queued at most once, improving its distance moves it up in place
+        AddressableQueue<Pair<V, L>> fringe = new IndexedHeap<>(Comparator.comparing(Pair::second));
+        Map<V, Handle<Pair<V, L>>> handles = new HashMap<>();
 
         properties.setDistance(start, zero);
-        fringe.add(Pair.of(start, zero));
+        handles.put(start, fringe.insert(Pair.of(start, zero)));
         while (!fringe.isEmpty()) {
-            Pair<V, L> pair = fringe.remove();
+            Pair<V, L> pair = fringe.dequeue();
             V u = pair.first();
             if (stopCondition.test(u)) {
                 return properties;
             }
-            if (!properties.visited(u)) {
-                properties.markVisited(u);
-                for (V v : graph.getAdjacent(u)) {
-                    L edgeDistance = graph.label(u, v);
-                    L uDistance = properties.getDistance(u);
-                    L newDistance = plus.apply(uDistance, edgeDistance);
-                    L oldDistance = properties.getDistance(v);
-                    if (oldDistance == null || newDistance.compareTo(oldDistance) < 0) {
-                        // update target distance
-                        properties.setDistance(v, newDistance);
-                        properties.setParent(v, u);
-                        fringe.add(Pair.of(v, newDistance));
-                    }
+            properties.markVisited(u);
+            for (V v : graph.getAdjacent(u)) {
+                if (properties.visited(v)) {
+                    continue;
+                }
+                L edgeDistance = graph.label(u, v);
+                L uDistance = properties.getDistance(u);
+                L newDistance = plus.apply(uDistance, edgeDistance);
+                L oldDistance = properties.getDistance(v);
+                if (oldDistance == null) {
+                    properties.setDistance(v, newDistance);
+                    properties.setParent(v, u);
+                    handles.put(v, fringe.insert(Pair.of(v, newDistance)));
+                } else if (newDistance.compareTo(oldDistance) < 0) {
+                    // update target distance
+                    properties.setDistance(v, newDistance);
+                    properties.setParent(v, u);
+                    fringe.decreaseKey(handles.get(v), Pair.of(v, newDistance));
                 }
             }
         }
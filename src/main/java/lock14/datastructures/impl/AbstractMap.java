@@ -27,6 +27,11 @@ public abstract class AbstractMap<K, V> implements Map<K, V> {
                     public K next() {
                         return entrySetItr.next().first();
                     }
+
+                    @Override
+                    public void remove() {
+                        entrySetItr.remove();
+                    }
                 };
             }
 
@@ -0,0 +1,199 @@
+package lock14.datastructures.impl;
+
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import lock14.datastructures.AddressableQueue;
+
+/**
+ * The handle bookkeeping shared by the node based heaps that can be melded in O(1) time. Besides
+ * its place in the trees of the heap, every node is linked into a ring through a sentinel, which
+ * iteration follows and which melding splices into the ring of the other heap.
+ * <p>
+ * A node knows the heap it belongs to through an {@link Owner} rather than a reference to the heap
+ * itself. Melding forwards the owner of the emptied heap to the one that took its nodes, so the
+ * handles of the moved elements belong to that heap without visiting them.
+ */
+abstract class AbstractMeldableHeap<E> extends AbstractQueue<E> implements AddressableQueue<E> {
+    // sentinel of a ring through every node, which iteration follows
+    private final RingNode<E> all;
+    private Owner owner;
+    private int size;
+    private int modificationCount;
+
+    AbstractMeldableHeap() {
+        this.all = new RingNode<>(null);
+        this.all.before = all;
+        this.all.after = all;
+        this.owner = new Owner();
+        this.size = 0;
+        this.modificationCount = 0;
+    }
+
+    @Override
+    public void clear() {
+        for (RingNode<E> node = all.after; node != all; node = node.after) {
+            node.owner = null;
+        }
+        all.before = all;
+        all.after = all;
+        size = 0;
+        modificationCount++;
+    }
+
+    @Override
+    public boolean contains(Handle<E> handle) {
+        if (!(handle instanceof RingNode)) {
+            return false;
+        }
+        RingNode<E> node = (RingNode<E>) handle;
+        return node.owner != null && node.resolveOwner() == owner;
+    }
+
+    @Override
+    public Iterator<E> iterator() {
+        return new RingIterator();
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Makes a new node part of this heap. The caller still has to place it in a tree.
+     */
+    void adopt(RingNode<E> node) {
+        node.owner = owner;
+        node.before = all.before;
+        node.after = all;
+        all.before.after = node;
+        all.before = node;
+        size++;
+        modificationCount++;
+    }
+
+    /**
+     * Forgets a node that is no longer in any tree of this heap.
+     */
+    void discard(RingNode<E> node) {
+        node.before.after = node.after;
+        node.after.before = node.before;
+        node.owner = null;
+        size--;
+        modificationCount++;
+    }
+
+    /**
+     * Returns the node of the handle, which must belong to an element of this heap.
+     */
+    @SuppressWarnings("unchecked")
+    <N extends RingNode<E>> N node(Handle<E> handle) {
+        if (!contains(handle)) {
+            throw new IllegalArgumentException("Handle does not belong to an element of this heap");
+        }
+        return (N) handle;
+    }
+
+    /**
+     * Takes every node of the other heap, whose trees the caller has already joined to those of this
+     * heap, and leaves the other heap empty.
+     */
+    void takeNodes(AbstractMeldableHeap<E> other) {
+        if (other.size == 0) {
+            return;
+        }
+        RingNode<E> first = other.all.after;
+        RingNode<E> last = other.all.before;
+        first.before = all.before;
+        last.after = all;
+        all.before.after = first;
+        all.before = last;
+        size += other.size;
+        modificationCount++;
+        other.owner.forward = owner;
+        other.owner = new Owner();
+        other.all.before = other.all;
+        other.all.after = other.all;
+        other.size = 0;
+        other.modificationCount++;
+    }
+
+    /**
+     * The identity of a heap as seen by its handles. Melding forwards the identity of the emptied heap
+     * to the one that took its elements.
+     */
+    private static final class Owner {
+        Owner forward;
+    }
+
+    static class RingNode<E> implements Handle<E> {
+        E element;
+        RingNode<E> before;
+        RingNode<E> after;
+        Owner owner;
+
+        RingNode(E element) {
+            this.element = element;
+        }
+
+        @Override
+        public E element() {
+            return element;
+        }
+
+        Owner resolveOwner() {
+            Owner o = owner;
+            while (o.forward != null) {
+                o = o.forward;
+            }
+            owner = o;
+            return o;
+        }
+    }
+
+    private class RingIterator implements Iterator<E> {
+        RingNode<E> next;
+        RingNode<E> lastReturned;
+        int expectedModCount;
+
+        RingIterator() {
+            next = all.after;
+            lastReturned = null;
+            expectedModCount = modificationCount;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != all;
+        }
+
+        @Override
+        public E next() {
+            checkForModification();
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            lastReturned = next;
+            next = next.after;
+            return lastReturned.element;
+        }
+
+        @Override
+        public void remove() {
+            checkForModification();
+            if (lastReturned == null) {
+                throw new IllegalStateException();
+            }
+            AbstractMeldableHeap.this.remove(lastReturned);
+            lastReturned = null;
+            expectedModCount = modificationCount;
+        }
+
+        private void checkForModification() {
+            if (expectedModCount != modificationCount) {
+                throw new ConcurrentModificationException();
+            }
+        }
+    }
+}
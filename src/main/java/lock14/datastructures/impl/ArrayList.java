@@ -1,6 +1,8 @@
 package lock14.datastructures.impl;
 
 import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
 import lock14.datastructures.Collection;
 import lock14.datastructures.RandomAccessList;
 
@@ -20,6 +22,16 @@ public class ArrayList<E> extends AbstractList<E> implements RandomAccessList<E>
         modificationCount = 0;
     }
 
+    /**
+     * Creates a list that takes ownership of the array, whose first {@code size} slots hold the
+     * elements.
+     */
+    ArrayList(Object[] data, int size) {
+        this.data = data;
+        this.size = size;
+        this.modificationCount = 0;
+    }
+
     public ArrayList(Collection<E> c) {
         this(c == null || c.size() < DEFAULT_CAPACITY ? DEFAULT_CAPACITY : c.size());
         if (c != null) {
@@ -32,15 +44,49 @@ public class ArrayList<E> extends AbstractList<E> implements RandomAccessList<E>
         if (index != size) {
             check(index);
         }
-        if (size == data.length) {
-            increaseCapacity();
-        }
-        shiftRight(index);
+        ensureCapacity(size + 1);
+        shiftRight(index, 1);
         data[index] = element;
         size++;
         modificationCount++;
     }
 
+    @Override
+    public void addAll(Collection<? extends E> c) {
+        addAll(size, c);
+    }
+
+    /**
+     * Inserts all of the elements of the collection at the index, in the order of its iterator. The
+     * elements after the index are moved once and the capacity grows at most once.
+     */
+    public void addAll(int index, Collection<? extends E> c) {
+        if (index != size) {
+            check(index);
+        }
+        // copy first so that adding a list to itself sees the elements as they were
+        Object[] elements = new Object[c.size()];
+        int count = 0;
+        for (E element : c) {
+            elements[count++] = element;
+        }
+        if (count == 0) {
+            return;
+        }
+        ensureCapacity(size + count);
+        shiftRight(index, count);
+        System.arraycopy(elements, 0, data, index, count);
+        size += count;
+        modificationCount++;
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(data, 0, size, null);
+        size = 0;
+        modificationCount++;
+    }
+
     @Override
     @SuppressWarnings("unchecked")
     public E get(int index) {
@@ -64,11 +110,71 @@ public class ArrayList<E> extends AbstractList<E> implements RandomAccessList<E>
     @Override
     public void remove(int index) {
         check(index);
-        shiftLeft(index);
+        shiftLeft(index + 1, 1);
         data[--size] = null;
         modificationCount++;
     }
 
+    /**
+     * Removes the elements from index {@code fromIndex}, inclusive, to index {@code toIndex},
+     * exclusive.
+     */
+    public void removeRange(int fromIndex, int toIndex) {
+        if (fromIndex < 0 || toIndex > size || fromIndex > toIndex) {
+            throw new IndexOutOfBoundsException("Range out of bounds: [" + fromIndex + ", " + toIndex + ")");
+        }
+        if (fromIndex == toIndex) {
+            return;
+        }
+        shiftLeft(toIndex, toIndex - fromIndex);
+        int newSize = size - (toIndex - fromIndex);
+        Arrays.fill(data, newSize, size, null);
+        size = newSize;
+        modificationCount++;
+    }
+
+    /**
+     * Removes every element that satisfies the predicate. The elements to remove are marked first and
+     * the list is compacted in one pass only once the predicate has accepted or rejected all of them,
+     * so a predicate that throws or changes the list leaves it as it was.
+     */
+    public void removeIf(Predicate<? super E> filter) {
+        Objects.requireNonNull(filter);
+        int expectedModCount = modificationCount;
+        int end = size;
+        BitSet removed = null;
+        for (int i = 0; i < end && expectedModCount == modificationCount; i++) {
+            @SuppressWarnings("unchecked")
+            E element = (E) data[i];
+            if (filter.test(element)) {
+                if (removed == null) {
+                    removed = new BitSet(end);
+                }
+                removed.set(i);
+            }
+        }
+        if (expectedModCount != modificationCount) {
+            throw new ConcurrentModificationException();
+        }
+        if (removed == null) {
+            return;
+        }
+        int kept = removed.nextSetBit(0);
+        for (int i = kept; i < end; i++) {
+            if (!removed.get(i)) {
+                data[kept++] = data[i];
+            }
+        }
+        Arrays.fill(data, kept, end, null);
+        size = kept;
+        modificationCount++;
+    }
+
+    @Override
+    public void retainAll(Collection<?> c) {
+        removeIf(element -> !c.contains(element));
+    }
+
     @Override
     public void set(int index, E element) {
         check(index);
@@ -80,23 +186,45 @@ public class ArrayList<E> extends AbstractList<E> implements RandomAccessList<E>
         return size;
     }
 
-    private void increaseCapacity() {
-        int newSize = data.length + (data.length >> 1);
-        data = Arrays.copyOf(data, newSize);
+    @Override
+    public Spliterator<E> spliterator() {
+        return new ArrayListSpliterator(0, -1, 0);
     }
 
-    private void shiftLeft(int index) {
-        for (int i = index; i < size - 1; i++) {
-            data[i] = data[i + 1];
-        }
+    /**
+     * Returns an array of exactly the elements, which is the backing array itself if it is full, and
+     * empties the list so that it no longer shares that array.
+     */
+    Object[] takeElements() {
+        Object[] elements = data.length == size ? data : Arrays.copyOf(data, size);
+        data = new Object[0];
+        size = 0;
+        modificationCount++;
+        return elements;
     }
 
-    private void shiftRight(int index) {
-        for (int i = size; i > index; i--) {
-            data[i] = data[i - 1];
+    private void ensureCapacity(int minCapacity) {
+        if (minCapacity > data.length) {
+            int newSize = Math.max(data.length + (data.length >> 1), minCapacity);
+            data = Arrays.copyOf(data, newSize);
         }
     }
 
+    /**
+     * Moves the elements from the index to the end of the list the given distance towards the front.
+     */
+    private void shiftLeft(int index, int distance) {
+        System.arraycopy(data, index, data, index - distance, size - index);
+    }
+
+    /**
+     * Moves the elements from the index to the end of the list the given distance towards the back. The
+     * capacity must already allow for it.
+     */
+    private void shiftRight(int index, int distance) {
+        System.arraycopy(data, index, data, index + distance, size - index);
+    }
+
     private class ArrayListIterator implements ListIterator<E> {
         int lastReturned;
         int index;
@@ -183,6 +311,80 @@ public class ArrayList<E> extends AbstractList<E> implements RandomAccessList<E>
 
     }
 
+    /**
+     * Splits the index range in half. The range is bound to the size of the list when first used, so
+     * the list may still change between creating the spliterator and traversing it.
+     */
+    private class ArrayListSpliterator implements Spliterator<E> {
+        int index;
+        int fence;
+        int expectedModCount;
+
+        ArrayListSpliterator(int index, int fence, int expectedModCount) {
+            this.index = index;
+            this.fence = fence;
+            this.expectedModCount = expectedModCount;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super E> action) {
+            int hi = getFence();
+            if (index >= hi) {
+                return false;
+            }
+            action.accept(get(index++));
+            checkForModification();
+            return true;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public void forEachRemaining(Consumer<? super E> action) {
+            int hi = getFence();
+            Object[] elements = data;
+            for (; index < hi; index++) {
+                action.accept((E) elements[index]);
+            }
+            checkForModification();
+        }
+
+        @Override
+        public Spliterator<E> trySplit() {
+            int hi = getFence();
+            int mid = (index + hi) >>> 1;
+            if (index >= mid) {
+                return null;
+            }
+            Spliterator<E> prefix = new ArrayListSpliterator(index, mid, expectedModCount);
+            index = mid;
+            return prefix;
+        }
+
+        @Override
+        public long estimateSize() {
+            return getFence() - index;
+        }
+
+        @Override
+        public int characteristics() {
+            return Spliterator.ORDERED | Spliterator.SIZED | Spliterator.SUBSIZED;
+        }
+
+        private int getFence() {
+            if (fence < 0) {
+                fence = size;
+                expectedModCount = modificationCount;
+            }
+            return fence;
+        }
+
+        private void checkForModification() {
+            if (expectedModCount != modificationCount) {
+                throw new ConcurrentModificationException();
+            }
+        }
+    }
+
     public static void main(String[] args) {
         ArrayList<Integer> list = new ArrayList<>();
         ArrayList<Integer> list2 = new ArrayList<>();
@@ -0,0 +1,538 @@
+package lock14.datastructures.impl;
+
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.ListIterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+import lock14.datastructures.Collection;
+import lock14.datastructures.List;
+import lock14.datastructures.RandomAccessList;
+
+/**
+ * A list indexed by {@code long} that can hold more than {@link Integer#MAX_VALUE} elements.
+ * <p>
+ * The elements are stored in chunks, arrays of a fixed power of two size, that are found through a
+ * directory of chunks. Growing the list allocates one new chunk and never copies elements; only the
+ * small directory is ever reallocated. Getting and setting by index take constant time; inserting
+ * and removing anywhere but the end shift the later elements as in {@link ArrayList}.
+ * <p>
+ * Since {@link Collection#size()} returns an int, the list is not itself a {@link Collection}.
+ * {@link #asList()} returns a view that is, as long as the list holds at most
+ * {@link Integer#MAX_VALUE} elements.
+ */
+public class BigArrayList<E> implements Iterable<E> {
+    public static final int DEFAULT_CHUNK_SIZE = 1 << 16;
+    private static final int DEFAULT_DIRECTORY_SIZE = 16;
+
+    private final int chunkShift;
+    private final int chunkMask;
+    private Object[][] chunks;
+    private int chunkCount;
+    private long size;
+    private int modificationCount;
+    private List<E> list;
+
+    public BigArrayList() {
+        this(DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * Creates a list that allocates chunks of the given number of elements, which must be a power of
+     * two.
+     */
+    public BigArrayList(int chunkSize) {
+        if (chunkSize <= 0 || Integer.bitCount(chunkSize) != 1) {
+            throw new IllegalArgumentException("Chunk size must be a power of two: " + chunkSize);
+        }
+        chunkShift = Integer.numberOfTrailingZeros(chunkSize);
+        chunkMask = chunkSize - 1;
+        chunks = new Object[DEFAULT_DIRECTORY_SIZE][];
+        chunkCount = 0;
+        size = 0;
+        modificationCount = 0;
+    }
+
+    public BigArrayList(Iterable<? extends E> elements) {
+        this();
+        if (elements != null) {
+            addAll(elements);
+        }
+    }
+
+    public void add(E element) {
+        ensureCapacity(size + 1);
+        chunks[chunk(size)][offset(size)] = element;
+        size++;
+        modificationCount++;
+    }
+
+    /**
+     * Inserts the element at the index, shifting the later elements up by one.
+     */
+    public void add(long index, E element) {
+        if (index != size) {
+            check(index);
+        }
+        ensureCapacity(size + 1);
+        Object carry = element;
+        for (int c = chunk(index), offset = offset(index); c <= chunk(size); c++, offset = 0) {
+            Object[] chunk = chunks[c];
+            int end = c == chunk(size) ? offset(size) : chunk.length;
+            Object last = end == chunk.length ? chunk[end - 1] : null;
+            int moved = end == chunk.length ? end - offset - 1 : end - offset;
+            System.arraycopy(chunk, offset, chunk, offset + 1, moved);
+            chunk[offset] = carry;
+            carry = last;
+        }
+        size++;
+        modificationCount++;
+    }
+
+    public void addAll(Iterable<? extends E> elements) {
+        for (E e : elements) {
+            add(e);
+        }
+    }
+
+    /**
+     * Returns a view of this list as a {@link List}. The view reflects later changes. Every method of
+     * the view, including those that create an iterator, throws an {@link IllegalStateException} while
+     * this list is larger than {@link Integer#MAX_VALUE}.
+     */
+    public List<E> asList() {
+        if (list == null) {
+            list = new ListView();
+        }
+        return list;
+    }
+
+    /**
+     * Removes every element and releases the chunks.
+     */
+    public void clear() {
+        chunks = new Object[DEFAULT_DIRECTORY_SIZE][];
+        chunkCount = 0;
+        size = 0;
+        modificationCount++;
+    }
+
+    public boolean contains(Object o) {
+        return indexOf(o) >= 0;
+    }
+
+    /**
+     * Grows the list to hold at least the given number of elements without allocating again.
+     */
+    public void ensureCapacity(long minCapacity) {
+        long neededChunks = (minCapacity + chunkMask) >>> chunkShift;
+        if (neededChunks > Integer.MAX_VALUE - 8) {
+            throw new OutOfMemoryError("Required chunk count too large: " + neededChunks);
+        }
+        if (neededChunks > chunks.length) {
+            long newLength = Math.max(neededChunks, 2L * chunks.length);
+            Object[][] newChunks = new Object[(int) Math.min(newLength, Integer.MAX_VALUE - 8)][];
+            System.arraycopy(chunks, 0, newChunks, 0, chunkCount);
+            chunks = newChunks;
+        }
+        while (chunkCount < neededChunks) {
+            chunks[chunkCount++] = new Object[chunkMask + 1];
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    public E get(long index) {
+        check(index);
+        return (E) chunks[chunk(index)][offset(index)];
+    }
+
+    public long indexOf(Object o) {
+        long index = 0;
+        for (int c = 0; index < size; c++) {
+            Object[] chunk = chunks[c];
+            int end = (int) Math.min(chunk.length, size - index);
+            for (int i = 0; i < end; i++, index++) {
+                if (o == null ? chunk[i] == null : o.equals(chunk[i])) {
+                    return index;
+                }
+            }
+        }
+        return -1;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public Iterator<E> iterator() {
+        return new BigArrayListIterator();
+    }
+
+    /**
+     * Removes the element at the index, shifting the later elements down by one.
+     */
+    public void remove(long index) {
+        check(index);
+        long last = size - 1;
+        for (int c = chunk(index), offset = offset(index); c <= chunk(last); c++, offset = 0) {
+            Object[] chunk = chunks[c];
+            int end = c == chunk(last) ? offset(last) : chunk.length - 1;
+            System.arraycopy(chunk, offset + 1, chunk, offset, end - offset);
+            chunk[end] = c == chunk(last) ? null : chunks[c + 1][0];
+        }
+        size--;
+        modificationCount++;
+    }
+
+    public void set(long index, E element) {
+        check(index);
+        chunks[chunk(index)][offset(index)] = element;
+    }
+
+    public long size() {
+        return size;
+    }
+
+    @Override
+    public Spliterator<E> spliterator() {
+        return new BigArrayListSpliterator(0, -1, 0);
+    }
+
+    public Stream<E> stream() {
+        return StreamSupport.stream(spliterator(), false);
+    }
+
+    public Stream<E> parallelStream() {
+        return StreamSupport.stream(spliterator(), true);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("[");
+        Iterator<E> itr = iterator();
+        while (itr.hasNext()) {
+            sb.append(itr.next());
+            if (itr.hasNext()) {
+                sb.append(", ");
+            }
+        }
+        return sb.append("]").toString();
+    }
+
+    /**
+     * Releases the chunks past the one holding the last element, along with unused directory space.
+     */
+    public void trimToSize() {
+        int neededChunks = (int) ((size + chunkMask) >>> chunkShift);
+        for (int c = neededChunks; c < chunkCount; c++) {
+            chunks[c] = null;
+        }
+        chunkCount = neededChunks;
+        if (chunks.length > Math.max(neededChunks, DEFAULT_DIRECTORY_SIZE)) {
+            Object[][] newChunks = new Object[Math.max(neededChunks, DEFAULT_DIRECTORY_SIZE)][];
+            System.arraycopy(chunks, 0, newChunks, 0, neededChunks);
+            chunks = newChunks;
+        }
+    }
+
+    private int chunk(long index) {
+        return (int) (index >>> chunkShift);
+    }
+
+    private int offset(long index) {
+        return (int) index & chunkMask;
+    }
+
+    private void check(long index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index out of range: " + index);
+        }
+    }
+
+    private class BigArrayListIterator implements Iterator<E> {
+        long index;
+        long lastReturned;
+        int expectedModCount;
+
+        BigArrayListIterator() {
+            this.index = 0;
+            this.lastReturned = -1;
+            this.expectedModCount = modificationCount;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return index < size;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public E next() {
+            checkForModification();
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            lastReturned = index++;
+            return (E) chunks[chunk(lastReturned)][offset(lastReturned)];
+        }
+
+        @Override
+        public void remove() {
+            checkForModification();
+            if (lastReturned == -1) {
+                throw new IllegalStateException();
+            }
+            BigArrayList.this.remove(lastReturned);
+            index = lastReturned;
+            lastReturned = -1;
+            expectedModCount = modificationCount;
+        }
+
+        private void checkForModification() {
+            if (expectedModCount != modificationCount) {
+                throw new ConcurrentModificationException();
+            }
+        }
+    }
+
+    private class BigArrayListSpliterator implements Spliterator<E> {
+        long index;
+        long fence;
+        int expectedModCount;
+
+        BigArrayListSpliterator(long index, long fence, int expectedModCount) {
+            this.index = index;
+            this.fence = fence;
+            this.expectedModCount = expectedModCount;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public boolean tryAdvance(Consumer<? super E> action) {
+            long hi = getFence();
+            if (index >= hi) {
+                return false;
+            }
+            long i = index++;
+            action.accept((E) chunks[chunk(i)][offset(i)]);
+            checkForModification();
+            return true;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public void forEachRemaining(Consumer<? super E> action) {
+            long hi = getFence();
+            Object[][] directory = chunks;
+            while (index < hi) {
+                Object[] chunk = directory[chunk(index)];
+                int from = offset(index);
+                int to = (int) Math.min(chunk.length, from + (hi - index));
+                for (int i = from; i < to; i++) {
+                    action.accept((E) chunk[i]);
+                }
+                index += to - from;
+            }
+            checkForModification();
+        }
+
+        @Override
+        public Spliterator<E> trySplit() {
+            long hi = getFence();
+            long mid = (index + hi) >>> 1;
+            if (index >= mid) {
+                return null;
+            }
+            Spliterator<E> prefix = new BigArrayListSpliterator(index, mid, expectedModCount);
+            index = mid;
+            return prefix;
+        }
+
+        @Override
+        public long estimateSize() {
+            return getFence() - index;
+        }
+
+        @Override
+        public int characteristics() {
+            return Spliterator.ORDERED | Spliterator.SIZED | Spliterator.SUBSIZED;
+        }
+
+        private long getFence() {
+            if (fence < 0) {
+                fence = size;
+                expectedModCount = modificationCount;
+            }
+            return fence;
+        }
+
+        private void checkForModification() {
+            if (expectedModCount != modificationCount) {
+                throw new ConcurrentModificationException();
+            }
+        }
+    }
+
+    private class ListView extends AbstractList<E> implements RandomAccessList<E> {
+        @Override
+        public void add(int index, E element) {
+            checkSize();
+            BigArrayList.this.add(index, element);
+        }
+
+        @Override
+        public void clear() {
+            checkSize();
+            BigArrayList.this.clear();
+        }
+
+        @Override
+        public E get(int index) {
+            checkSize();
+            return BigArrayList.this.get(index);
+        }
+
+        @Override
+        public int indexOf(Object o) {
+            checkSize();
+            // the size fits in an int, so any index found does too
+            return (int) BigArrayList.this.indexOf(o);
+        }
+
+        @Override
+        public ListIterator<E> listIterator() {
+            return listIterator(0);
+        }
+
+        @Override
+        public ListIterator<E> listIterator(int index) {
+            if (index != size()) {
+                check(index);
+            }
+            return new ListViewIterator(index);
+        }
+
+        @Override
+        public void remove(int index) {
+            checkSize();
+            BigArrayList.this.remove(index);
+        }
+
+        @Override
+        public void set(int index, E element) {
+            checkSize();
+            BigArrayList.this.set(index, element);
+        }
+
+        @Override
+        public int size() {
+            checkSize();
+            return (int) size;
+        }
+
+        @Override
+        public Spliterator<E> spliterator() {
+            checkSize();
+            return BigArrayList.this.spliterator();
+        }
+
+        private void checkSize() {
+            if (size > Integer.MAX_VALUE) {
+                throw new IllegalStateException("List too large for an int size: " + size);
+            }
+        }
+    }
+
+    private class ListViewIterator implements ListIterator<E> {
+        int index;
+        int lastReturned;
+        int expectedModCount;
+
+        ListViewIterator(int index) {
+            this.index = index;
+            this.lastReturned = -1;
+            this.expectedModCount = modificationCount;
+        }
+
+        @Override
+        public void add(E element) {
+            checkForModification();
+            BigArrayList.this.add(index++, element);
+            lastReturned = -1;
+            expectedModCount = modificationCount;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return index < size;
+        }
+
+        @Override
+        public boolean hasPrevious() {
+            return index > 0;
+        }
+
+        @Override
+        public E next() {
+            checkForModification();
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            lastReturned = index;
+            return get(index++);
+        }
+
+        @Override
+        public int nextIndex() {
+            return index;
+        }
+
+        @Override
+        public E previous() {
+            checkForModification();
+            if (!hasPrevious()) {
+                throw new NoSuchElementException();
+            }
+            lastReturned = --index;
+            return get(index);
+        }
+
+        @Override
+        public int previousIndex() {
+            return index - 1;
+        }
+
+        @Override
+        public void remove() {
+            checkForModification();
+            if (lastReturned == -1) {
+                throw new IllegalStateException();
+            }
+            BigArrayList.this.remove(lastReturned);
+            if (lastReturned < index) {
+                index--;
+            }
+            lastReturned = -1;
+            expectedModCount = modificationCount;
+        }
+
+        @Override
+        public void set(E element) {
+            checkForModification();
+            if (lastReturned == -1) {
+                throw new IllegalStateException();
+            }
+            BigArrayList.this.set(lastReturned, element);
+        }
+
+        private void checkForModification() {
+            if (expectedModCount != modificationCount) {
+                throw new ConcurrentModificationException();
+            }
+        }
+    }
+}
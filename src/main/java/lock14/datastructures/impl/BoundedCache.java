@@ -0,0 +1,658 @@
+package lock14.datastructures.impl;
+
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import lock14.datastructures.Pair;
+import lock14.datastructures.Set;
+
+/**
+ * A hash map that holds at most a fixed number of entries, evicting entries chosen by its
+ * {@link Policy} to make room for new ones.
+ * <p>
+ * Like {@link HashTable} the entries are chained nodes, but each node also carries the links of the
+ * eviction queue it sits in, so keeping the access order costs no extra structure and no second
+ * lookup. Only {@link #get(Object)} and {@link #put(Object, Object)} count as accesses; lookups
+ * through {@link #containsKey(Object)} and iteration leave the order alone. Neither null keys nor
+ * null values are permitted.
+ */
+public class BoundedCache<K, V> extends AbstractMap<K, V> {
+    private static final int DEFAULT_SIZE = 16;
+    private static final double MAX_LOAD_FACTOR = 0.75;
+    // share of the capacity given to the admission window and to the protected segment of the rest
+    private static final int WINDOW_PERCENT = 1;
+    private static final int PROTECTED_PERCENT = 80;
+
+    private final int maximumSize;
+    private final Policy policy;
+    private final EvictionListener<? super K, ? super V> listener;
+    private final FrequencySketch sketch;
+    // LRU is the degenerate case of W-TinyLFU where the window spans the whole cache
+    private final AccessQueue<K, V> window;
+    private final AccessQueue<K, V> probation;
+    private final AccessQueue<K, V> protectedQueue;
+    private final int windowMaximum;
+    private final int mainMaximum;
+    private final int protectedMaximum;
+    private FrequencyBucket<K, V> lowestBucket;
+
+    private Node<K, V>[] table;
+    private int mask;
+    private int threshold;
+    private int size;
+    private int modificationCount;
+    private long hitCount;
+    private long missCount;
+    private long evictionCount;
+
+    private Set<Pair<K, V>> entrySet = new AbstractSet<Pair<K, V>>() {
+        @Override
+        public boolean contains(Object o) {
+            if (!(o instanceof Pair)) {
+                return false;
+            }
+            Pair<?, ?> entry = (Pair<?, ?>) o;
+            Node<K, V> node = getNode(entry.first());
+            return node != null && Objects.equals(entry.second(), node.value);
+        }
+
+        @Override
+        public void clear() {
+            BoundedCache.this.clear();
+        }
+
+        @Override
+        public Iterator<Pair<K, V>> iterator() {
+            return new EntryIterator();
+        }
+
+        @Override
+        public void remove(Object o) {
+            if (o instanceof Pair) {
+                Pair<?, ?> entry = (Pair<?, ?>) o;
+                BoundedCache.this.remove(entry.first());
+            }
+        }
+
+        @Override
+        public int size() {
+            return BoundedCache.this.size();
+        }
+    };
+
+    private Set<K> keySet = new AbstractSet<K>() {
+        @Override
+        public boolean contains(Object o) {
+            return containsKey(o);
+        }
+
+        @Override
+        public void clear() {
+            BoundedCache.this.clear();
+        }
+
+        @Override
+        public Iterator<K> iterator() {
+            return new KeyIterator();
+        }
+
+        @Override
+        public void remove(Object key) {
+            BoundedCache.this.remove(key);
+        }
+
+        @Override
+        public int size() {
+            return BoundedCache.this.size();
+        }
+    };
+
+    public BoundedCache(int maximumSize) {
+        this(maximumSize, Policy.W_TINY_LFU);
+    }
+
+    public BoundedCache(int maximumSize, Policy policy) {
+        this(maximumSize, policy, (key, value) -> {
+        });
+    }
+
+    public BoundedCache(int maximumSize, Policy policy, EvictionListener<? super K, ? super V> listener) {
+        if (maximumSize <= 0) {
+            throw new IllegalArgumentException("Illegal maximum size: " + maximumSize);
+        }
+        this.maximumSize = maximumSize;
+        this.policy = Objects.requireNonNull(policy);
+        this.listener = Objects.requireNonNull(listener);
+        this.window = new AccessQueue<>();
+        this.probation = new AccessQueue<>();
+        this.protectedQueue = new AccessQueue<>();
+        if (policy == Policy.W_TINY_LFU) {
+            windowMaximum = Math.max(1, (int) ((long) maximumSize * WINDOW_PERCENT / 100));
+            sketch = new FrequencySketch(maximumSize);
+        } else {
+            windowMaximum = maximumSize;
+            sketch = null;
+        }
+        mainMaximum = maximumSize - windowMaximum;
+        protectedMaximum = (int) ((long) mainMaximum * PROTECTED_PERCENT / 100);
+        allocate(Hashing.tableSizeFor(Math.min(maximumSize, DEFAULT_SIZE), MAX_LOAD_FACTOR));
+    }
+
+    @Override
+    public V get(Object key) {
+        int hash = hash(key);
+        if (sketch != null) {
+            sketch.increment(hash);
+        }
+        Node<K, V> node = findNode(hash, key);
+        if (node == null) {
+            missCount++;
+            return null;
+        }
+        hitCount++;
+        onAccess(node);
+        return node.value;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return getNode(key) != null;
+    }
+
+    @Override
+    public boolean containsValue(Object value) {
+        if (value == null) {
+            throw new NullPointerException();
+        }
+        for (Node<K, V> node : table) {
+            for (; node != null; node = node.next) {
+                if (node.value.equals(value)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public V put(K key, V value) {
+        if (value == null) {
+            throw new NullPointerException();
+        }
+        int hash = hash(key);
+        if (sketch != null) {
+            sketch.increment(hash);
+        }
+        Node<K, V> node = findNode(hash, key);
+        if (node != null) {
+            V result = node.value;
+            node.value = value;
+            onAccess(node);
+            return result;
+        }
+        node = new Node<>(hash, key, value);
+        int index = hash & mask;
+        node.next = table[index];
+        table[index] = node;
+        size++;
+        modificationCount++;
+        onInsert(node);
+        if (size > threshold) {
+            resize();
+        }
+        return null;
+    }
+
+    @Override
+    public V remove(Object key) {
+        Node<K, V> node = getNode(key);
+        if (node == null) {
+            return null;
+        }
+        removeNode(node);
+        return node.value;
+    }
+
+    @Override
+    public void clear() {
+        for (int i = 0; i < table.length; i++) {
+            table[i] = null;
+        }
+        window.clear();
+        probation.clear();
+        protectedQueue.clear();
+        lowestBucket = null;
+        size = 0;
+        modificationCount++;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public Set<K> keySet() {
+        return keySet;
+    }
+
+    @Override
+    public Set<Pair<K, V>> entrySet() {
+        return entrySet;
+    }
+
+    public int maximumSize() {
+        return maximumSize;
+    }
+
+    public Policy policy() {
+        return policy;
+    }
+
+    /**
+     * Returns the number of calls to {@link #get(Object)} that found their key.
+     */
+    public long hitCount() {
+        return hitCount;
+    }
+
+    /**
+     * Returns the number of calls to {@link #get(Object)} that did not find their key.
+     */
+    public long missCount() {
+        return missCount;
+    }
+
+    /**
+     * Returns the share of calls to {@link #get(Object)} that found their key, or {@code 1} if there
+     * were none.
+     */
+    public double hitRate() {
+        long requests = hitCount + missCount;
+        return requests == 0 ? 1.0 : (double) hitCount / requests;
+    }
+
+    /**
+     * Returns the number of entries evicted to keep the cache within its maximum size.
+     */
+    public long evictionCount() {
+        return evictionCount;
+    }
+
+    private static int hash(Object key) {
+        // we want null pointer to be thrown if
+        // key is null
+        return Hashing.spread(key.hashCode());
+    }
+
+    private Node<K, V> getNode(Object key) {
+        return findNode(hash(key), key);
+    }
+
+    private Node<K, V> findNode(int hash, Object key) {
+        for (Node<K, V> node = table[hash & mask]; node != null; node = node.next) {
+            if (node.hash == hash && node.key.equals(key)) {
+                return node;
+            }
+        }
+        return null;
+    }
+
+    private void unlink(Node<K, V> node) {
+        int index = node.hash & mask;
+        if (table[index] == node) {
+            table[index] = node.next;
+        } else {
+            Node<K, V> prev = table[index];
+            while (prev.next != node) {
+                prev = prev.next;
+            }
+            prev.next = node.next;
+        }
+        node.next = null;
+        size--;
+        modificationCount++;
+    }
+
+    private void removeNode(Node<K, V> node) {
+        unlink(node);
+        AccessQueue<K, V> queue = node.queue;
+        queue.remove(node);
+        if (queue instanceof FrequencyBucket && queue.isEmpty()) {
+            removeBucket((FrequencyBucket<K, V>) queue);
+        }
+    }
+
+    private void evict(Node<K, V> node) {
+        removeNode(node);
+        evictionCount++;
+        listener.onEviction(node.key, node.value);
+    }
+
+    private void onInsert(Node<K, V> node) {
+        switch (policy) {
+            case LRU:
+                window.addLast(node);
+                if (size > maximumSize) {
+                    evict(window.first());
+                }
+                break;
+            case LFU:
+                if (size > maximumSize) {
+                    // evict before adding so the new entry is never its own victim
+                    evict(lowestBucket.first());
+                }
+                if (lowestBucket == null || lowestBucket.frequency != 1) {
+                    FrequencyBucket<K, V> bucket = new FrequencyBucket<>(1);
+                    bucket.next = lowestBucket;
+                    if (lowestBucket != null) {
+                        lowestBucket.prev = bucket;
+                    }
+                    lowestBucket = bucket;
+                }
+                lowestBucket.addLast(node);
+                break;
+            case W_TINY_LFU:
+                window.addLast(node);
+                if (window.size > windowMaximum) {
+                    admit(window.first());
+                }
+                break;
+            default:
+                throw new AssertionError(policy);
+        }
+    }
+
+    /**
+     * Moves the candidate pushed out of the window into the probation queue, unless the main queues are
+     * full and the candidate has been seen less often than the entry it would replace.
+     */
+    private void admit(Node<K, V> candidate) {
+        if (probation.size + protectedQueue.size < mainMaximum) {
+            window.remove(candidate);
+            probation.addLast(candidate);
+            return;
+        }
+        Node<K, V> victim = probation.isEmpty() ? protectedQueue.first() : probation.first();
+        if (victim != null && sketch.frequency(candidate.hash) > sketch.frequency(victim.hash)) {
+            evict(victim);
+            window.remove(candidate);
+            probation.addLast(candidate);
+        } else {
+            evict(candidate);
+        }
+    }
+
+    private void onAccess(Node<K, V> node) {
+        switch (policy) {
+            case LRU:
+                window.moveToLast(node);
+                break;
+            case LFU:
+                incrementFrequency(node);
+                break;
+            case W_TINY_LFU:
+                if (node.queue == probation) {
+                    probation.remove(node);
+                    protectedQueue.addLast(node);
+                    if (protectedQueue.size > protectedMaximum) {
+                        Node<K, V> demoted = protectedQueue.first();
+                        protectedQueue.remove(demoted);
+                        probation.addLast(demoted);
+                    }
+                } else {
+                    node.queue.moveToLast(node);
+                }
+                break;
+            default:
+                throw new AssertionError(policy);
+        }
+    }
+
+    private void incrementFrequency(Node<K, V> node) {
+        FrequencyBucket<K, V> bucket = (FrequencyBucket<K, V>) node.queue;
+        FrequencyBucket<K, V> next = bucket.next;
+        if (next == null || next.frequency != bucket.frequency + 1) {
+            next = new FrequencyBucket<>(bucket.frequency + 1);
+            next.prev = bucket;
+            next.next = bucket.next;
+            if (bucket.next != null) {
+                bucket.next.prev = next;
+            }
+            bucket.next = next;
+        }
+        bucket.remove(node);
+        next.addLast(node);
+        if (bucket.isEmpty()) {
+            removeBucket(bucket);
+        }
+    }
+
+    private void removeBucket(FrequencyBucket<K, V> bucket) {
+        if (bucket.prev == null) {
+            lowestBucket = bucket.next;
+        } else {
+            bucket.prev.next = bucket.next;
+        }
+        if (bucket.next != null) {
+            bucket.next.prev = bucket.prev;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void allocate(int tableSize) {
+        table = (Node<K, V>[]) new Node[tableSize];
+        mask = tableSize - 1;
+        threshold = (int) Math.min(tableSize * MAX_LOAD_FACTOR, Integer.MAX_VALUE);
+    }
+
+    private void resize() {
+        if (table.length == Hashing.MAX_TABLE_SIZE) {
+            return;
+        }
+        Node<K, V>[] oldTable = table;
+        allocate(table.length << 1);
+        for (Node<K, V> node : oldTable) {
+            while (node != null) {
+                Node<K, V> next = node.next;
+                int index = node.hash & mask;
+                node.next = table[index];
+                table[index] = node;
+                node = next;
+            }
+        }
+    }
+
+    public enum Policy {
+        /**
+         * Evicts the least recently used entry.
+         */
+        LRU,
+        /**
+         * Evicts the least frequently used entry, breaking ties by recency.
+         */
+        LFU,
+        /**
+         * Keeps new entries in a small LRU window and admits an entry pushed out of the window into the
+         * segmented LRU main space only if a frequency sketch has seen it more often than the entry it
+         * would evict.
+         */
+        W_TINY_LFU
+    }
+
+    @FunctionalInterface
+    public interface EvictionListener<K, V> {
+        void onEviction(K key, V value);
+    }
+
+    private static final class Node<K, V> extends AbstractPair<K, V> {
+        final int hash;
+        final K key;
+        V value;
+        Node<K, V> next;
+        // links of the eviction queue holding this node
+        Node<K, V> before;
+        Node<K, V> after;
+        AccessQueue<K, V> queue;
+
+        Node(int hash, K key, V value) {
+            this.hash = hash;
+            this.key = key;
+            this.value = value;
+        }
+
+        @Override
+        public K first() {
+            return key;
+        }
+
+        @Override
+        public V second() {
+            return value;
+        }
+    }
+
+    /**
+     * A doubly linked queue threaded through the nodes themselves, least recently used first.
+     */
+    private static class AccessQueue<K, V> {
+        Node<K, V> head;
+        Node<K, V> tail;
+        int size;
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        Node<K, V> first() {
+            return head;
+        }
+
+        void addLast(Node<K, V> node) {
+            node.queue = this;
+            node.before = tail;
+            node.after = null;
+            if (tail == null) {
+                head = node;
+            } else {
+                tail.after = node;
+            }
+            tail = node;
+            size++;
+        }
+
+        void remove(Node<K, V> node) {
+            if (node.before == null) {
+                head = node.after;
+            } else {
+                node.before.after = node.after;
+            }
+            if (node.after == null) {
+                tail = node.before;
+            } else {
+                node.after.before = node.before;
+            }
+            node.before = null;
+            node.after = null;
+            node.queue = null;
+            size--;
+        }
+
+        void moveToLast(Node<K, V> node) {
+            if (node != tail) {
+                remove(node);
+                addLast(node);
+            }
+        }
+
+        void clear() {
+            head = null;
+            tail = null;
+            size = 0;
+        }
+    }
+
+    /**
+     * The queue of all entries used the same number of times. Buckets form a list in increasing order
+     * of frequency.
+     */
+    private static final class FrequencyBucket<K, V> extends AccessQueue<K, V> {
+        final int frequency;
+        FrequencyBucket<K, V> prev;
+        FrequencyBucket<K, V> next;
+
+        FrequencyBucket(int frequency) {
+            this.frequency = frequency;
+        }
+    }
+
+    private class KeyIterator extends NodeIterator implements Iterator<K> {
+        @Override
+        public K next() {
+            return nextNode().key;
+        }
+    }
+
+    private class EntryIterator extends NodeIterator implements Iterator<Pair<K, V>> {
+        @Override
+        public Pair<K, V> next() {
+            return nextNode();
+        }
+    }
+
+    private abstract class NodeIterator {
+        Node<K, V> current;
+        Node<K, V> next;
+        int index;
+        int expectedModCount;
+
+        public NodeIterator() {
+            index = 0;
+            expectedModCount = modificationCount;
+            next = advance(null);
+        }
+
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        public Node<K, V> nextNode() {
+            checkForModification();
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            current = next;
+            next = advance(next.next);
+            return current;
+        }
+
+        public void remove() {
+            checkForModification();
+            if (current == null) {
+                throw new IllegalStateException();
+            }
+            removeNode(current);
+            current = null;
+            expectedModCount = modificationCount;
+        }
+
+        private Node<K, V> advance(Node<K, V> node) {
+            while (node == null && index < table.length) {
+                node = table[index++];
+            }
+            return node;
+        }
+
+        private void checkForModification() {
+            if (expectedModCount != modificationCount) {
+                throw new ConcurrentModificationException();
+            }
+        }
+    }
+}
@@ -0,0 +1,669 @@
+package lock14.datastructures.impl;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import lock14.datastructures.Pair;
+import lock14.datastructures.Set;
+
+/**
+ * A thread safe hash map in the style of {@link HashTable}, with separate chaining over a power of
+ * two table.
+ * <p>
+ * Reads never lock: they follow volatile links and see the latest completed write to each bin.
+ * Inserting into an empty bin is a single compare and set; any other write locks only the first
+ * node of its bin. When the table grows, the bins are split between the old and new table in
+ * strides that any writing thread may claim, so resizing is shared by every thread that runs into
+ * it rather than stalling them behind a single rehash. A moved bin is replaced by a forwarding node
+ * that sends readers and writers on to the new table.
+ * <p>
+ * Iterators are weakly consistent: they never throw
+ * {@link java.util.ConcurrentModificationException} and reflect each bin as it was when the
+ * iterator reached it. Neither null keys nor null values are permitted. The functions passed to
+ * {@link #compute}, {@link #computeIfAbsent} and {@link #merge} run while their bin is locked, so
+ * they should be short and must not update this map.
+ */
+public class ConcurrentHashTable<K, V> extends AbstractMap<K, V> {
+    private static final int DEFAULT_SIZE = 16;
+    private static final double MAX_LOAD_FACTOR = 0.75;
+    private static final int MIN_TRANSFER_STRIDE = 16;
+    private static final int NCPU = Runtime.getRuntime().availableProcessors();
+
+    // hashes of the special nodes, real hashes are never negative
+    private static final int MOVED = -1;
+    private static final int RESERVED = -2;
+    private static final int HASH_BITS = 0x7FFFFFFF;
+
+    private volatile AtomicReferenceArray<Node<K, V>> table;
+    private volatile int threshold;
+    private final AtomicReference<Transfer<K, V>> activeTransfer;
+    private final LongAdder count;
+
+    private Set<Pair<K, V>> entrySet = new AbstractSet<Pair<K, V>>() {
+        @Override
+        public boolean contains(Object o) {
+            if (!(o instanceof Pair)) {
+                return false;
+            }
+            Pair<?, ?> entry = (Pair<?, ?>) o;
+            return Objects.equals(entry.second(), ConcurrentHashTable.this.get(entry.first()));
+        }
+
+        @Override
+        public void clear() {
+            ConcurrentHashTable.this.clear();
+        }
+
+        @Override
+        public Iterator<Pair<K, V>> iterator() {
+            return new EntryIterator();
+        }
+
+        @Override
+        public void remove(Object o) {
+            if (o instanceof Pair) {
+                Pair<?, ?> entry = (Pair<?, ?>) o;
+                ConcurrentHashTable.this.remove(entry.first());
+            }
+        }
+
+        @Override
+        public int size() {
+            return ConcurrentHashTable.this.size();
+        }
+    };
+
+    private Set<K> keySet = new AbstractSet<K>() {
+        @Override
+        public boolean contains(Object o) {
+            return containsKey(o);
+        }
+
+        @Override
+        public void clear() {
+            ConcurrentHashTable.this.clear();
+        }
+
+        @Override
+        public Iterator<K> iterator() {
+            return new KeyIterator();
+        }
+
+        @Override
+        public void remove(Object key) {
+            ConcurrentHashTable.this.remove(key);
+        }
+
+        @Override
+        public int size() {
+            return ConcurrentHashTable.this.size();
+        }
+    };
+
+    public ConcurrentHashTable() {
+        this(DEFAULT_SIZE);
+    }
+
+    public ConcurrentHashTable(int expectedSize) {
+        if (expectedSize < 0) {
+            throw new IllegalArgumentException("Illegal size: " + expectedSize);
+        }
+        int tableSize = Hashing.tableSizeFor(expectedSize, MAX_LOAD_FACTOR);
+        table = new AtomicReferenceArray<>(tableSize);
+        threshold = (int) (tableSize * MAX_LOAD_FACTOR);
+        activeTransfer = new AtomicReference<>();
+        count = new LongAdder();
+    }
+
+    @Override
+    public V get(Object key) {
+        Node<K, V> node = find(hash(key), key);
+        return node == null ? null : node.value;
+    }
+
+    @Override
+    public V getOrDefault(Object key, V defaultValue) {
+        Node<K, V> node = find(hash(key), key);
+        return node == null ? defaultValue : node.value;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return find(hash(key), key) != null;
+    }
+
+    @Override
+    public boolean containsValue(Object value) {
+        if (value == null) {
+            throw new NullPointerException();
+        }
+        for (Pair<K, V> entry : entrySet) {
+            if (value.equals(entry.second())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public V put(K key, V value) {
+        return putValue(key, value, false);
+    }
+
+    /**
+     * Atomically associates the value with the key unless the key is already mapped.
+     *
+     * @return the value already associated with the key, or null if the value was added
+     */
+    @Override
+    public V putIfAbsent(K key, V value) {
+        return putValue(key, value, true);
+    }
+
+    @Override
+    public V remove(Object key) {
+        int hash = hash(key);
+        AtomicReferenceArray<Node<K, V>> tab = table;
+        while (true) {
+            int index = hash & (tab.length() - 1);
+            Node<K, V> first = tab.get(index);
+            if (first == null) {
+                return null;
+            } else if (first.hash == MOVED) {
+                tab = helpTransfer(first);
+                continue;
+            }
+            synchronized (first) {
+                if (tab.get(index) != first) {
+                    continue;
+                }
+                Node<K, V> prev = null;
+                for (Node<K, V> node = first; node != null; prev = node, node = node.next) {
+                    if (node.hash == hash && node.key.equals(key)) {
+                        unlink(tab, index, prev, node);
+                        count.decrement();
+                        return node.value;
+                    }
+                }
+                return null;
+            }
+        }
+    }
+
+    /**
+     * Atomically returns the value associated with the key, first computing and adding one if the key
+     * is not mapped. The mapping function is called at most once per absent key, and nothing is added
+     * if it returns null.
+     */
+    @Override
+    public V computeIfAbsent(K key, Function<? super K, ? extends V> mappingFunction) {
+        Objects.requireNonNull(mappingFunction);
+        V value = get(key);
+        if (value != null) {
+            return value;
+        }
+        return compute(key, (k, oldValue) -> oldValue != null ? oldValue : mappingFunction.apply(k));
+    }
+
+    /**
+     * Atomically replaces the value associated with the key by the result of the remapping function if
+     * the key is mapped. The mapping is removed if the function returns null.
+     *
+     * @return the new value associated with the key, or null if there is none
+     */
+    @Override
+    public V computeIfPresent(K key, BiFunction<? super K, ? super V, ? extends V> remappingFunction) {
+        Objects.requireNonNull(remappingFunction);
+        if (get(key) == null) {
+            return null;
+        }
+        return compute(key, (k, oldValue) -> oldValue == null ? null : remappingFunction.apply(k, oldValue));
+    }
+
+    /**
+     * Atomically replaces the value associated with the key by combining it with the given value, or
+     * associates the given value if the key is not mapped. The mapping is removed if the remapping
+     * function returns null.
+     *
+     * @return the new value associated with the key, or null if there is none
+     */
+    @Override
+    public V merge(K key, V value, BiFunction<? super V, ? super V, ? extends V> remappingFunction) {
+        Objects.requireNonNull(value);
+        Objects.requireNonNull(remappingFunction);
+        return compute(key, (k, oldValue) -> oldValue == null ? value : remappingFunction.apply(oldValue, value));
+    }
+
+    /**
+     * Atomically replaces the value associated with the key by the result of the remapping function,
+     * which is passed null if the key is not mapped. The mapping is removed if the function returns
+     * null.
+     *
+     * @return the new value associated with the key, or null if there is none
+     */
+    @Override
+    public V compute(K key, BiFunction<? super K, ? super V, ? extends V> remappingFunction) {
+        Objects.requireNonNull(remappingFunction);
+        int hash = hash(key);
+        AtomicReferenceArray<Node<K, V>> tab = table;
+        while (true) {
+            int index = hash & (tab.length() - 1);
+            Node<K, V> first = tab.get(index);
+            if (first == null) {
+                // lock a placeholder so nobody else can claim the bin while we compute
+                Node<K, V> reservation = new Node<>(RESERVED, null, null, null);
+                synchronized (reservation) {
+                    if (tab.compareAndSet(index, null, reservation)) {
+                        Node<K, V> node = null;
+                        try {
+                            V value = remappingFunction.apply(key, null);
+                            if (value != null) {
+                                node = new Node<>(hash, key, value, null);
+                            }
+                        } finally {
+                            tab.set(index, node);
+                        }
+                        if (node == null) {
+                            return null;
+                        }
+                        addCount(tab);
+                        return node.value;
+                    }
+                }
+                continue;
+            } else if (first.hash == MOVED) {
+                tab = helpTransfer(first);
+                continue;
+            }
+            boolean added = false;
+            V result = null;
+            synchronized (first) {
+                if (tab.get(index) != first) {
+                    continue;
+                }
+                Node<K, V> prev = null;
+                Node<K, V> node = first;
+                while (node != null && !(node.hash == hash && node.key.equals(key))) {
+                    prev = node;
+                    node = node.next;
+                }
+                if (node != null) {
+                    result = remappingFunction.apply(key, node.value);
+                    if (result != null) {
+                        node.value = result;
+                    } else {
+                        unlink(tab, index, prev, node);
+                        count.decrement();
+                    }
+                } else {
+                    result = remappingFunction.apply(key, null);
+                    if (result != null) {
+                        prev.next = new Node<>(hash, key, result, null);
+                        added = true;
+                    }
+                }
+            }
+            if (added) {
+                addCount(tab);
+            }
+            return result;
+        }
+    }
+
+    @Override
+    public void clear() {
+        AtomicReferenceArray<Node<K, V>> tab = table;
+        int index = 0;
+        while (index < tab.length()) {
+            Node<K, V> first = tab.get(index);
+            if (first == null) {
+                index++;
+            } else if (first.hash == MOVED) {
+                // start over on the new table
+                tab = helpTransfer(first);
+                index = 0;
+            } else {
+                synchronized (first) {
+                    if (tab.get(index) == first) {
+                        long removed = 0;
+                        for (Node<K, V> node = first; node != null; node = node.next) {
+                            if (node.hash >= 0) {
+                                removed++;
+                            }
+                        }
+                        if (first.hash != RESERVED) {
+                            tab.set(index, null);
+                            count.add(-removed);
+                        }
+                        index++;
+                    }
+                }
+            }
+        }
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return count.sum() <= 0;
+    }
+
+    /**
+     * Returns the number of mappings. Updates made while the count is being taken may or may not be
+     * reflected in the result.
+     */
+    @Override
+    public int size() {
+        long size = count.sum();
+        return size < 0 ? 0 : size > Integer.MAX_VALUE ? Integer.MAX_VALUE : (int) size;
+    }
+
+    @Override
+    public Set<K> keySet() {
+        return keySet;
+    }
+
+    @Override
+    public Set<Pair<K, V>> entrySet() {
+        return entrySet;
+    }
+
+    private static int hash(Object key) {
+        // we want null pointer to be thrown if
+        // key is null
+        return Hashing.spread(key.hashCode()) & HASH_BITS;
+    }
+
+    private Node<K, V> find(int hash, Object key) {
+        AtomicReferenceArray<Node<K, V>> tab = table;
+        while (true) {
+            Node<K, V> node = tab.get(hash & (tab.length() - 1));
+            if (node == null || node.hash == RESERVED) {
+                return null;
+            } else if (node.hash == MOVED) {
+                tab = ((ForwardingNode<K, V>) node).transfer.target;
+                continue;
+            }
+            for (; node != null; node = node.next) {
+                if (node.hash == hash && node.key.equals(key)) {
+                    return node;
+                }
+            }
+            return null;
+        }
+    }
+
+    private V putValue(K key, V value, boolean onlyIfAbsent) {
+        if (value == null) {
+            throw new NullPointerException();
+        }
+        int hash = hash(key);
+        AtomicReferenceArray<Node<K, V>> tab = table;
+        while (true) {
+            int index = hash & (tab.length() - 1);
+            Node<K, V> first = tab.get(index);
+            if (first == null) {
+                if (tab.compareAndSet(index, null, new Node<>(hash, key, value, null))) {
+                    break;
+                }
+                continue;
+            } else if (first.hash == MOVED) {
+                tab = helpTransfer(first);
+                continue;
+            }
+            synchronized (first) {
+                if (tab.get(index) != first) {
+                    continue;
+                }
+                Node<K, V> node = first;
+                while (true) {
+                    if (node.hash == hash && node.key.equals(key)) {
+                        V result = node.value;
+                        if (!onlyIfAbsent) {
+                            node.value = value;
+                        }
+                        return result;
+                    }
+                    if (node.next == null) {
+                        node.next = new Node<>(hash, key, value, null);
+                        break;
+                    }
+                    node = node.next;
+                }
+            }
+            break;
+        }
+        addCount(tab);
+        return null;
+    }
+
+    private void unlink(AtomicReferenceArray<Node<K, V>> tab, int index, Node<K, V> prev, Node<K, V> node) {
+        // readers already on the removed node still find the rest of the chain through it
+        if (prev == null) {
+            tab.set(index, node.next);
+        } else {
+            prev.next = node.next;
+        }
+    }
+
+    private void addCount(AtomicReferenceArray<Node<K, V>> tab) {
+        count.increment();
+        if (count.sum() > threshold && tab == table && tab.length() < Hashing.MAX_TABLE_SIZE) {
+            Transfer<K, V> active = activeTransfer.get();
+            if (active != null) {
+                // help the running resize rather than allocate a table for one that cannot start
+                transfer(active);
+                return;
+            }
+            Transfer<K, V> t = new Transfer<>(tab);
+            if (activeTransfer.compareAndSet(null, t)) {
+                // someone may have finished a resize since we looked at the table
+                if (tab == table) {
+                    transfer(t);
+                } else {
+                    activeTransfer.set(null);
+                }
+            }
+        }
+    }
+
+    private AtomicReferenceArray<Node<K, V>> helpTransfer(Node<K, V> forwardingNode) {
+        Transfer<K, V> t = ((ForwardingNode<K, V>) forwardingNode).transfer;
+        transfer(t);
+        return t.target;
+    }
+
+    /**
+     * Claims strides of bins from the top of the old table and moves them until there are none left.
+     * Whoever moves the last bin publishes the new table.
+     */
+    private void transfer(Transfer<K, V> t) {
+        int stride = Math.max(t.source.length() / (NCPU * 8), MIN_TRANSFER_STRIDE);
+        while (true) {
+            int high = t.nextIndex.get();
+            if (high <= 0) {
+                return;
+            }
+            int low = Math.max(high - stride, 0);
+            if (!t.nextIndex.compareAndSet(high, low)) {
+                continue;
+            }
+            for (int index = low; index < high; index++) {
+                transferBin(t, index);
+            }
+            if (t.remaining.addAndGet(low - high) == 0) {
+                threshold = (int) (t.target.length() * MAX_LOAD_FACTOR);
+                table = t.target;
+                activeTransfer.set(null);
+                return;
+            }
+        }
+    }
+
+    private void transferBin(Transfer<K, V> t, int index) {
+        int n = t.source.length();
+        while (true) {
+            Node<K, V> first = t.source.get(index);
+            if (first == null) {
+                if (t.source.compareAndSet(index, null, t.forwardingNode)) {
+                    return;
+                }
+                continue;
+            }
+            synchronized (first) {
+                if (t.source.get(index) != first) {
+                    continue;
+                }
+                // copy rather than relink so that readers still walking the old chain are unaffected
+                Node<K, V> low = null;
+                Node<K, V> high = null;
+                for (Node<K, V> node = first; node != null; node = node.next) {
+                    if ((node.hash & n) == 0) {
+                        low = new Node<>(node.hash, node.key, node.value, low);
+                    } else {
+                        high = new Node<>(node.hash, node.key, node.value, high);
+                    }
+                }
+                t.target.set(index, low);
+                t.target.set(index + n, high);
+                t.source.set(index, t.forwardingNode);
+                return;
+            }
+        }
+    }
+
+    private static class Node<K, V> extends AbstractPair<K, V> {
+        final int hash;
+        final K key;
+        volatile V value;
+        volatile Node<K, V> next;
+
+        Node(int hash, K key, V value, Node<K, V> next) {
+            this.hash = hash;
+            this.key = key;
+            this.value = value;
+            this.next = next;
+        }
+
+        @Override
+        public K first() {
+            return key;
+        }
+
+        @Override
+        public V second() {
+            return value;
+        }
+    }
+
+    private static final class ForwardingNode<K, V> extends Node<K, V> {
+        final Transfer<K, V> transfer;
+
+        ForwardingNode(Transfer<K, V> transfer) {
+            super(MOVED, null, null, null);
+            this.transfer = transfer;
+        }
+    }
+
+    private static final class Transfer<K, V> {
+        final AtomicReferenceArray<Node<K, V>> source;
+        final AtomicReferenceArray<Node<K, V>> target;
+        final ForwardingNode<K, V> forwardingNode;
+        // bins are claimed from the top down
+        final AtomicInteger nextIndex;
+        final AtomicInteger remaining;
+
+        Transfer(AtomicReferenceArray<Node<K, V>> source) {
+            this.source = source;
+            this.target = new AtomicReferenceArray<>(source.length() << 1);
+            this.forwardingNode = new ForwardingNode<>(this);
+            this.nextIndex = new AtomicInteger(source.length());
+            this.remaining = new AtomicInteger(source.length());
+        }
+    }
+
+    private class KeyIterator extends NodeIterator implements Iterator<K> {
+        @Override
+        public K next() {
+            return nextNode().key;
+        }
+    }
+
+    private class EntryIterator extends NodeIterator implements Iterator<Pair<K, V>> {
+        @Override
+        public Pair<K, V> next() {
+            return nextNode();
+        }
+    }
+
+    /**
+     * Walks the bins of the table as it was when the iterator was created. A forwarded bin is replaced
+     * by the two bins of the next table it was split into.
+     */
+    private abstract class NodeIterator {
+        AtomicReferenceArray<Node<K, V>> tab;
+        int index;
+        Deque<Pair<AtomicReferenceArray<Node<K, V>>, Integer>> forwarded;
+        Node<K, V> lastReturned;
+        Node<K, V> next;
+
+        public NodeIterator() {
+            tab = table;
+            index = 0;
+            forwarded = new ArrayDeque<>();
+            next = advance(null);
+        }
+
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        public Node<K, V> nextNode() {
+            if (next == null) {
+                throw new NoSuchElementException();
+            }
+            lastReturned = next;
+            next = advance(next.next);
+            return lastReturned;
+        }
+
+        public void remove() {
+            if (lastReturned == null) {
+                throw new IllegalStateException();
+            }
+            ConcurrentHashTable.this.remove(lastReturned.key);
+            lastReturned = null;
+        }
+
+        private Node<K, V> advance(Node<K, V> node) {
+            while (node == null || node.hash < 0) {
+                if (node != null && node.hash == MOVED) {
+                    AtomicReferenceArray<Node<K, V>> target = ((ForwardingNode<K, V>) node).transfer.target;
+                    int bin = forwarded.isEmpty() ? index - 1 : forwarded.pop().second();
+                    forwarded.push(Pair.of(target, bin + (target.length() >> 1)));
+                    forwarded.push(Pair.of(target, bin));
+                    node = null;
+                }
+                if (!forwarded.isEmpty()) {
+                    Pair<AtomicReferenceArray<Node<K, V>>, Integer> pending = forwarded.peek();
+                    node = pending.first().get(pending.second());
+                    if (node == null || node.hash != MOVED) {
+                        forwarded.pop();
+                    }
+                } else if (index < tab.length()) {
+                    node = tab.get(index++);
+                } else {
+                    return null;
+                }
+            }
+            return node;
+        }
+    }
+}
@@ -0,0 +1,315 @@
+package lock14.datastructures.impl;
+
+import java.util.Arrays;
+import java.util.ListIterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import lock14.datastructures.Collection;
+import lock14.datastructures.RandomAccessList;
+
+/**
+ * A thread safe list whose every write copies the backing array and then publishes the copy through
+ * a volatile field.
+ * <p>
+ * Reads take no lock and make no modification checks: they load the current array once and work on
+ * that snapshot, so iterators never throw {@link java.util.ConcurrentModificationException} and do
+ * not see writes made after they were created. Writes are serialized by a lock and each costs a
+ * full copy, which suits lists that are read far more often than they change. To apply many changes
+ * for a few copies rather than one per change, use {@link #update(Consumer)}.
+ */
+public class CopyOnWriteArrayList<E> extends AbstractList<E> implements RandomAccessList<E> {
+    private static final Object[] EMPTY_ARRAY = new Object[0];
+
+    private final Object lock = new Object();
+    private volatile Object[] array;
+
+    public CopyOnWriteArrayList() {
+        array = EMPTY_ARRAY;
+    }
+
+    public CopyOnWriteArrayList(Collection<E> c) {
+        array = c == null ? EMPTY_ARRAY : toArray(c);
+    }
+
+    @Override
+    public void add(int index, E element) {
+        synchronized (lock) {
+            Object[] a = array;
+            if (index < 0 || index > a.length) {
+                throw new IndexOutOfBoundsException("Index out of range: " + index);
+            }
+            Object[] newArray = new Object[a.length + 1];
+            System.arraycopy(a, 0, newArray, 0, index);
+            System.arraycopy(a, index, newArray, index + 1, a.length - index);
+            newArray[index] = element;
+            array = newArray;
+        }
+    }
+
+    @Override
+    public void addAll(Collection<? extends E> c) {
+        Object[] added = toArray(c);
+        if (added.length == 0) {
+            return;
+        }
+        synchronized (lock) {
+            Object[] a = array;
+            Object[] newArray = Arrays.copyOf(a, a.length + added.length);
+            System.arraycopy(added, 0, newArray, a.length, added.length);
+            array = newArray;
+        }
+    }
+
+    /**
+     * Appends the element unless the list already contains it, and returns whether it was added.
+     */
+    public boolean addIfAbsent(E element) {
+        synchronized (lock) {
+            Object[] a = array;
+            if (indexOf(element, a, a.length) >= 0) {
+                return false;
+            }
+            Object[] newArray = Arrays.copyOf(a, a.length + 1);
+            newArray[a.length] = element;
+            array = newArray;
+            return true;
+        }
+    }
+
+    /**
+     * Appends each element of the collection that the list does not already contain, copying the array
+     * once.
+     */
+    public void addAllAbsent(Collection<? extends E> c) {
+        Object[] candidates = toArray(c);
+        synchronized (lock) {
+            Object[] a = array;
+            Object[] newArray = Arrays.copyOf(a, a.length + candidates.length);
+            int size = a.length;
+            for (Object e : candidates) {
+                if (indexOf(e, newArray, size) < 0) {
+                    newArray[size++] = e;
+                }
+            }
+            if (size > a.length) {
+                array = size == newArray.length ? newArray : Arrays.copyOf(newArray, size);
+            }
+        }
+    }
+
+    @Override
+    public void clear() {
+        synchronized (lock) {
+            array = EMPTY_ARRAY;
+        }
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        Object[] a = array;
+        return indexOf(o, a, a.length) >= 0;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public E get(int index) {
+        Object[] a = array;
+        if (index < 0 || index >= a.length) {
+            throw new IndexOutOfBoundsException("Index out of range: " + index);
+        }
+        return (E) a[index];
+    }
+
+    @Override
+    public int indexOf(Object o) {
+        Object[] a = array;
+        return indexOf(o, a, a.length);
+    }
+
+    @Override
+    public ListIterator<E> listIterator() {
+        return listIterator(0);
+    }
+
+    @Override
+    public ListIterator<E> listIterator(int index) {
+        Object[] a = array;
+        if (index < 0 || index > a.length) {
+            throw new IndexOutOfBoundsException("Index out of range: " + index);
+        }
+        return new SnapshotIterator(a, index);
+    }
+
+    @Override
+    public void remove(int index) {
+        synchronized (lock) {
+            Object[] a = array;
+            if (index < 0 || index >= a.length) {
+                throw new IndexOutOfBoundsException("Index out of range: " + index);
+            }
+            array = without(a, index);
+        }
+    }
+
+    @Override
+    public void remove(Object o) {
+        synchronized (lock) {
+            Object[] a = array;
+            int index = indexOf(o, a, a.length);
+            if (index >= 0) {
+                array = without(a, index);
+            }
+        }
+    }
+
+    @Override
+    public void removeAll(Collection<?> c) {
+        update(list -> list.removeAll(c));
+    }
+
+    @Override
+    public void retainAll(Collection<?> c) {
+        update(list -> list.retainAll(c));
+    }
+
+    @Override
+    public void set(int index, E element) {
+        synchronized (lock) {
+            Object[] a = array;
+            if (index < 0 || index >= a.length) {
+                throw new IndexOutOfBoundsException("Index out of range: " + index);
+            }
+            Object[] newArray = a.clone();
+            newArray[index] = element;
+            array = newArray;
+        }
+    }
+
+    @Override
+    public int size() {
+        return array.length;
+    }
+
+    @Override
+    public Spliterator<E> spliterator() {
+        return Spliterators.spliterator(array, Spliterator.ORDERED | Spliterator.IMMUTABLE);
+    }
+
+    /**
+     * Applies a batch of changes at a cost that does not depend on how many changes it holds. The edits
+     * are made to a private {@link ArrayList} copy of the current elements while holding the write
+     * lock, and readers see either none or all of them. If the edits throw, the list is left unchanged.
+     * Once the edits return, the working list is emptied, so a reference kept to it can never reach the
+     * published array.
+     * <p>
+     * The batch copies the current array once, and the working list copies it again each time the edits
+     * grow it past its capacity. Unless the edits leave the working list exactly full, the result is
+     * trimmed by one more copy, since readers take the length of the published array as the size of the
+     * list.
+     */
+    public void update(Consumer<? super ArrayList<E>> edits) {
+        synchronized (lock) {
+            Object[] a = array;
+            ArrayList<E> working = new ArrayList<>(a.clone(), a.length);
+            edits.accept(working);
+            array = working.takeElements();
+        }
+    }
+
+    /**
+     * Returns the current array, which must not be modified.
+     */
+    Object[] snapshot() {
+        return array;
+    }
+
+    private static Object[] toArray(Collection<?> c) {
+        Object[] elements = new Object[c.size()];
+        int i = 0;
+        for (Object e : c) {
+            elements[i++] = e;
+        }
+        return elements;
+    }
+
+    private static int indexOf(Object o, Object[] a, int length) {
+        for (int i = 0; i < length; i++) {
+            if (o == null ? a[i] == null : o.equals(a[i])) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static Object[] without(Object[] a, int index) {
+        Object[] newArray = new Object[a.length - 1];
+        System.arraycopy(a, 0, newArray, 0, index);
+        System.arraycopy(a, index + 1, newArray, index, a.length - index - 1);
+        return newArray;
+    }
+
+    private class SnapshotIterator implements ListIterator<E> {
+        final Object[] snapshot;
+        int index;
+
+        SnapshotIterator(Object[] snapshot, int index) {
+            this.snapshot = snapshot;
+            this.index = index;
+        }
+
+        @Override
+        public void add(E element) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return index < snapshot.length;
+        }
+
+        @Override
+        public boolean hasPrevious() {
+            return index > 0;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public E next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return (E) snapshot[index++];
+        }
+
+        @Override
+        public int nextIndex() {
+            return index;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public E previous() {
+            if (!hasPrevious()) {
+                throw new NoSuchElementException();
+            }
+            return (E) snapshot[--index];
+        }
+
+        @Override
+        public int previousIndex() {
+            return index - 1;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void set(E element) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
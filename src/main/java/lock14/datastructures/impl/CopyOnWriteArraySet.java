@@ -0,0 +1,77 @@
+package lock14.datastructures.impl;
+
+import java.util.Iterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import lock14.datastructures.Collection;
+
+/**
+ * A thread safe set backed by a {@link CopyOnWriteArrayList}. Lookups scan the array, so it is
+ * meant for small sets that are read far more often than they change. The bulk operations copy the
+ * array only once.
+ */
+public class CopyOnWriteArraySet<E> extends AbstractSet<E> {
+    private final CopyOnWriteArrayList<E> list;
+
+    public CopyOnWriteArraySet() {
+        list = new CopyOnWriteArrayList<>();
+    }
+
+    public CopyOnWriteArraySet(Collection<E> c) {
+        this();
+        if (c != null) {
+            addAll(c);
+        }
+    }
+
+    @Override
+    public void add(E element) {
+        list.addIfAbsent(element);
+    }
+
+    @Override
+    public void addAll(Collection<? extends E> c) {
+        list.addAllAbsent(c);
+    }
+
+    @Override
+    public void clear() {
+        list.clear();
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return list.contains(o);
+    }
+
+    @Override
+    public Iterator<E> iterator() {
+        return list.iterator();
+    }
+
+    @Override
+    public void remove(Object o) {
+        list.remove(o);
+    }
+
+    @Override
+    public void removeAll(Collection<?> c) {
+        list.removeAll(c);
+    }
+
+    @Override
+    public void retainAll(Collection<?> c) {
+        list.retainAll(c);
+    }
+
+    @Override
+    public int size() {
+        return list.size();
+    }
+
+    @Override
+    public Spliterator<E> spliterator() {
+        return Spliterators.spliterator(list.snapshot(),
+                                        Spliterator.DISTINCT | Spliterator.ORDERED | Spliterator.IMMUTABLE);
+    }
+}
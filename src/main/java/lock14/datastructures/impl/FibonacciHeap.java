@@ -0,0 +1,308 @@
+package lock14.datastructures.impl;
+
+import java.util.Comparator;
+import java.util.NoSuchElementException;
+import lock14.datastructures.Collection;
+
+/**
+ * A Fibonacci heap: a list of heap ordered trees whose consolidation is put off until the minimum
+ * is dequeued. Inserting, melding and decreasing a key take O(1) amortized time, and dequeueing or
+ * removing takes O(log n) amortized time.
+ * <p>
+ * {@link #meld(FibonacciHeap)} moves every element of another heap into this one in O(1) time, and
+ * the handles of the moved elements then belong to this heap. Both heaps must order their elements
+ * the same way.
+ */
+public class FibonacciHeap<E> extends AbstractMeldableHeap<E> {
+    // no node can have more children than this, as its subtree would outgrow any int size
+    private static final int MAX_DEGREE = 64;
+
+    private final Comparator<? super E> comparator;
+    private Node<E> min;
+    private Node<E>[] byDegree;
+
+    @SuppressWarnings("unchecked")
+    public FibonacciHeap() {
+        this((Comparator<? super E>) Comparator.naturalOrder());
+    }
+
+    @SuppressWarnings("unchecked")
+    public FibonacciHeap(Comparator<? super E> comparator) {
+        this.comparator = comparator;
+        this.min = null;
+        this.byDegree = (Node<E>[]) new Node[MAX_DEGREE];
+    }
+
+    public FibonacciHeap(Collection<E> c) {
+        this();
+        if (c != null) {
+            addAll(c);
+        }
+    }
+
+    @Override
+    public void clear() {
+        super.clear();
+        min = null;
+    }
+
+    @Override
+    public void decreaseKey(Handle<E> handle, E element) {
+        Node<E> node = node(handle);
+        if (comparator.compare(element, node.element) > 0) {
+            throw new IllegalArgumentException("New element is greater than the current one");
+        }
+        node.element = element;
+        Node<E> parent = node.parent;
+        if (parent != null && less(node, parent)) {
+            cut(node, parent);
+            cascadingCut(parent);
+        }
+        if (less(node, min)) {
+            min = node;
+        }
+    }
+
+    @Override
+    public E dequeue() {
+        Node<E> node = min;
+        if (node == null) {
+            throw new NoSuchElementException();
+        }
+        extract(node);
+        discard(node);
+        return node.element;
+    }
+
+    @Override
+    public void increaseKey(Handle<E> handle, E element) {
+        Node<E> node = node(handle);
+        if (comparator.compare(element, node.element) < 0) {
+            throw new IllegalArgumentException("New element is less than the current one");
+        }
+        extract(node);
+        node.element = element;
+        addRoot(node);
+    }
+
+    @Override
+    public Handle<E> insert(E element) {
+        Node<E> node = new Node<>(element);
+        adopt(node);
+        addRoot(node);
+        return node;
+    }
+
+    /**
+     * Moves all the elements of the other heap into this one, leaving the other heap empty.
+     */
+    public void meld(FibonacciHeap<E> other) {
+        if (other == this) {
+            throw new IllegalArgumentException("Cannot meld a heap with itself");
+        }
+        if (other.min == null) {
+            return;
+        }
+        if (min == null) {
+            min = other.min;
+        } else {
+            splice(min, other.min);
+            if (less(other.min, min)) {
+                min = other.min;
+            }
+        }
+        other.min = null;
+        takeNodes(other);
+    }
+
+    @Override
+    public E peek() {
+        if (min == null) {
+            throw new NoSuchElementException();
+        }
+        return min.element;
+    }
+
+    @Override
+    public void remove(Handle<E> handle) {
+        Node<E> node = node(handle);
+        extract(node);
+        discard(node);
+    }
+
+    private boolean less(Node<E> a, Node<E> b) {
+        return comparator.compare(a.element, b.element) < 0;
+    }
+
+    private void addRoot(Node<E> node) {
+        node.left = node;
+        node.right = node;
+        if (min == null) {
+            min = node;
+        } else {
+            splice(min, node);
+            if (less(node, min)) {
+                min = node;
+            }
+        }
+    }
+
+    /**
+     * Takes the node out of the heap on its own, moving its children to the root list, and finds the
+     * new minimum if the node was the minimum.
+     */
+    private void extract(Node<E> node) {
+        Node<E> parent = node.parent;
+        if (parent != null) {
+            cut(node, parent);
+            cascadingCut(parent);
+        }
+        Node<E> child = node.child;
+        if (child != null) {
+            Node<E> c = child;
+            do {
+                c.parent = null;
+                c.marked = false;
+                c = c.right;
+            } while (c != child);
+            splice(node, child);
+            node.child = null;
+            node.degree = 0;
+        }
+        Node<E> next = node.right;
+        node.left.right = node.right;
+        node.right.left = node.left;
+        node.left = node;
+        node.right = node;
+        if (node == min) {
+            if (next == node) {
+                min = null;
+            } else {
+                min = next;
+                consolidate();
+            }
+        }
+    }
+
+    /**
+     * Links roots of equal degree until all roots have distinct degrees, then finds the minimum.
+     */
+    private void consolidate() {
+        int rootCount = 0;
+        Node<E> w = min;
+        do {
+            rootCount++;
+            w = w.right;
+        } while (w != min);
+        Node<E> x = min;
+        int maxDegree = 0;
+        for (int i = 0; i < rootCount; i++) {
+            Node<E> next = x.right;
+            int degree = x.degree;
+            while (byDegree[degree] != null) {
+                Node<E> y = byDegree[degree];
+                if (less(y, x)) {
+                    Node<E> temp = x;
+                    x = y;
+                    y = temp;
+                }
+                link(y, x);
+                byDegree[degree++] = null;
+            }
+            byDegree[degree] = x;
+            maxDegree = Math.max(maxDegree, degree);
+            x = next;
+        }
+        min = null;
+        for (int d = 0; d <= maxDegree; d++) {
+            Node<E> root = byDegree[d];
+            if (root != null) {
+                byDegree[d] = null;
+                if (min == null || less(root, min)) {
+                    min = root;
+                }
+            }
+        }
+    }
+
+    /**
+     * Moves a root under another root of the same degree.
+     */
+    private static <E> void link(Node<E> child, Node<E> parent) {
+        child.left.right = child.right;
+        child.right.left = child.left;
+        child.left = child;
+        child.right = child;
+        child.parent = parent;
+        child.marked = false;
+        if (parent.child == null) {
+            parent.child = child;
+        } else {
+            splice(parent.child, child);
+        }
+        parent.degree++;
+    }
+
+    /**
+     * Moves the node from the children of the parent to the root list.
+     */
+    private void cut(Node<E> node, Node<E> parent) {
+        if (node.right == node) {
+            parent.child = null;
+        } else {
+            node.left.right = node.right;
+            node.right.left = node.left;
+            if (parent.child == node) {
+                parent.child = node.right;
+            }
+        }
+        parent.degree--;
+        node.parent = null;
+        node.marked = false;
+        node.left = node;
+        node.right = node;
+        splice(min, node);
+    }
+
+    /**
+     * Cuts each marked ancestor in turn and marks the first unmarked one, so that no node loses more
+     * than one child without being cut itself.
+     */
+    private void cascadingCut(Node<E> node) {
+        Node<E> parent = node.parent;
+        while (parent != null) {
+            if (!node.marked) {
+                node.marked = true;
+                return;
+            }
+            cut(node, parent);
+            node = parent;
+            parent = node.parent;
+        }
+    }
+
+    /**
+     * Joins two circular sibling lists.
+     */
+    private static <E> void splice(Node<E> a, Node<E> b) {
+        Node<E> aRight = a.right;
+        Node<E> bLeft = b.left;
+        a.right = b;
+        b.left = a;
+        bLeft.right = aRight;
+        aRight.left = bLeft;
+    }
+
+    private static final class Node<E> extends RingNode<E> {
+        Node<E> parent;
+        Node<E> child;
+        Node<E> left;
+        Node<E> right;
+        int degree;
+        boolean marked;
+
+        Node(E element) {
+            super(element);
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package lock14.datastructures.impl;
+
+/**
+ * A count-min sketch that estimates how often a hash has been seen recently.
+ * <p>
+ * Each {@code long} of the table packs sixteen 4 bit counters and every hash maps to one counter in
+ * each of four rows, so an estimate is the smallest of four counters that saturate at 15. Once the
+ * number of increments reaches the sample size every counter is halved, which lets the sketch
+ * forget old popularity.
+ */
+final class FrequencySketch {
+    private static final int[] SEEDS = {0x97CB3127, 0xB1A3C5D7, 0x6C8E9CF5, 0x2545F491};
+    private static final int ROWS = SEEDS.length;
+    private static final int MAX_COUNT = 15;
+    private static final long HALF_MASK = 0x7777777777777777L;
+    private static final int MAX_TABLE_SIZE = 1 << 22;
+
+    private final long[] table;
+    private final int tableMask;
+    private final int sampleSize;
+    private int additions;
+
+    FrequencySketch(int maximumSize) {
+        int needed = Math.max(1, Math.min(maximumSize, MAX_TABLE_SIZE));
+        int tableSize = Integer.highestOneBit(needed);
+        table = new long[tableSize < needed ? tableSize << 1 : tableSize];
+        tableMask = table.length - 1;
+        sampleSize = (int) Math.min(10L * Math.max(maximumSize, 1), Integer.MAX_VALUE);
+    }
+
+    int frequency(int hash) {
+        int frequency = MAX_COUNT;
+        for (int i = 0; i < ROWS; i++) {
+            int h = rowHash(hash, i);
+            frequency = Math.min(frequency, (int) ((table[h & tableMask] >>> shift(h, i)) & MAX_COUNT));
+        }
+        return frequency;
+    }
+
+    void increment(int hash) {
+        boolean added = false;
+        for (int i = 0; i < ROWS; i++) {
+            int h = rowHash(hash, i);
+            int index = h & tableMask;
+            int shift = shift(h, i);
+            if (((table[index] >>> shift) & MAX_COUNT) < MAX_COUNT) {
+                table[index] += 1L << shift;
+                added = true;
+            }
+        }
+        if (added && ++additions == sampleSize) {
+            reset();
+        }
+    }
+
+    private void reset() {
+        for (int i = 0; i < table.length; i++) {
+            table[i] = (table[i] >>> 1) & HALF_MASK;
+        }
+        additions /= 2;
+    }
+
+    private static int rowHash(int hash, int row) {
+        return Hashing.spread(hash ^ SEEDS[row]);
+    }
+
+    /**
+     * Returns the bit offset of the counter for the row. Each row owns four of the sixteen counters of
+     * a {@code long}, so rows never share a counter.
+     */
+    private static int shift(int h, int row) {
+        return ((row << 2) + (h >>> 30)) << 2;
+    }
+}
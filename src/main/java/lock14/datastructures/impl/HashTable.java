@@ -1,16 +1,30 @@
 package lock14.datastructures.impl;
 
+import lock14.datastructures.Collection;
 import lock14.datastructures.Pair;
 import lock14.datastructures.Set;
 import java.util.*;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
 public class HashTable<K, V> extends AbstractMap<K, V> {
     private static final int DEFAULT_SIZE = 100;
     private static final double MAX_LOAD_FACTOR = 0.7;
+    // old buckets moved per write while an incremental resize is in progress
+    private static final int MIGRATION_STEP = 4;
+    // chains at least this long become tree bins, which turn back into chains at the lower bound
+    private static final int TREEIFY_THRESHOLD = 8;
+    private static final int UNTREEIFY_THRESHOLD = 6;
 
     private HashNode<K, V>[] hashTable;
+    private HashNode<K, V>[] oldHashTable;
+    private int migrationIndex;
+    private final boolean incrementalResize;
     private int size;
     private int modificationCount;
+    // null unless statistics are enabled, so the uninstrumented path only pays for a null check
+    private Recorder recorder;
 
     private Set<Pair<K, V>> entrySet = new AbstractSet<Pair<K, V>>() {
         @Override
@@ -19,7 +33,7 @@ public class HashTable<K, V> extends AbstractMap<K, V> {
                 return false;
             }
             Pair<?, ?> entry = (Pair<?, ?>) o;
-            return Objects.equals(entry, HashTable.this.get(entry.first()));
+            return Objects.equals(entry.second(), HashTable.this.get(entry.first()));
         }
 
         @Override
@@ -32,6 +46,11 @@ public class HashTable<K, V> extends AbstractMap<K, V> {
             return new EntryIterator();
         }
 
+        @Override
+        public Spliterator<Pair<K, V>> spliterator() {
+            return new HashNodeSpliterator<>(node -> node, Spliterator.DISTINCT);
+        }
+
         @Override
         public void remove(Object o) {
             if (o instanceof Pair) {
@@ -62,6 +81,11 @@ public class HashTable<K, V> extends AbstractMap<K, V> {
             return new KeyIterator();
         }
 
+        @Override
+        public Spliterator<K> spliterator() {
+            return new HashNodeSpliterator<>(node -> node.key, Spliterator.DISTINCT);
+        }
+
         @Override
         public void remove(Object key) {
             HashTable.this.remove(key);
@@ -73,13 +97,55 @@ public class HashTable<K, V> extends AbstractMap<K, V> {
         }
     };
 
+    private Collection<V> values = new AbstractCollection<V>() {
+        @Override
+        public boolean contains(Object o) {
+            return containsValue(o);
+        }
+
+        @Override
+        public void clear() {
+            HashTable.this.clear();
+        }
+
+        @Override
+        public Iterator<V> iterator() {
+            return new ValueIterator();
+        }
+
+        @Override
+        public Spliterator<V> spliterator() {
+            return new HashNodeSpliterator<>(node -> node.value, 0);
+        }
+
+        @Override
+        public int size() {
+            return HashTable.this.size();
+        }
+    };
+
     public HashTable() {
         this(DEFAULT_SIZE);
     }
 
-    @SuppressWarnings("unchecked")
     public HashTable(int size) {
+        this(size, false);
+    }
+
+    /**
+     * Creates a table with the given number of buckets. When incremental resizing is enabled, growing
+     * the table does not rehash every entry at once. Instead both the old and new bucket arrays are
+     * kept and each subsequent insertion or removal of an entry moves a bounded number of old buckets
+     * over, so no single operation pays for the whole rehash. Replacing the value of an existing key
+     * moves nothing, so it does not invalidate iterators.
+     */
+    @SuppressWarnings("unchecked")
+    public HashTable(int size, boolean incrementalResize) {
+        if (size <= 0) {
+            throw new IllegalArgumentException("Illegal size: " + size);
+        }
         hashTable = new HashNode[size];
+        this.incrementalResize = incrementalResize;
     }
 
     @Override
@@ -87,11 +153,13 @@ public class HashTable<K, V> extends AbstractMap<K, V> {
         if (value == null) {
             throw new NullPointerException();
         }
-        HashNode<K, V> entry = getEntry(key);
-        // key will not be null if we get to this line
+        // we want null pointer to be thrown if
+        // key is null
+        int hash = key.hashCode();
+        HashNode<K, V> entry = getEntry(hash, key);
         V result = null;
         if (entry == null) {
-            insertEntry(new HashNode<>(key, value));
+            insertEntry(new HashNode<>(hash, key, value));
         } else {
             result = entry.value;
             entry.value = value;
@@ -105,51 +173,116 @@ public class HashTable<K, V> extends AbstractMap<K, V> {
         return (entry == null) ? null : entry.value;
     }
 
+    @Override
+    public V getOrDefault(Object key, V defaultValue) {
+        HashNode<K, V> entry = getEntry(key);
+        return (entry == null) ? defaultValue : entry.value;
+    }
+
     @Override
     public boolean containsKey(Object key) {
-        return get(key) != null;
+        return getEntry(key) != null;
     }
 
     @Override
-    public boolean containsValue(Object value) {
+    public V putIfAbsent(K key, V value) {
         if (value == null) {
             throw new NullPointerException();
         }
-        for (HashNode<?, ?> entry : hashTable) {
-            while (entry != null) {
-                if (entry.value.equals(value)) {
-                    return true;
-                }
-                entry = entry.next;
-            }
+        int hash = key.hashCode();
+        HashNode<K, V> entry = getEntry(hash, key);
+        if (entry != null) {
+            return entry.value;
         }
-        return false;
+        insertEntry(new HashNode<>(hash, key, value));
+        return null;
+    }
+
+    @Override
+    public V computeIfAbsent(K key, Function<? super K, ? extends V> mappingFunction) {
+        Objects.requireNonNull(mappingFunction);
+        int hash = key.hashCode();
+        HashNode<K, V> entry = getEntry(hash, key);
+        if (entry != null) {
+            return entry.value;
+        }
+        int expectedModCount = modificationCount;
+        V value = mappingFunction.apply(key);
+        checkForModification(expectedModCount);
+        if (value != null) {
+            insertEntry(new HashNode<>(hash, key, value));
+        }
+        return value;
+    }
+
+    @Override
+    public V computeIfPresent(K key, BiFunction<? super K, ? super V, ? extends V> remappingFunction) {
+        Objects.requireNonNull(remappingFunction);
+        HashNode<K, V> entry = getEntry(key.hashCode(), key);
+        if (entry == null) {
+            return null;
+        }
+        int expectedModCount = modificationCount;
+        V value = remappingFunction.apply(key, entry.value);
+        checkForModification(expectedModCount);
+        update(entry, value);
+        return value;
+    }
+
+    @Override
+    public V compute(K key, BiFunction<? super K, ? super V, ? extends V> remappingFunction) {
+        Objects.requireNonNull(remappingFunction);
+        int hash = key.hashCode();
+        HashNode<K, V> entry = getEntry(hash, key);
+        int expectedModCount = modificationCount;
+        V value = remappingFunction.apply(key, entry == null ? null : entry.value);
+        checkForModification(expectedModCount);
+        if (entry != null) {
+            update(entry, value);
+        } else if (value != null) {
+            insertEntry(new HashNode<>(hash, key, value));
+        }
+        return value;
+    }
+
+    @Override
+    public V merge(K key, V value, BiFunction<? super V, ? super V, ? extends V> remappingFunction) {
+        Objects.requireNonNull(value);
+        Objects.requireNonNull(remappingFunction);
+        int hash = key.hashCode();
+        HashNode<K, V> entry = getEntry(hash, key);
+        if (entry == null) {
+            insertEntry(new HashNode<>(hash, key, value));
+            return value;
+        }
+        int expectedModCount = modificationCount;
+        V newValue = remappingFunction.apply(entry.value, value);
+        checkForModification(expectedModCount);
+        update(entry, newValue);
+        return newValue;
+    }
+
+    @Override
+    public boolean containsValue(Object value) {
+        if (value == null) {
+            throw new NullPointerException();
+        }
+        return containsValue(hashTable, value) || (oldHashTable != null && containsValue(oldHashTable, value));
     }
 
     public V remove(Object key) {
-        int hash = fixHash(key.hashCode());
-        HashNode prev = null;
-        HashNode<K, V> entry = hashTable[hash];
-        V result = null;
-        while (entry != null) {
-            if (entry.key.equals(key)) {
-                result = (V) entry.value;
-                if (prev == null) {
-                    hashTable[hash] = entry.next;
-                } else {
-                    prev.next = entry.next;
-                }
-                entry.next = null;
-            }
-            prev = entry;
-            entry = entry.next;
+        V result = removeEntry(key);
+        if (result != null) {
+            migrate();
         }
         return result;
     }
 
     public void clear() {
         Arrays.fill(hashTable, null);
+        oldHashTable = null;
         size = 0;
+        modificationCount++;
     }
 
     public boolean isEmpty() {
@@ -164,22 +297,136 @@ public class HashTable<K, V> extends AbstractMap<K, V> {
         return keySet;
     }
 
+    @Override
+    public Collection<V> values() {
+        return values;
+    }
+
+    /**
+     * Starts recording lookup probe counts and resize events, discarding anything recorded before.
+     */
+    public void enableStatistics() {
+        recorder = new Recorder();
+    }
+
+    public void disableStatistics() {
+        recorder = null;
+    }
+
+    public boolean isStatisticsEnabled() {
+        return recorder != null;
+    }
+
+    /**
+     * Returns a snapshot of the shape of this table. The chain lengths, load and modification count are
+     * always available, while lookup and resize figures only cover the time statistics have been
+     * enabled.
+     */
+    public Statistics statistics() {
+        int[] histogram = new int[1];
+        int treeBins = 0;
+        int entries = 0;
+        for (HashNode<K, V> bucket : hashTable) {
+            int length;
+            if (bucket instanceof TreeBin) {
+                length = ((TreeBin<K, V>) bucket).size;
+                treeBins++;
+            } else {
+                length = 0;
+                for (HashNode<K, V> entry = bucket; entry != null; entry = entry.next) {
+                    length++;
+                }
+            }
+            if (length >= histogram.length) {
+                histogram = Arrays.copyOf(histogram, length + 1);
+            }
+            histogram[length]++;
+            entries += length;
+        }
+        int pendingBuckets = oldHashTable == null ? 0 : oldHashTable.length - migrationIndex;
+        Recorder r = recorder == null ? new Recorder() : recorder;
+        return new Statistics(size, hashTable.length, histogram, treeBins, pendingBuckets, size - entries,
+                              r.lookups, r.probes, r.maxProbes, r.resizes, r.resizeNanos, modificationCount);
+    }
+
     public Set<Pair<K, V>> entrySet() {
         return entrySet;
     }
 
-    private int fixHash(int hash) {
-        return (hash & 0x7FFFFFFF) % hashTable.length;
+    private static int fixHash(int hash, int length) {
+        return (hash & 0x7FFFFFFF) % length;
+    }
+
+    private static boolean containsValue(HashNode<?, ?>[] table, Object value) {
+        for (HashNode<?, ?> bucket : table) {
+            HashNode<?, ?> entry = firstEntry(bucket);
+            while (entry != null) {
+                if (entry.value.equals(value)) {
+                    return true;
+                }
+                entry = entry.next;
+            }
+        }
+        return false;
     }
 
-    @SuppressWarnings("unchecked")
     private HashNode<K, V> getEntry(Object key) {
         // we want null pointer to be thrown if
         // key is null
-        int hash = fixHash(key.hashCode());
-        HashNode<K, V> entry = hashTable[hash];
+        return getEntry(key.hashCode(), key);
+    }
+
+    private HashNode<K, V> getEntry(int hash, Object key) {
+        HashNode<K, V> bucket = hashTable[fixHash(hash, hashTable.length)];
+        HashNode<K, V> entry = findEntry(bucket, hash, key);
+        if (entry == null && oldHashTable != null) {
+            // buckets below the migration index have already been emptied
+            HashNode<K, V> oldBucket = oldHashTable[fixHash(hash, oldHashTable.length)];
+            entry = findEntry(oldBucket, hash, key);
+            if (recorder != null) {
+                recorder.recordLookup(probes(bucket, null) + probes(oldBucket, entry));
+            }
+        } else if (recorder != null) {
+            recorder.recordLookup(probes(bucket, entry));
+        }
+        return entry;
+    }
+
+    /**
+     * Returns the number of nodes a lookup in the bucket looked at before it found the entry, or gave
+     * up if the entry is null.
+     */
+    private static int probes(HashNode<?, ?> bucket, HashNode<?, ?> entry) {
+        int probes = 0;
+        if (bucket instanceof TreeBin) {
+            TreeBin<?, ?> bin = (TreeBin<?, ?>) bucket;
+            if (entry == null) {
+                return bin.root == null ? 0 : bin.root.height;
+            }
+            for (TreeNode<?, ?> node = (TreeNode<?, ?>) entry; node != null; node = node.parent) {
+                probes++;
+            }
+            return probes;
+        }
+        for (HashNode<?, ?> node = bucket; node != null; node = node.next) {
+            probes++;
+            if (node == entry) {
+                break;
+            }
+        }
+        return probes;
+    }
+
+    private static <K, V> HashNode<K, V> firstEntry(HashNode<K, V> bucket) {
+        return bucket instanceof TreeBin ? ((TreeBin<K, V>) bucket).first : bucket;
+    }
+
+    private static <K, V> HashNode<K, V> findEntry(HashNode<K, V> entry, int hash, Object key) {
+        if (entry instanceof TreeBin) {
+            return ((TreeBin<K, V>) entry).find(hash, key);
+        }
         while (entry != null) {
-            if (entry.key.equals(key)) {
+            if (entry.hash == hash && entry.key.equals(key)) {
                 return entry;
             }
             entry = entry.next;
@@ -187,50 +434,319 @@ public class HashTable<K, V> extends AbstractMap<K, V> {
         return null;
     }
 
+    /**
+     * Stores the result of a remapping function in an existing entry, removing the entry if the result
+     * is null.
+     */
+    private void update(HashNode<K, V> entry, V value) {
+        if (value != null) {
+            entry.value = value;
+        } else {
+            removeEntry(entry.key);
+            migrate();
+        }
+    }
+
+    private void checkForModification(int expectedModCount) {
+        // a function that changed the table may have moved or removed the entry it was given
+        if (modificationCount != expectedModCount) {
+            throw new ConcurrentModificationException();
+        }
+    }
+
     private void insertEntry(HashNode<K, V> entry) {
+        migrate();
         if (load_factor() > MAX_LOAD_FACTOR) {
             resize();
         }
-        int hash = fixHash(entry.key.hashCode());
-        HashNode<K, V> current = hashTable[hash];
-        if (current == null) {
-            hashTable[hash] = entry;
-        } else {
-            while (current.next != null) {
-                current = current.next;
+        link(hashTable, entry);
+        size++;
+        modificationCount++;
+    }
+
+    /**
+     * Adds a node whose key is known to be absent to its bucket, turning the bucket into a tree bin
+     * once its chain gets too long.
+     */
+    private static <K, V> void link(HashNode<K, V>[] table, HashNode<K, V> entry) {
+        int index = fixHash(entry.hash, table.length);
+        HashNode<K, V> first = table[index];
+        if (first instanceof TreeBin) {
+            ((TreeBin<K, V>) first).insert(entry);
+            return;
+        }
+        // the key is known to be absent, so there is no need to walk to the end of the chain
+        entry.next = first;
+        table[index] = entry;
+        if (first != null && chainLength(entry) >= TREEIFY_THRESHOLD) {
+            table[index] = TreeBin.treeify(entry);
+        }
+    }
+
+    private static int chainLength(HashNode<?, ?> entry) {
+        int length = 0;
+        while (entry != null && length < TREEIFY_THRESHOLD) {
+            length++;
+            entry = entry.next;
+        }
+        return length;
+    }
+
+    private V removeEntry(Object key) {
+        int hash = key.hashCode();
+        V result = removeEntry(hashTable, hash, key);
+        if (result == null && oldHashTable != null) {
+            result = removeEntry(oldHashTable, hash, key);
+        }
+        return result;
+    }
+
+    private V removeEntry(HashNode<K, V>[] table, int hash, Object key) {
+        int index = fixHash(hash, table.length);
+        HashNode<K, V> prev = null;
+        HashNode<K, V> entry = table[index];
+        if (entry instanceof TreeBin) {
+            TreeBin<K, V> bin = (TreeBin<K, V>) entry;
+            TreeNode<K, V> node = bin.find(hash, key);
+            if (node == null) {
+                return null;
             }
-            current.next = entry;
+            bin.remove(node);
+            if (bin.size <= UNTREEIFY_THRESHOLD) {
+                table[index] = bin.first;
+            }
+            size--;
+            modificationCount++;
+            return node.value;
         }
-        size++;
+        while (entry != null) {
+            if (entry.hash == hash && entry.key.equals(key)) {
+                if (prev == null) {
+                    table[index] = entry.next;
+                } else {
+                    prev.next = entry.next;
+                }
+                entry.next = null;
+                size--;
+                modificationCount++;
+                return entry.value;
+            }
+            prev = entry;
+            entry = entry.next;
+        }
+        return null;
     }
 
-    @SuppressWarnings({"unchecked", "rawtypes"})
+    @SuppressWarnings("unchecked")
     private void resize() {
-        HashNode[] newHashTable = new HashNode[hashTable.length + (hashTable.length / 2)];
-        HashNode[] oldHashTable = hashTable;
+        long start = recorder == null ? 0 : System.nanoTime();
+        if (oldHashTable != null) {
+            // the table outgrew itself before the last migration finished
+            migrate(oldHashTable.length);
+        }
+        HashNode<K, V>[] newHashTable = new HashNode[hashTable.length + (hashTable.length / 2) + 1];
+        oldHashTable = hashTable;
         hashTable = newHashTable;
-        for (HashNode<K, V> current : oldHashTable) {
-            while (current != null) {
-                put(current.key, current.value);
-                current = current.next;
+        migrationIndex = 0;
+        if (!incrementalResize) {
+            migrate(oldHashTable.length);
+        }
+        if (recorder != null) {
+            recorder.resizes++;
+            recorder.resizeNanos += System.nanoTime() - start;
+        }
+    }
+
+    private void migrate() {
+        if (oldHashTable != null) {
+            long start = recorder == null ? 0 : System.nanoTime();
+            migrate(MIGRATION_STEP);
+            if (recorder != null) {
+                recorder.resizeNanos += System.nanoTime() - start;
             }
         }
     }
 
+    /**
+     * Moves up to the given number of buckets from the old table into the current one by relinking
+     * their nodes, which neither allocates nor calls {@code hashCode} or {@code equals}.
+     */
+    private void migrate(int buckets) {
+        int end = Math.min(migrationIndex + buckets, oldHashTable.length);
+        // nodes change buckets, so any iterator in progress could miss or repeat them
+        modificationCount++;
+        for (; migrationIndex < end; migrationIndex++) {
+            HashNode<K, V> entry = firstEntry(oldHashTable[migrationIndex]);
+            oldHashTable[migrationIndex] = null;
+            while (entry != null) {
+                HashNode<K, V> next = entry.next;
+                link(hashTable, entry);
+                entry = next;
+            }
+        }
+        if (migrationIndex == oldHashTable.length) {
+            oldHashTable = null;
+        }
+    }
+
     private double load_factor() {
         return ((double) size) / ((double) hashTable.length);
     }
 
-    private static final class HashNode<K, V> extends AbstractPair<K, V> {
+    /**
+     * A snapshot of the shape and recorded activity of a {@link HashTable}.
+     */
+    public static final class Statistics {
+        private final int size;
+        private final int bucketCount;
+        private final int[] chainLengthHistogram;
+        private final int treeBins;
+        private final int pendingBuckets;
+        private final int pendingEntries;
+        private final long lookups;
+        private final long probes;
+        private final int maxProbes;
+        private final long resizes;
+        private final long resizeNanos;
+        private final int modificationCount;
+
+        private Statistics(int size, int bucketCount, int[] chainLengthHistogram, int treeBins, int pendingBuckets,
+                           int pendingEntries, long lookups, long probes, int maxProbes, long resizes,
+                           long resizeNanos, int modificationCount) {
+            this.size = size;
+            this.bucketCount = bucketCount;
+            this.chainLengthHistogram = chainLengthHistogram;
+            this.treeBins = treeBins;
+            this.pendingBuckets = pendingBuckets;
+            this.pendingEntries = pendingEntries;
+            this.lookups = lookups;
+            this.probes = probes;
+            this.maxProbes = maxProbes;
+            this.resizes = resizes;
+            this.resizeNanos = resizeNanos;
+            this.modificationCount = modificationCount;
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public int bucketCount() {
+            return bucketCount;
+        }
+
+        public double loadFactor() {
+            return (double) size / bucketCount;
+        }
+
+        /**
+         * Returns the load factor above which the table grows.
+         */
+        public double maxLoadFactor() {
+            return MAX_LOAD_FACTOR;
+        }
+
+        /**
+         * Returns how many buckets hold each number of entries: element {@code i} is the number of buckets
+         * with exactly {@code i} entries. Like {@link #bucketCount()} it only covers the current buckets;
+         * those of a resize still in progress are reported by {@link #pendingBuckets()}.
+         */
+        public int[] chainLengthHistogram() {
+            return chainLengthHistogram.clone();
+        }
+
+        public int maxChainLength() {
+            return chainLengthHistogram.length - 1;
+        }
+
+        /**
+         * Returns the number of buckets whose chains were long enough to be turned into trees.
+         */
+        public int treeBins() {
+            return treeBins;
+        }
+
+        /**
+         * Returns the number of buckets of the old table that an incremental resize still has to move, or
+         * {@code 0} if no resize is in progress.
+         */
+        public int pendingBuckets() {
+            return pendingBuckets;
+        }
+
+        /**
+         * Returns the number of entries still in the buckets of the old table.
+         */
+        public int pendingEntries() {
+            return pendingEntries;
+        }
+
+        public long lookups() {
+            return lookups;
+        }
+
+        /**
+         * Returns the average number of nodes a lookup looked at, or {@code 0} if there were no lookups.
+         */
+        public double averageProbes() {
+            return lookups == 0 ? 0 : (double) probes / lookups;
+        }
+
+        public int maxProbes() {
+            return maxProbes;
+        }
+
+        public long resizes() {
+            return resizes;
+        }
+
+        /**
+         * Returns the total time spent growing the table, including incremental migration steps.
+         */
+        public long resizeNanos() {
+            return resizeNanos;
+        }
+
+        public int modificationCount() {
+            return modificationCount;
+        }
+
+        @Override
+        public String toString() {
+            return "Statistics(size=" + size + ", buckets=" + bucketCount + ", loadFactor=" + loadFactor()
+                    + ", maxChainLength=" + maxChainLength() + ", treeBins=" + treeBins + ", pendingBuckets="
+                    + pendingBuckets + ", pendingEntries=" + pendingEntries + ", lookups=" + lookups
+                    + ", averageProbes=" + averageProbes() + ", maxProbes=" + maxProbes + ", resizes=" + resizes
+                    + ", resizeNanos=" + resizeNanos + ", modificationCount=" + modificationCount + ")";
+        }
+    }
+
+    private static final class Recorder {
+        long lookups;
+        long probes;
+        int maxProbes;
+        long resizes;
+        long resizeNanos;
+
+        void recordLookup(int probeCount) {
+            lookups++;
+            probes += probeCount;
+            maxProbes = Math.max(maxProbes, probeCount);
+        }
+    }
+
+    private static class HashNode<K, V> extends AbstractPair<K, V> {
+        final int hash;
         K key;
         V value;
         HashNode<K, V> next;
 
-        HashNode(K key, V value) {
-            this(key, value, null);
+        HashNode(int hash, K key, V value) {
+            this(hash, key, value, null);
         }
 
-        HashNode(K key, V value, HashNode<K, V> next) {
+        HashNode(int hash, K key, V value, HashNode<K, V> next) {
+            this.hash = hash;
             this.key = key;
             this.value = value;
             this.next = next;
@@ -248,6 +764,258 @@ public class HashTable<K, V> extends AbstractMap<K, V> {
 
     }
 
+    /**
+     * A node of a tree bin. Besides its place in the tree, each node stays on a doubly linked list
+     * through {@code next} and {@code prev} so that the bin can still be walked like a chain.
+     */
+    private static final class TreeNode<K, V> extends HashNode<K, V> {
+        TreeNode<K, V> parent;
+        TreeNode<K, V> left;
+        TreeNode<K, V> right;
+        TreeNode<K, V> prev;
+        int height;
+
+        TreeNode(int hash, K key, V value) {
+            super(hash, key, value);
+            this.height = 1;
+        }
+    }
+
+    /**
+     * Takes the place of a long chain in a bucket. The nodes form an AVL tree ordered by hash, then by
+     * {@link Comparable} when the keys are mutually comparable, and otherwise by an arbitrary but fixed
+     * tie breaking order, which keeps lookups logarithmic however badly the keys collide.
+     */
+    private static final class TreeBin<K, V> extends HashNode<K, V> {
+        TreeNode<K, V> root;
+        TreeNode<K, V> first;
+        int size;
+
+        TreeBin() {
+            super(0, null, null);
+        }
+
+        static <K, V> TreeBin<K, V> treeify(HashNode<K, V> chain) {
+            TreeBin<K, V> bin = new TreeBin<>();
+            while (chain != null) {
+                HashNode<K, V> next = chain.next;
+                bin.insert(chain);
+                chain = next;
+            }
+            return bin;
+        }
+
+        TreeNode<K, V> find(int hash, Object key) {
+            return find(root, hash, key, comparableClassFor(key));
+        }
+
+        void insert(HashNode<K, V> entry) {
+            TreeNode<K, V> node = toTreeNode(entry);
+            node.next = first;
+            if (first != null) {
+                first.prev = node;
+            }
+            first = node;
+            size++;
+            if (root == null) {
+                root = node;
+                return;
+            }
+            Class<?> keyClass = comparableClassFor(node.key);
+            TreeNode<K, V> parent = root;
+            while (true) {
+                boolean goLeft = compare(node, parent, keyClass) < 0;
+                TreeNode<K, V> child = goLeft ? parent.left : parent.right;
+                if (child == null) {
+                    if (goLeft) {
+                        parent.left = node;
+                    } else {
+                        parent.right = node;
+                    }
+                    node.parent = parent;
+                    break;
+                }
+                parent = child;
+            }
+            rebalance(parent);
+        }
+
+        void remove(TreeNode<K, V> node) {
+            if (node.prev == null) {
+                first = (TreeNode<K, V>) node.next;
+            } else {
+                node.prev.next = node.next;
+            }
+            if (node.next != null) {
+                ((TreeNode<K, V>) node.next).prev = node.prev;
+            }
+            node.next = null;
+            node.prev = null;
+            size--;
+
+            TreeNode<K, V> rebalanceFrom;
+            if (node.left != null && node.right != null) {
+                // move the successor into the removed node's place
+                TreeNode<K, V> successor = node.right;
+                while (successor.left != null) {
+                    successor = successor.left;
+                }
+                if (successor.parent != node) {
+                    rebalanceFrom = successor.parent;
+                    rebalanceFrom.left = successor.right;
+                    if (successor.right != null) {
+                        successor.right.parent = rebalanceFrom;
+                    }
+                    successor.right = node.right;
+                    node.right.parent = successor;
+                } else {
+                    rebalanceFrom = successor;
+                }
+                successor.left = node.left;
+                node.left.parent = successor;
+                replace(node, successor);
+                successor.height = node.height;
+            } else {
+                TreeNode<K, V> child = node.left != null ? node.left : node.right;
+                rebalanceFrom = node.parent;
+                replace(node, child);
+            }
+            node.parent = null;
+            node.left = null;
+            node.right = null;
+            rebalance(rebalanceFrom);
+        }
+
+        private static <K, V> TreeNode<K, V> toTreeNode(HashNode<K, V> entry) {
+            if (entry instanceof TreeNode) {
+                TreeNode<K, V> node = (TreeNode<K, V>) entry;
+                node.parent = null;
+                node.left = null;
+                node.right = null;
+                node.prev = null;
+                node.height = 1;
+                return node;
+            }
+            return new TreeNode<>(entry.hash, entry.key, entry.value);
+        }
+
+        private static <K, V> TreeNode<K, V> find(TreeNode<K, V> node, int hash, Object key, Class<?> keyClass) {
+            while (node != null) {
+                int dir;
+                if (hash != node.hash) {
+                    dir = hash < node.hash ? -1 : 1;
+                } else if (node.key.equals(key)) {
+                    return node;
+                } else if ((dir = compareComparables(keyClass, key, node.key)) == 0) {
+                    // the tie breaking order cannot be recomputed for a different object, so look
+                    // on both sides
+                    TreeNode<K, V> found = find(node.right, hash, key, keyClass);
+                    if (found != null) {
+                        return found;
+                    }
+                    dir = -1;
+                }
+                node = dir < 0 ? node.left : node.right;
+            }
+            return null;
+        }
+
+        private static int compare(TreeNode<?, ?> a, TreeNode<?, ?> b, Class<?> keyClass) {
+            if (a.hash != b.hash) {
+                return a.hash < b.hash ? -1 : 1;
+            }
+            int dir = compareComparables(keyClass, a.key, b.key);
+            if (dir != 0) {
+                return dir;
+            }
+            dir = a.key.getClass().getName().compareTo(b.key.getClass().getName());
+            if (dir != 0) {
+                return dir;
+            }
+            return System.identityHashCode(a.key) <= System.identityHashCode(b.key) ? -1 : 1;
+        }
+
+        private static Class<?> comparableClassFor(Object key) {
+            return key instanceof Comparable ? key.getClass() : null;
+        }
+
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        private static int compareComparables(Class<?> keyClass, Object key, Object other) {
+            if (keyClass == null || other == null || other.getClass() != keyClass) {
+                return 0;
+            }
+            return ((Comparable) key).compareTo(other);
+        }
+
+        private void replace(TreeNode<K, V> node, TreeNode<K, V> replacement) {
+            if (replacement != null) {
+                replacement.parent = node.parent;
+            }
+            if (node.parent == null) {
+                root = replacement;
+            } else if (node.parent.left == node) {
+                node.parent.left = replacement;
+            } else {
+                node.parent.right = replacement;
+            }
+        }
+
+        private void rebalance(TreeNode<K, V> node) {
+            while (node != null) {
+                updateHeight(node);
+                int balance = height(node.left) - height(node.right);
+                if (balance > 1) {
+                    if (height(node.left.left) < height(node.left.right)) {
+                        rotateLeft(node.left);
+                    }
+                    node = rotateRight(node);
+                } else if (balance < -1) {
+                    if (height(node.right.right) < height(node.right.left)) {
+                        rotateRight(node.right);
+                    }
+                    node = rotateLeft(node);
+                }
+                node = node.parent;
+            }
+        }
+
+        private TreeNode<K, V> rotateLeft(TreeNode<K, V> node) {
+            TreeNode<K, V> right = node.right;
+            node.right = right.left;
+            if (right.left != null) {
+                right.left.parent = node;
+            }
+            replace(node, right);
+            right.left = node;
+            node.parent = right;
+            updateHeight(node);
+            updateHeight(right);
+            return right;
+        }
+
+        private TreeNode<K, V> rotateRight(TreeNode<K, V> node) {
+            TreeNode<K, V> left = node.left;
+            node.left = left.right;
+            if (left.right != null) {
+                left.right.parent = node;
+            }
+            replace(node, left);
+            left.right = node;
+            node.parent = left;
+            updateHeight(node);
+            updateHeight(left);
+            return left;
+        }
+
+        private static int height(TreeNode<?, ?> node) {
+            return node == null ? 0 : node.height;
+        }
+
+        private static void updateHeight(TreeNode<?, ?> node) {
+            node.height = Math.max(height(node.left), height(node.right)) + 1;
+        }
+    }
+
     private class KeyIterator extends HashNodeIterator implements Iterator<K> {
         @Override
         public K next() {
@@ -269,6 +1037,11 @@ public class HashTable<K, V> extends AbstractMap<K, V> {
         }
     }
 
+    /**
+     * Walks the buckets of the current table followed by those of the old table, if a resize is being
+     * migrated. Removing through the iterator never migrates buckets, so no node can move between the
+     * two tables underneath it.
+     */
     private abstract class HashNodeIterator {
         HashNode<K, V> current;
         HashNode<K, V> next;
@@ -301,18 +1074,136 @@ public class HashTable<K, V> extends AbstractMap<K, V> {
             if (current == null) {
                 throw new IllegalStateException();
             }
-            HashTable.this.remove(current.key);
+            removeEntry(current.key);
+            current = null;
             expectedModCount = modificationCount;
         }
 
         private HashNode<K, V> getNextNode(HashNode<K, V> nextNode) {
-            if (nextNode == null) {
-                while (index < hashTable.length && (nextNode = hashTable[index++]) == null) {
-                }
+            while (nextNode == null && index < bucketCount()) {
+                nextNode = bucket(index++);
             }
             return nextNode;
         }
 
+        private int bucketCount() {
+            return hashTable.length + (oldHashTable == null ? 0 : oldHashTable.length);
+        }
+
+        private HashNode<K, V> bucket(int i) {
+            return firstEntry(i < hashTable.length ? hashTable[i] : oldHashTable[i - hashTable.length]);
+        }
+
+        private void checkForModification() {
+            if (expectedModCount != modificationCount) {
+                throw new ConcurrentModificationException();
+            }
+        }
+    }
+
+    /**
+     * Splits the range of buckets in half, counting the buckets of the current table followed by those
+     * of the old table like {@link HashNodeIterator}. The tables are bound when the spliterator is
+     * first used.
+     */
+    private class HashNodeSpliterator<T> implements Spliterator<T> {
+        final Function<HashNode<K, V>, T> mapper;
+        final int characteristics;
+        HashNode<K, V>[] table;
+        HashNode<K, V>[] oldTable;
+        HashNode<K, V> current;
+        int index;
+        int fence;
+        int estimate;
+        int expectedModCount;
+
+        HashNodeSpliterator(Function<HashNode<K, V>, T> mapper, int characteristics) {
+            this.mapper = mapper;
+            this.characteristics = characteristics;
+            this.fence = -1;
+        }
+
+        HashNodeSpliterator(HashNodeSpliterator<T> parent, int index, int fence, int estimate) {
+            this.mapper = parent.mapper;
+            this.characteristics = parent.characteristics;
+            this.table = parent.table;
+            this.oldTable = parent.oldTable;
+            this.index = index;
+            this.fence = fence;
+            this.estimate = estimate;
+            this.expectedModCount = parent.expectedModCount;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super T> action) {
+            int hi = getFence();
+            while (current != null || index < hi) {
+                if (current == null) {
+                    current = bucket(index++);
+                } else {
+                    HashNode<K, V> node = current;
+                    current = current.next;
+                    action.accept(mapper.apply(node));
+                    checkForModification();
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public void forEachRemaining(Consumer<? super T> action) {
+            int hi = getFence();
+            while (current != null || index < hi) {
+                if (current == null) {
+                    current = bucket(index++);
+                } else {
+                    action.accept(mapper.apply(current));
+                    current = current.next;
+                }
+            }
+            checkForModification();
+        }
+
+        @Override
+        public Spliterator<T> trySplit() {
+            int hi = getFence();
+            int mid = (index + hi) >>> 1;
+            if (index >= mid || current != null) {
+                return null;
+            }
+            Spliterator<T> prefix = new HashNodeSpliterator<>(this, index, mid, estimate >>>= 1);
+            index = mid;
+            return prefix;
+        }
+
+        @Override
+        public long estimateSize() {
+            getFence();
+            return estimate;
+        }
+
+        @Override
+        public int characteristics() {
+            // only the unsplit spliterator knows its exact size
+            return characteristics | (table == null || estimate == size ? Spliterator.SIZED : 0);
+        }
+
+        private int getFence() {
+            if (fence < 0) {
+                table = hashTable;
+                oldTable = oldHashTable;
+                fence = table.length + (oldTable == null ? 0 : oldTable.length);
+                estimate = size;
+                expectedModCount = modificationCount;
+            }
+            return fence;
+        }
+
+        private HashNode<K, V> bucket(int i) {
+            return firstEntry(i < table.length ? table[i] : oldTable[i - table.length]);
+        }
+
         private void checkForModification() {
             if (expectedModCount != modificationCount) {
                 throw new ConcurrentModificationException();
@@ -0,0 +1,48 @@
+package lock14.datastructures.impl;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Hash helpers shared by the open addressing tables, which all use power of two table sizes and
+ * therefore rely on the low bits of a hash being well distributed.
+ */
+final class Hashing {
+    static final int MAX_TABLE_SIZE = 1 << 30;
+    private static final int GOLDEN_RATIO = 0x9E3779B9;
+
+    // make utility class non-instantiable
+    private Hashing() {}
+
+    static int spread(int hash) {
+        int h = hash * GOLDEN_RATIO;
+        return h ^ (h >>> 16);
+    }
+
+    static int spread(long hash) {
+        return spread((int) (hash ^ (hash >>> 32)));
+    }
+
+    /**
+     * Hashes the remaining bytes of the buffer without moving its position.
+     */
+    static int spread(ByteBuffer bytes) {
+        int h = 1;
+        for (int i = bytes.position(); i < bytes.limit(); i++) {
+            h = 31 * h + bytes.get(i);
+        }
+        return spread(h);
+    }
+
+    /**
+     * Returns the smallest power of two table size that can hold the given number of entries without
+     * exceeding the given load factor.
+     */
+    static int tableSizeFor(int expectedSize, double loadFactor) {
+        long needed = (long) Math.ceil(Math.max(expectedSize, 1) / loadFactor) + 1;
+        if (needed >= MAX_TABLE_SIZE) {
+            return MAX_TABLE_SIZE;
+        }
+        int n = Integer.highestOneBit((int) needed);
+        return n < needed ? n << 1 : n;
+    }
+}
@@ -0,0 +1,290 @@
+package lock14.datastructures.impl;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.ConcurrentModificationException;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import lock14.datastructures.AddressableQueue;
+import lock14.datastructures.Collection;
+
+/**
+ * A binary heap whose handles record the slot of their element, so that changing the priority of an
+ * element, removing it and checking whether it is still queued take O(log n), O(log n) and O(1)
+ * time rather than a scan of the heap.
+ * <p>
+ * The heap keeps the least element, by the comparator, at the front. The no argument constructor
+ * orders the elements by their natural order, and fails with a {@link ClassCastException} when an
+ * element is not {@link Comparable}.
+ */
+public class IndexedHeap<E> extends AbstractQueue<E> implements AddressableQueue<E> {
+    public static final int DEFAULT_CAPACITY = 10;
+    private final Comparator<? super E> comparator;
+    private Node<E>[] heap;
+    private int size;
+    private int modificationCount;
+
+    @SuppressWarnings("unchecked")
+    public IndexedHeap() {
+        this((Comparator<? super E>) Comparator.naturalOrder());
+    }
+
+    public IndexedHeap(Comparator<? super E> comparator) {
+        this(DEFAULT_CAPACITY, comparator);
+    }
+
+    @SuppressWarnings("unchecked")
+    public IndexedHeap(int capacity, Comparator<? super E> comparator) {
+        this.comparator = comparator;
+        heap = (Node<E>[]) new Node[Math.max(capacity, 1)];
+        size = 0;
+        modificationCount = 0;
+    }
+
+    public IndexedHeap(Collection<E> c) {
+        this();
+        if (c != null) {
+            addAll(c);
+        }
+    }
+
+    @Override
+    public void clear() {
+        for (int i = 0; i < size; i++) {
+            heap[i].index = -1;
+            heap[i] = null;
+        }
+        size = 0;
+        modificationCount++;
+    }
+
+    @Override
+    public boolean contains(Handle<E> handle) {
+        if (!(handle instanceof Node)) {
+            return false;
+        }
+        int index = ((Node<E>) handle).index;
+        return index >= 0 && index < size && heap[index] == handle;
+    }
+
+    @Override
+    public void decreaseKey(Handle<E> handle, E element) {
+        Node<E> node = node(handle);
+        if (comparator.compare(element, node.element) > 0) {
+            throw new IllegalArgumentException("New element is greater than the current one");
+        }
+        node.element = element;
+        siftUp(node.index);
+        modificationCount++;
+    }
+
+    @Override
+    public E dequeue() {
+        if (size == 0) {
+            throw new NoSuchElementException();
+        }
+        E e = heap[0].element;
+        delete(0);
+        return e;
+    }
+
+    @Override
+    public void increaseKey(Handle<E> handle, E element) {
+        Node<E> node = node(handle);
+        if (comparator.compare(element, node.element) < 0) {
+            throw new IllegalArgumentException("New element is less than the current one");
+        }
+        node.element = element;
+        siftDown(node.index);
+        modificationCount++;
+    }
+
+    @Override
+    public Handle<E> insert(E element) {
+        if (size == heap.length) {
+            heap = Arrays.copyOf(heap, heap.length + (heap.length >> 1) + 1);
+        }
+        Node<E> node = new Node<>(element, size);
+        heap[size++] = node;
+        modificationCount++;
+        siftUp(node.index);
+        return node;
+    }
+
+    @Override
+    public Iterator<E> iterator() {
+        return new IndexedHeapIterator();
+    }
+
+    @Override
+    public E peek() {
+        if (size == 0) {
+            throw new NoSuchElementException();
+        }
+        return heap[0].element;
+    }
+
+    @Override
+    public void remove(Handle<E> handle) {
+        delete(node(handle).index);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    private Node<E> node(Handle<E> handle) {
+        if (!contains(handle)) {
+            throw new IllegalArgumentException("Handle does not belong to an element of this heap");
+        }
+        return (Node<E>) handle;
+    }
+
+    /**
+     * Removes the node at the index by moving the last node into its place, and returns the last node
+     * if it had to be sifted up to a slot before the index, or null otherwise.
+     */
+    private Node<E> delete(int index) {
+        Node<E> moved = null;
+        heap[index].index = -1;
+        size--;
+        if (index < size) {
+            heap[index] = heap[size];
+            heap[index].index = index;
+            heap[size] = null;
+            if (index > 0 && less(index, parent(index))) {
+                moved = heap[index];
+                siftUp(index);
+            } else {
+                siftDown(index);
+            }
+        } else {
+            heap[index] = null;
+        }
+        modificationCount++;
+        return moved;
+    }
+
+    private void siftUp(int child) {
+        Node<E> node = heap[child];
+        while (child > 0) {
+            int parent = parent(child);
+            if (comparator.compare(node.element, heap[parent].element) >= 0) {
+                break;
+            }
+            place(heap[parent], child);
+            child = parent;
+        }
+        place(node, child);
+    }
+
+    private void siftDown(int parent) {
+        Node<E> node = heap[parent];
+        int half = size >>> 1;
+        while (parent < half) {
+            int target = 2 * parent + 1;
+            if (target + 1 < size && less(target + 1, target)) {
+                target++;
+            }
+            if (comparator.compare(node.element, heap[target].element) <= 0) {
+                break;
+            }
+            place(heap[target], parent);
+            parent = target;
+        }
+        place(node, parent);
+    }
+
+    private void place(Node<E> node, int index) {
+        heap[index] = node;
+        node.index = index;
+    }
+
+    private boolean less(int index1, int index2) {
+        return comparator.compare(heap[index1].element, heap[index2].element) < 0;
+    }
+
+    private static int parent(int index) {
+        return (index - 1) >> 1;
+    }
+
+    private static final class Node<E> implements Handle<E> {
+        E element;
+        int index;
+
+        Node(E element, int index) {
+            this.element = element;
+            this.index = index;
+        }
+
+        @Override
+        public E element() {
+            return element;
+        }
+    }
+
+    /**
+     * Walks the array in order. Removing an element can sift the last node up past the cursor, so such
+     * nodes are set aside and visited once the array has been walked.
+     */
+    private class IndexedHeapIterator implements Iterator<E> {
+        Node<E> lastReturned;
+        boolean lastReturnedFromArray;
+        int index;
+        // nodes moved behind the cursor that still have to be visited
+        Deque<Node<E>> forgetMeNot;
+        int expectedModCount;
+
+        IndexedHeapIterator() {
+            index = 0;
+            lastReturned = null;
+            lastReturnedFromArray = false;
+            forgetMeNot = new ArrayDeque<>();
+            expectedModCount = modificationCount;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return index < size || !forgetMeNot.isEmpty();
+        }
+
+        @Override
+        public E next() {
+            checkForModification();
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            lastReturnedFromArray = index < size;
+            lastReturned = lastReturnedFromArray ? heap[index++] : forgetMeNot.poll();
+            return lastReturned.element;
+        }
+
+        @Override
+        public void remove() {
+            checkForModification();
+            if (lastReturned == null) {
+                throw new IllegalStateException();
+            }
+            Node<E> moved = delete(lastReturned.index);
+            // once the array has been walked, every node the removal moves has been visited already
+            if (lastReturnedFromArray) {
+                if (moved == null) {
+                    index--;
+                } else {
+                    forgetMeNot.add(moved);
+                }
+            }
+            lastReturned = null;
+            expectedModCount = modificationCount;
+        }
+
+        private void checkForModification() {
+            if (expectedModCount != modificationCount) {
+                throw new ConcurrentModificationException();
+            }
+        }
+    }
+}
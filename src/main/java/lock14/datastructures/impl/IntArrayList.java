@@ -0,0 +1,343 @@
+package lock14.datastructures.impl;
+
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.ListIterator;
+import java.util.NoSuchElementException;
+import java.util.function.IntConsumer;
+import lock14.datastructures.RandomAccessList;
+
+/**
+ * A growable list of {@code int} values backed by a primitive array, so no value is ever boxed.
+ * <p>
+ * Every operation mirrors its counterpart on {@link ArrayList}; {@link #asList()} adapts the list
+ * to the boxed {@link RandomAccessList} interface when it has to be passed to code expecting one.
+ */
+public class IntArrayList {
+    public static final int DEFAULT_CAPACITY = 10;
+    private static final int[] EMPTY = {};
+
+    private int[] data;
+    private int size;
+    private int modificationCount;
+
+    public IntArrayList() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public IntArrayList(int capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("Illegal capacity: " + capacity);
+        }
+        data = capacity == 0 ? EMPTY : new int[capacity];
+    }
+
+    public IntArrayList(int[] values) {
+        data = values.clone();
+        size = values.length;
+    }
+
+    public int getInt(int index) {
+        check(index);
+        return data[index];
+    }
+
+    public void setInt(int index, int value) {
+        check(index);
+        data[index] = value;
+    }
+
+    public void addInt(int value) {
+        if (size == data.length) {
+            ensureCapacity(size + 1);
+        }
+        data[size++] = value;
+        modificationCount++;
+    }
+
+    public void addInt(int index, int value) {
+        if (index != size) {
+            check(index);
+        }
+        ensureCapacity(size + 1);
+        System.arraycopy(data, index, data, index + 1, size - index);
+        data[index] = value;
+        size++;
+        modificationCount++;
+    }
+
+    public void addAll(int[] values) {
+        addAll(size, values);
+    }
+
+    /**
+     * Inserts all of the values at the index, growing the capacity at most once.
+     */
+    public void addAll(int index, int[] values) {
+        if (index != size) {
+            check(index);
+        }
+        if (values.length == 0) {
+            return;
+        }
+        ensureCapacity(size + values.length);
+        System.arraycopy(data, index, data, index + values.length, size - index);
+        System.arraycopy(values, 0, data, index, values.length);
+        size += values.length;
+        modificationCount++;
+    }
+
+    /**
+     * Removes the value at the index.
+     *
+     * @return the value that was removed
+     */
+    public int removeInt(int index) {
+        check(index);
+        int result = data[index];
+        System.arraycopy(data, index + 1, data, index, size - index - 1);
+        size--;
+        modificationCount++;
+        return result;
+    }
+
+    public int indexOf(int value) {
+        for (int i = 0; i < size; i++) {
+            if (data[i] == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    public boolean contains(int value) {
+        return indexOf(value) >= 0;
+    }
+
+    public void clear() {
+        size = 0;
+        modificationCount++;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Grows the backing array so it can hold at least the given number of values.
+     */
+    public void ensureCapacity(int minCapacity) {
+        if (minCapacity > data.length) {
+            int newSize = Math.max(data.length + (data.length >> 1), minCapacity);
+            data = Arrays.copyOf(data, newSize);
+        }
+    }
+
+    public int[] toArray() {
+        return Arrays.copyOf(data, size);
+    }
+
+    /**
+     * Sorts the values into ascending order.
+     */
+    public void sort() {
+        Arrays.sort(data, 0, size);
+        modificationCount++;
+    }
+
+    /**
+     * Searches this list, which must be sorted, for the value.
+     *
+     * @return the index of the value if it is present, and otherwise {@code -(insertion point) - 1}
+     */
+    public int binarySearch(int value) {
+        return Arrays.binarySearch(data, 0, size, value);
+    }
+
+    /**
+     * Calls the action once for every value in order without boxing.
+     */
+    public void forEach(IntConsumer action) {
+        int expectedModCount = modificationCount;
+        for (int i = 0; i < size && expectedModCount == modificationCount; i++) {
+            action.accept(data[i]);
+        }
+        if (expectedModCount != modificationCount) {
+            throw new ConcurrentModificationException();
+        }
+    }
+
+    /**
+     * Returns a boxed {@link RandomAccessList} view of this list. Changes to either are visible in the
+     * other.
+     */
+    public RandomAccessList<Integer> asList() {
+        return new BoxedView();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("[");
+        for (int i = 0; i < size; i++) {
+            if (i > 0) {
+                sb.append(", ");
+            }
+            sb.append(data[i]);
+        }
+        return sb.append("]").toString();
+    }
+
+    private void check(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index out of range: " + index);
+        }
+    }
+
+    private class BoxedView extends AbstractList<Integer> implements RandomAccessList<Integer> {
+        @Override
+        public void add(int index, Integer element) {
+            addInt(index, element);
+        }
+
+        @Override
+        public Integer get(int index) {
+            return getInt(index);
+        }
+
+        @Override
+        public int indexOf(Object o) {
+            return o instanceof Integer ? IntArrayList.this.indexOf((Integer) o) : -1;
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            return indexOf(o) >= 0;
+        }
+
+        @Override
+        public void clear() {
+            IntArrayList.this.clear();
+        }
+
+        @Override
+        public ListIterator<Integer> listIterator() {
+            return listIterator(0);
+        }
+
+        @Override
+        public ListIterator<Integer> listIterator(int index) {
+            if (index != size) {
+                check(index);
+            }
+            return new BoxedIterator(index);
+        }
+
+        @Override
+        public void remove(int index) {
+            removeInt(index);
+        }
+
+        @Override
+        public void set(int index, Integer element) {
+            setInt(index, element);
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+
+    private class BoxedIterator implements ListIterator<Integer> {
+        int lastReturned;
+        int index;
+        int expectedModCount;
+
+        BoxedIterator(int index) {
+            this.lastReturned = -1;
+            this.index = index;
+            this.expectedModCount = modificationCount;
+        }
+
+        @Override
+        public void add(Integer element) {
+            checkForModification();
+            addInt(index++, element);
+            lastReturned = -1;
+            expectedModCount = modificationCount;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return index < size;
+        }
+
+        @Override
+        public boolean hasPrevious() {
+            return index > 0;
+        }
+
+        @Override
+        public Integer next() {
+            checkForModification();
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            lastReturned = index;
+            return data[index++];
+        }
+
+        @Override
+        public int nextIndex() {
+            return index;
+        }
+
+        @Override
+        public Integer previous() {
+            checkForModification();
+            if (!hasPrevious()) {
+                throw new NoSuchElementException();
+            }
+            lastReturned = --index;
+            return data[index];
+        }
+
+        @Override
+        public int previousIndex() {
+            return index - 1;
+        }
+
+        @Override
+        public void remove() {
+            checkForModification();
+            if (lastReturned == -1) {
+                throw new IllegalStateException();
+            }
+            removeInt(lastReturned);
+            if (lastReturned < index) {
+                index--;
+            }
+            lastReturned = -1;
+            expectedModCount = modificationCount;
+        }
+
+        @Override
+        public void set(Integer element) {
+            checkForModification();
+            if (lastReturned == -1) {
+                throw new IllegalStateException();
+            }
+            setInt(lastReturned, element);
+        }
+
+        private void checkForModification() {
+            if (expectedModCount != modificationCount) {
+                throw new ConcurrentModificationException();
+            }
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package lock14.datastructures.impl;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * A binary min heap of {@code int} values keyed by {@code double} priorities, such as vertex ids by
+ * distance in a path search. Values and priorities are kept in parallel primitive arrays, so
+ * nothing is boxed and sifting compares primitives directly rather than through a comparator.
+ * <p>
+ * Elements with equal priorities are dequeued in no particular order. NaN priorities are rejected,
+ * since they have no place in the order. For a max heap, negate the priorities.
+ */
+public class IntDoubleHeap {
+    public static final int DEFAULT_CAPACITY = 10;
+
+    private int[] values;
+    private double[] priorities;
+    private int size;
+
+    public IntDoubleHeap() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public IntDoubleHeap(int capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("Illegal capacity: " + capacity);
+        }
+        values = new int[Math.max(capacity, 1)];
+        priorities = new double[values.length];
+        size = 0;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * Removes and returns the value with the least priority.
+     */
+    public int dequeue() {
+        int value = peek();
+        size--;
+        if (size > 0) {
+            siftDown(0, priorities[size], values[size]);
+        }
+        return value;
+    }
+
+    public void enqueue(double priority, int value) {
+        if (Double.isNaN(priority)) {
+            throw new IllegalArgumentException("Priority must not be NaN");
+        }
+        if (size == values.length) {
+            int newCapacity = size + (size >> 1) + 1;
+            values = Arrays.copyOf(values, newCapacity);
+            priorities = Arrays.copyOf(priorities, newCapacity);
+        }
+        siftUp(size++, priority, value);
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Returns the value with the least priority without removing it.
+     */
+    public int peek() {
+        checkNotEmpty();
+        return values[0];
+    }
+
+    /**
+     * Returns the least priority in the heap.
+     */
+    public double peekPriority() {
+        checkNotEmpty();
+        return priorities[0];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private void siftUp(int child, double priority, int value) {
+        while (child > 0) {
+            int parent = (child - 1) >>> 1;
+            if (priority >= priorities[parent]) {
+                break;
+            }
+            values[child] = values[parent];
+            priorities[child] = priorities[parent];
+            child = parent;
+        }
+        values[child] = value;
+        priorities[child] = priority;
+    }
+
+    private void siftDown(int parent, double priority, int value) {
+        int half = size >>> 1;
+        while (parent < half) {
+            int child = 2 * parent + 1;
+            if (child + 1 < size && priorities[child + 1] < priorities[child]) {
+                child++;
+            }
+            if (priority <= priorities[child]) {
+                break;
+            }
+            values[parent] = values[child];
+            priorities[parent] = priorities[child];
+            parent = child;
+        }
+        values[parent] = value;
+        priorities[parent] = priority;
+    }
+
+    private void checkNotEmpty() {
+        if (size == 0) {
+            throw new NoSuchElementException();
+        }
+    }
+}
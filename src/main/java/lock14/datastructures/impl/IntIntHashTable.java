@@ -0,0 +1,465 @@
+package lock14.datastructures.impl;
+
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import lock14.datastructures.Map;
+import lock14.datastructures.Pair;
+import lock14.datastructures.Set;
+
+/**
+ * A hash map from {@code int} keys to {@code int} values that stores both sides in primitive
+ * arrays, so no entry ever boxes a value or allocates a node.
+ * <p>
+ * The table uses linear probing over a power of two sized array. A key of {@code 0} marks an empty
+ * slot, so the mapping for the key {@code 0} itself is kept in dedicated fields. Lookups of absent
+ * keys return {@code 0}; use {@link #containsKey(int)} or {@link #getOrDefault(int, int)} to tell
+ * the two cases apart.
+ */
+public class IntIntHashTable {
+    private static final int DEFAULT_SIZE = 16;
+    private static final double MAX_LOAD_FACTOR = 0.75;
+    private static final int FREE = 0;
+
+    private int[] keys;
+    private int[] values;
+    private boolean containsZeroKey;
+    private int zeroValue;
+    private int mask;
+    private int threshold;
+    private int size;
+    private int modificationCount;
+
+    public IntIntHashTable() {
+        this(DEFAULT_SIZE);
+    }
+
+    public IntIntHashTable(int expectedSize) {
+        if (expectedSize < 0) {
+            throw new IllegalArgumentException("Illegal size: " + expectedSize);
+        }
+        allocate(Hashing.tableSizeFor(expectedSize, MAX_LOAD_FACTOR));
+    }
+
+    public int get(int key) {
+        return getOrDefault(key, 0);
+    }
+
+    public int getOrDefault(int key, int defaultValue) {
+        if (key == FREE) {
+            return containsZeroKey ? zeroValue : defaultValue;
+        }
+        int index = indexOf(key);
+        return index < 0 ? defaultValue : values[index];
+    }
+
+    public boolean containsKey(int key) {
+        return key == FREE ? containsZeroKey : indexOf(key) >= 0;
+    }
+
+    public boolean containsValue(int value) {
+        if (containsZeroKey && zeroValue == value) {
+            return true;
+        }
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != FREE && values[i] == value) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Associates the value with the key.
+     *
+     * @return the previous value associated with the key, or {@code 0} if there was none
+     */
+    public int put(int key, int value) {
+        if (key == FREE) {
+            int result = zeroValue;
+            zeroValue = value;
+            if (!containsZeroKey) {
+                containsZeroKey = true;
+                size++;
+                modificationCount++;
+            }
+            return result;
+        }
+        int index = slotFor(key);
+        if (keys[index] == key) {
+            int result = values[index];
+            values[index] = value;
+            return result;
+        }
+        insertAt(index, key, value);
+        return 0;
+    }
+
+    /**
+     * Adds the increment to the value associated with the key, treating an absent key as being mapped
+     * to {@code 0}.
+     *
+     * @return the previous value associated with the key, or {@code 0} if there was none
+     */
+    public int addTo(int key, int increment) {
+        if (key == FREE) {
+            int result = zeroValue;
+            put(FREE, zeroValue + increment);
+            return result;
+        }
+        int index = slotFor(key);
+        if (keys[index] == key) {
+            int result = values[index];
+            values[index] += increment;
+            return result;
+        }
+        insertAt(index, key, increment);
+        return 0;
+    }
+
+    /**
+     * Removes the mapping for the key.
+     *
+     * @return the value that was associated with the key, or {@code 0} if there was none
+     */
+    public int remove(int key) {
+        if (key == FREE) {
+            int result = zeroValue;
+            if (containsZeroKey) {
+                containsZeroKey = false;
+                zeroValue = 0;
+                size--;
+                modificationCount++;
+            }
+            return result;
+        }
+        int index = indexOf(key);
+        if (index < 0) {
+            return 0;
+        }
+        int result = values[index];
+        removeAt(index);
+        return result;
+    }
+
+    public void clear() {
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = FREE;
+            values[i] = 0;
+        }
+        containsZeroKey = false;
+        zeroValue = 0;
+        size = 0;
+        modificationCount++;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Calls the action once for every mapping in this table without allocating.
+     */
+    public void forEach(IntIntConsumer action) {
+        int expectedModCount = modificationCount;
+        if (containsZeroKey) {
+            action.accept(FREE, zeroValue);
+        }
+        for (int i = 0; i < keys.length && expectedModCount == modificationCount; i++) {
+            if (keys[i] != FREE) {
+                action.accept(keys[i], values[i]);
+            }
+        }
+        if (expectedModCount != modificationCount) {
+            throw new ConcurrentModificationException();
+        }
+    }
+
+    /**
+     * Returns a boxed {@link Map} view of this table. Changes to either are visible in the other.
+     */
+    public Map<Integer, Integer> asMap() {
+        return new AbstractMap<Integer, Integer>() {
+            private Set<Pair<Integer, Integer>> entrySet = new AbstractSet<Pair<Integer, Integer>>() {
+                @Override
+                public boolean contains(Object o) {
+                    if (!(o instanceof Pair)) {
+                        return false;
+                    }
+                    Pair<?, ?> entry = (Pair<?, ?>) o;
+                    if (!(entry.first() instanceof Integer) || !(entry.second() instanceof Integer)) {
+                        return false;
+                    }
+                    return entry.second().equals(boxedGet((Integer) entry.first()));
+                }
+
+                @Override
+                public void clear() {
+                    IntIntHashTable.this.clear();
+                }
+
+                @Override
+                public Iterator<Pair<Integer, Integer>> iterator() {
+                    return new EntryIterator();
+                }
+
+                @Override
+                public int size() {
+                    return IntIntHashTable.this.size();
+                }
+            };
+
+            @Override
+            public int size() {
+                return IntIntHashTable.this.size();
+            }
+
+            @Override
+            public boolean isEmpty() {
+                return IntIntHashTable.this.isEmpty();
+            }
+
+            @Override
+            public boolean containsKey(Object key) {
+                return key instanceof Integer && IntIntHashTable.this.containsKey((Integer) key);
+            }
+
+            @Override
+            public boolean containsValue(Object value) {
+                return value instanceof Integer && IntIntHashTable.this.containsValue((Integer) value);
+            }
+
+            @Override
+            public Integer get(Object key) {
+                return key instanceof Integer ? boxedGet((Integer) key) : null;
+            }
+
+            @Override
+            public Integer put(Integer key, Integer value) {
+                int k = key;
+                int v = value;
+                if (k == FREE) {
+                    Integer result = containsZeroKey ? zeroValue : null;
+                    IntIntHashTable.this.put(FREE, v);
+                    return result;
+                }
+                int index = slotFor(k);
+                if (keys[index] == k) {
+                    int result = values[index];
+                    values[index] = v;
+                    return result;
+                }
+                insertAt(index, k, v);
+                return null;
+            }
+
+            @Override
+            public Integer remove(Object key) {
+                if (!(key instanceof Integer)) {
+                    return null;
+                }
+                int k = (Integer) key;
+                if (k == FREE) {
+                    return containsZeroKey ? IntIntHashTable.this.remove(FREE) : null;
+                }
+                int index = indexOf(k);
+                if (index < 0) {
+                    return null;
+                }
+                int result = values[index];
+                removeAt(index);
+                return result;
+            }
+
+            @Override
+            public void clear() {
+                IntIntHashTable.this.clear();
+            }
+
+            @Override
+            public Set<Pair<Integer, Integer>> entrySet() {
+                return entrySet;
+            }
+        };
+    }
+
+    /**
+     * Returns the boxed value associated with the key, or null if there is none, probing only once.
+     */
+    private Integer boxedGet(int key) {
+        if (key == FREE) {
+            return containsZeroKey ? zeroValue : null;
+        }
+        int index = indexOf(key);
+        return index < 0 ? null : values[index];
+    }
+
+    private int indexOf(int key) {
+        int index = Hashing.spread(key) & mask;
+        int k;
+        while ((k = keys[index]) != FREE) {
+            if (k == key) {
+                return index;
+            }
+            index = (index + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the slot holding the key, or the free slot where it would be inserted.
+     */
+    private int slotFor(int key) {
+        int index = Hashing.spread(key) & mask;
+        int k;
+        while ((k = keys[index]) != FREE && k != key) {
+            index = (index + 1) & mask;
+        }
+        return index;
+    }
+
+    private void insertAt(int index, int key, int value) {
+        keys[index] = key;
+        values[index] = value;
+        size++;
+        modificationCount++;
+        if (size > threshold) {
+            resize();
+        }
+    }
+
+    private void removeAt(int index) {
+        // close the gap by shifting back any later entry of the cluster that may legally live here
+        int last = index;
+        int current = index;
+        while (true) {
+            current = (current + 1) & mask;
+            int key = keys[current];
+            if (key == FREE) {
+                break;
+            }
+            int home = Hashing.spread(key) & mask;
+            if (last <= current ? (home <= last || home > current) : (home <= last && home > current)) {
+                keys[last] = key;
+                values[last] = values[current];
+                last = current;
+            }
+        }
+        keys[last] = FREE;
+        values[last] = 0;
+        size--;
+        modificationCount++;
+    }
+
+    private void allocate(int tableSize) {
+        keys = new int[tableSize];
+        values = new int[tableSize];
+        mask = tableSize - 1;
+        threshold = (int) Math.min(tableSize * MAX_LOAD_FACTOR, tableSize - 1);
+    }
+
+    private void resize() {
+        if (keys.length == Hashing.MAX_TABLE_SIZE) {
+            throw new IllegalStateException("Hash table is full");
+        }
+        int[] oldKeys = keys;
+        int[] oldValues = values;
+        allocate(keys.length << 1);
+        for (int i = 0; i < oldKeys.length; i++) {
+            int key = oldKeys[i];
+            if (key != FREE) {
+                int index = Hashing.spread(key) & mask;
+                while (keys[index] != FREE) {
+                    index = (index + 1) & mask;
+                }
+                keys[index] = key;
+                values[index] = oldValues[i];
+            }
+        }
+    }
+
+    @FunctionalInterface
+    public interface IntIntConsumer {
+        void accept(int key, int value);
+    }
+
+    /**
+     * Walks the table starting just after a free slot, visiting the zero key last. No cluster can wrap
+     * around past the starting slot, so the entries moved by {@link #removeAt(int)} during
+     * {@link #remove()} are always ones that have not been visited yet.
+     */
+    private class EntryIterator implements Iterator<Pair<Integer, Integer>> {
+        int start;
+        int steps;
+        int remaining;
+        int lastReturned;
+        boolean zeroKeyPending;
+        int expectedModCount;
+
+        EntryIterator() {
+            start = 0;
+            while (keys[start] != FREE) {
+                start++;
+            }
+            steps = 0;
+            zeroKeyPending = containsZeroKey;
+            remaining = size - (containsZeroKey ? 1 : 0);
+            lastReturned = -1;
+            expectedModCount = modificationCount;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return remaining > 0 || zeroKeyPending;
+        }
+
+        @Override
+        public Pair<Integer, Integer> next() {
+            checkForModification();
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            if (remaining == 0) {
+                zeroKeyPending = false;
+                lastReturned = keys.length;
+                return Pair.of(FREE, zeroValue);
+            }
+            int slot = (start + steps) & mask;
+            while (keys[slot] == FREE) {
+                steps++;
+                slot = (start + steps) & mask;
+            }
+            steps++;
+            remaining--;
+            lastReturned = slot;
+            return Pair.of(keys[slot], values[slot]);
+        }
+
+        @Override
+        public void remove() {
+            checkForModification();
+            if (lastReturned == -1) {
+                throw new IllegalStateException();
+            }
+            if (lastReturned == keys.length) {
+                IntIntHashTable.this.remove(FREE);
+            } else {
+                removeAt(lastReturned);
+                // the slot we just emptied may now hold the next unvisited entry
+                steps--;
+            }
+            lastReturned = -1;
+            expectedModCount = modificationCount;
+        }
+
+        private void checkForModification() {
+            if (expectedModCount != modificationCount) {
+                throw new ConcurrentModificationException();
+            }
+        }
+    }
+}
@@ -4,6 +4,9 @@ import java.util.ConcurrentModificationException;
 import java.util.ListIterator;
 import java.util.NoSuchElementException;
 import java.util.Optional;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
 import lock14.datastructures.Collection;
 import lock14.datastructures.SequentialList;
 
@@ -68,6 +71,11 @@ public class LinkedList<E> extends AbstractList<E> implements SequentialList<E>
         return size;
     }
 
+    @Override
+    public Spliterator<E> spliterator() {
+        return new LinkedListSpliterator();
+    }
+
     private void insertBefore(Node<E> node, E element) {
         Node<E> temp = new Node<>(element, node.prev, node);
         node.prev.next = temp;
@@ -201,6 +209,91 @@ public class LinkedList<E> extends AbstractList<E> implements SequentialList<E>
         }
     }
 
+    /**
+     * Splits by copying a batch of elements from the front into an array, each batch larger than the
+     * last, so the remaining list can only be walked but the batches can be processed in parallel.
+     */
+    private class LinkedListSpliterator implements Spliterator<E> {
+        static final int BATCH_UNIT = 1 << 10;
+        static final int MAX_BATCH = 1 << 25;
+        Node<E> current;
+        int remaining;
+        int batch;
+        int expectedModCount;
+
+        LinkedListSpliterator() {
+            this.remaining = -1;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super E> action) {
+            bind();
+            if (remaining <= 0) {
+                return false;
+            }
+            E e = current.data;
+            current = current.next;
+            remaining--;
+            action.accept(e);
+            checkForModification();
+            return true;
+        }
+
+        @Override
+        public void forEachRemaining(Consumer<? super E> action) {
+            bind();
+            for (; remaining > 0; remaining--) {
+                E e = current.data;
+                current = current.next;
+                action.accept(e);
+            }
+            checkForModification();
+        }
+
+        @Override
+        public Spliterator<E> trySplit() {
+            bind();
+            if (remaining <= 1) {
+                return null;
+            }
+            int n = Math.min(Math.min(batch + BATCH_UNIT, MAX_BATCH), remaining);
+            Object[] elements = new Object[n];
+            for (int i = 0; i < n; i++) {
+                elements[i] = current.data;
+                current = current.next;
+            }
+            checkForModification();
+            batch = n;
+            remaining -= n;
+            return Spliterators.spliterator(elements, Spliterator.ORDERED);
+        }
+
+        @Override
+        public long estimateSize() {
+            bind();
+            return remaining;
+        }
+
+        @Override
+        public int characteristics() {
+            return Spliterator.ORDERED | Spliterator.SIZED | Spliterator.SUBSIZED;
+        }
+
+        private void bind() {
+            if (remaining < 0) {
+                current = list.next;
+                remaining = size;
+                expectedModCount = modificationCount;
+            }
+        }
+
+        private void checkForModification() {
+            if (expectedModCount != modificationCount) {
+                throw new ConcurrentModificationException();
+            }
+        }
+    }
+
     private static final class Node<E> {
         E data;
         Node<E> prev;
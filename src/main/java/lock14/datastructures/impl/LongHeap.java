@@ -0,0 +1,124 @@
+package lock14.datastructures.impl;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * A binary min heap of values keyed by {@code long} priorities, such as deadlines in a timer queue.
+ * The priorities are kept in a primitive array next to a parallel array of values, so no priority
+ * is ever boxed and sifting compares primitives directly rather than through a comparator.
+ * <p>
+ * Elements with equal priorities are dequeued in no particular order. For a max heap, negate the
+ * priorities.
+ */
+public class LongHeap<E> {
+    public static final int DEFAULT_CAPACITY = 10;
+
+    private long[] priorities;
+    private Object[] values;
+    private int size;
+
+    public LongHeap() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public LongHeap(int capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("Illegal capacity: " + capacity);
+        }
+        priorities = new long[Math.max(capacity, 1)];
+        values = new Object[priorities.length];
+        size = 0;
+    }
+
+    public void clear() {
+        Arrays.fill(values, 0, size, null);
+        size = 0;
+    }
+
+    /**
+     * Removes and returns the value with the least priority.
+     */
+    public E dequeue() {
+        E value = peek();
+        long lastPriority = priorities[--size];
+        Object lastValue = values[size];
+        values[size] = null;
+        if (size > 0) {
+            siftDown(0, lastPriority, lastValue);
+        }
+        return value;
+    }
+
+    public void enqueue(long priority, E value) {
+        if (size == priorities.length) {
+            int newCapacity = size + (size >> 1) + 1;
+            priorities = Arrays.copyOf(priorities, newCapacity);
+            values = Arrays.copyOf(values, newCapacity);
+        }
+        siftUp(size++, priority, value);
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Returns the value with the least priority without removing it.
+     */
+    @SuppressWarnings("unchecked")
+    public E peek() {
+        checkNotEmpty();
+        return (E) values[0];
+    }
+
+    /**
+     * Returns the least priority in the heap.
+     */
+    public long peekPriority() {
+        checkNotEmpty();
+        return priorities[0];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private void siftUp(int child, long priority, Object value) {
+        while (child > 0) {
+            int parent = (child - 1) >>> 1;
+            if (priority >= priorities[parent]) {
+                break;
+            }
+            priorities[child] = priorities[parent];
+            values[child] = values[parent];
+            child = parent;
+        }
+        priorities[child] = priority;
+        values[child] = value;
+    }
+
+    private void siftDown(int parent, long priority, Object value) {
+        int half = size >>> 1;
+        while (parent < half) {
+            int child = 2 * parent + 1;
+            if (child + 1 < size && priorities[child + 1] < priorities[child]) {
+                child++;
+            }
+            if (priority <= priorities[child]) {
+                break;
+            }
+            priorities[parent] = priorities[child];
+            values[parent] = values[child];
+            parent = child;
+        }
+        priorities[parent] = priority;
+        values[parent] = value;
+    }
+
+    private void checkNotEmpty() {
+        if (size == 0) {
+            throw new NoSuchElementException();
+        }
+    }
+}
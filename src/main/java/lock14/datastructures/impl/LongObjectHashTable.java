@@ -0,0 +1,403 @@
+package lock14.datastructures.impl;
+
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import lock14.datastructures.Map;
+import lock14.datastructures.Pair;
+import lock14.datastructures.Set;
+
+/**
+ * A hash map from {@code long} keys to object values that keeps its keys in a primitive array, so
+ * no key is ever boxed and no entry allocates a node.
+ * <p>
+ * The table uses linear probing over a power of two sized array. A key of {@code 0} marks an empty
+ * slot, so the mapping for the key {@code 0} itself is kept in dedicated fields. Like
+ * {@link HashTable}, null values are not permitted, so {@link #get(long)} returning null always
+ * means the key is absent.
+ */
+public class LongObjectHashTable<V> {
+    private static final int DEFAULT_SIZE = 16;
+    private static final double MAX_LOAD_FACTOR = 0.75;
+    private static final long FREE = 0L;
+
+    private long[] keys;
+    private Object[] values;
+    private V zeroValue;
+    private int mask;
+    private int threshold;
+    private int size;
+    private int modificationCount;
+
+    public LongObjectHashTable() {
+        this(DEFAULT_SIZE);
+    }
+
+    public LongObjectHashTable(int expectedSize) {
+        if (expectedSize < 0) {
+            throw new IllegalArgumentException("Illegal size: " + expectedSize);
+        }
+        allocate(Hashing.tableSizeFor(expectedSize, MAX_LOAD_FACTOR));
+    }
+
+    public V get(long key) {
+        if (key == FREE) {
+            return zeroValue;
+        }
+        int index = indexOf(key);
+        return index < 0 ? null : valueAt(index);
+    }
+
+    public boolean containsKey(long key) {
+        return key == FREE ? zeroValue != null : indexOf(key) >= 0;
+    }
+
+    public boolean containsValue(Object value) {
+        if (value == null) {
+            throw new NullPointerException();
+        }
+        if (value.equals(zeroValue)) {
+            return true;
+        }
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != FREE && values[i].equals(value)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Associates the value with the key.
+     *
+     * @return the previous value associated with the key, or null if there was none
+     */
+    public V put(long key, V value) {
+        if (value == null) {
+            throw new NullPointerException();
+        }
+        if (key == FREE) {
+            V result = zeroValue;
+            zeroValue = value;
+            if (result == null) {
+                size++;
+                modificationCount++;
+            }
+            return result;
+        }
+        int index = slotFor(key);
+        if (keys[index] == key) {
+            V result = valueAt(index);
+            values[index] = value;
+            return result;
+        }
+        keys[index] = key;
+        values[index] = value;
+        size++;
+        modificationCount++;
+        if (size > threshold) {
+            resize();
+        }
+        return null;
+    }
+
+    /**
+     * Removes the mapping for the key.
+     *
+     * @return the value that was associated with the key, or null if there was none
+     */
+    public V remove(long key) {
+        if (key == FREE) {
+            V result = zeroValue;
+            if (result != null) {
+                zeroValue = null;
+                size--;
+                modificationCount++;
+            }
+            return result;
+        }
+        int index = indexOf(key);
+        if (index < 0) {
+            return null;
+        }
+        V result = valueAt(index);
+        removeAt(index);
+        return result;
+    }
+
+    public void clear() {
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = FREE;
+            values[i] = null;
+        }
+        zeroValue = null;
+        size = 0;
+        modificationCount++;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Calls the action once for every mapping in this table without boxing any key.
+     */
+    public void forEach(LongObjectConsumer<? super V> action) {
+        int expectedModCount = modificationCount;
+        if (zeroValue != null) {
+            action.accept(FREE, zeroValue);
+        }
+        for (int i = 0; i < keys.length && expectedModCount == modificationCount; i++) {
+            if (keys[i] != FREE) {
+                action.accept(keys[i], valueAt(i));
+            }
+        }
+        if (expectedModCount != modificationCount) {
+            throw new ConcurrentModificationException();
+        }
+    }
+
+    /**
+     * Returns a boxed {@link Map} view of this table. Changes to either are visible in the other.
+     */
+    public Map<Long, V> asMap() {
+        return new AbstractMap<Long, V>() {
+            private Set<Pair<Long, V>> entrySet = new AbstractSet<Pair<Long, V>>() {
+                @Override
+                public boolean contains(Object o) {
+                    if (!(o instanceof Pair)) {
+                        return false;
+                    }
+                    Pair<?, ?> entry = (Pair<?, ?>) o;
+                    return entry.first() instanceof Long
+                            && Objects.equals(entry.second(), LongObjectHashTable.this.get((Long) entry.first()));
+                }
+
+                @Override
+                public void clear() {
+                    LongObjectHashTable.this.clear();
+                }
+
+                @Override
+                public Iterator<Pair<Long, V>> iterator() {
+                    return new EntryIterator();
+                }
+
+                @Override
+                public int size() {
+                    return LongObjectHashTable.this.size();
+                }
+            };
+
+            @Override
+            public int size() {
+                return LongObjectHashTable.this.size();
+            }
+
+            @Override
+            public boolean isEmpty() {
+                return LongObjectHashTable.this.isEmpty();
+            }
+
+            @Override
+            public boolean containsKey(Object key) {
+                return key instanceof Long && LongObjectHashTable.this.containsKey((Long) key);
+            }
+
+            @Override
+            public boolean containsValue(Object value) {
+                return LongObjectHashTable.this.containsValue(value);
+            }
+
+            @Override
+            public V get(Object key) {
+                return key instanceof Long ? LongObjectHashTable.this.get((Long) key) : null;
+            }
+
+            @Override
+            public V put(Long key, V value) {
+                return LongObjectHashTable.this.put(key, value);
+            }
+
+            @Override
+            public V remove(Object key) {
+                return key instanceof Long ? LongObjectHashTable.this.remove((Long) key) : null;
+            }
+
+            @Override
+            public void clear() {
+                LongObjectHashTable.this.clear();
+            }
+
+            @Override
+            public Set<Pair<Long, V>> entrySet() {
+                return entrySet;
+            }
+        };
+    }
+
+    private int indexOf(long key) {
+        int index = Hashing.spread(key) & mask;
+        long k;
+        while ((k = keys[index]) != FREE) {
+            if (k == key) {
+                return index;
+            }
+            index = (index + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the slot holding the key, or the free slot where it would be inserted.
+     */
+    private int slotFor(long key) {
+        int index = Hashing.spread(key) & mask;
+        long k;
+        while ((k = keys[index]) != FREE && k != key) {
+            index = (index + 1) & mask;
+        }
+        return index;
+    }
+
+    private void removeAt(int index) {
+        // close the gap by shifting back any later entry of the cluster that may legally live here
+        int last = index;
+        int current = index;
+        while (true) {
+            current = (current + 1) & mask;
+            long key = keys[current];
+            if (key == FREE) {
+                break;
+            }
+            int home = Hashing.spread(key) & mask;
+            if (last <= current ? (home <= last || home > current) : (home <= last && home > current)) {
+                keys[last] = key;
+                values[last] = values[current];
+                last = current;
+            }
+        }
+        keys[last] = FREE;
+        values[last] = null;
+        size--;
+        modificationCount++;
+    }
+
+    private void allocate(int tableSize) {
+        keys = new long[tableSize];
+        values = new Object[tableSize];
+        mask = tableSize - 1;
+        threshold = (int) Math.min(tableSize * MAX_LOAD_FACTOR, tableSize - 1);
+    }
+
+    private void resize() {
+        if (keys.length == Hashing.MAX_TABLE_SIZE) {
+            throw new IllegalStateException("Hash table is full");
+        }
+        long[] oldKeys = keys;
+        Object[] oldValues = values;
+        allocate(keys.length << 1);
+        for (int i = 0; i < oldKeys.length; i++) {
+            long key = oldKeys[i];
+            if (key != FREE) {
+                int index = Hashing.spread(key) & mask;
+                while (keys[index] != FREE) {
+                    index = (index + 1) & mask;
+                }
+                keys[index] = key;
+                values[index] = oldValues[i];
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private V valueAt(int index) {
+        return (V) values[index];
+    }
+
+    @FunctionalInterface
+    public interface LongObjectConsumer<V> {
+        void accept(long key, V value);
+    }
+
+    /**
+     * Walks the table starting just after a free slot, visiting the zero key last. No cluster can wrap
+     * around past the starting slot, so the entries moved by {@link #removeAt(int)} during
+     * {@link #remove()} are always ones that have not been visited yet.
+     */
+    private class EntryIterator implements Iterator<Pair<Long, V>> {
+        int start;
+        int steps;
+        int remaining;
+        int lastReturned;
+        boolean zeroKeyPending;
+        int expectedModCount;
+
+        EntryIterator() {
+            start = 0;
+            while (keys[start] != FREE) {
+                start++;
+            }
+            steps = 0;
+            zeroKeyPending = zeroValue != null;
+            remaining = size - (zeroKeyPending ? 1 : 0);
+            lastReturned = -1;
+            expectedModCount = modificationCount;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return remaining > 0 || zeroKeyPending;
+        }
+
+        @Override
+        public Pair<Long, V> next() {
+            checkForModification();
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            if (remaining == 0) {
+                zeroKeyPending = false;
+                lastReturned = keys.length;
+                return Pair.of(FREE, zeroValue);
+            }
+            int slot = (start + steps) & mask;
+            while (keys[slot] == FREE) {
+                steps++;
+                slot = (start + steps) & mask;
+            }
+            steps++;
+            remaining--;
+            lastReturned = slot;
+            return Pair.of(keys[slot], valueAt(slot));
+        }
+
+        @Override
+        public void remove() {
+            checkForModification();
+            if (lastReturned == -1) {
+                throw new IllegalStateException();
+            }
+            if (lastReturned == keys.length) {
+                LongObjectHashTable.this.remove(FREE);
+            } else {
+                removeAt(lastReturned);
+                // the slot we just emptied may now hold the next unvisited entry
+                steps--;
+            }
+            lastReturned = -1;
+            expectedModCount = modificationCount;
+        }
+
+        private void checkForModification() {
+            if (expectedModCount != modificationCount) {
+                throw new ConcurrentModificationException();
+            }
+        }
+    }
+}
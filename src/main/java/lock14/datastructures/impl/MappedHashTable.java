@@ -0,0 +1,654 @@
+package lock14.datastructures.impl;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import lock14.datastructures.Pair;
+import lock14.datastructures.Set;
+
+/**
+ * A persistent hash map that lives in two memory mapped files, so reopening an existing table only
+ * maps the files again instead of reloading every entry.
+ * <p>
+ * The index file starts with a header holding the table capacity, the size and the end of the data
+ * written so far, followed by an open addressing table of slots that each hold the address and hash
+ * of a record. The data file next to it (the same name with {@code .data} appended) holds the
+ * records, laid out as in {@link OffHeapHashTable}, and is mapped in fixed size segments that are
+ * added as the data grows. A record never spans two segments. Growing the index rehashes it into a
+ * new file that then replaces the old one.
+ * <p>
+ * Changes reach the files through the page cache; {@link #force()} or {@link #close()} makes them
+ * durable. Processes that only read can map the same files and share their pages. Replacing or
+ * removing an entry leaves its old record behind in the data file. Neither null keys nor null
+ * values are permitted.
+ */
+public class MappedHashTable<K, V> extends AbstractMap<K, V> implements AutoCloseable {
+    private static final int DEFAULT_SIZE = 16;
+    private static final int DEFAULT_SEGMENT_SIZE = 1 << 26;
+    private static final double MAX_LOAD_FACTOR = 0.75;
+    private static final int MAGIC = 0x4D485431;
+    private static final int VERSION = 1;
+    // magic, version, capacity, size, segment size, padding and data end
+    private static final int INDEX_HEADER_SIZE = 32;
+    private static final int CAPACITY_OFFSET = 8;
+    private static final int SIZE_OFFSET = 12;
+    private static final int SEGMENT_SIZE_OFFSET = 16;
+    private static final int DATA_END_OFFSET = 24;
+    // each slot holds a record address and its hash
+    private static final int SLOT_SIZE = Long.BYTES + Integer.BYTES;
+    private static final int MAX_CAPACITY = Integer.highestOneBit((Integer.MAX_VALUE - INDEX_HEADER_SIZE) / SLOT_SIZE);
+    // the data file starts with the magic number, so no record has the empty address
+    private static final int DATA_HEADER_SIZE = Long.BYTES;
+    private static final long EMPTY = 0L;
+    private static final int RECORD_HEADER_SIZE = 2 * Integer.BYTES;
+
+    private final Path indexFile;
+    private final Serializer<K> keySerializer;
+    private final Serializer<V> valueSerializer;
+    private final FileChannel dataChannel;
+    private final int segmentSize;
+
+    private MappedByteBuffer index;
+    private MappedByteBuffer[] segments;
+    private int capacity;
+    private int mask;
+    private int threshold;
+    private int size;
+    private long dataEnd;
+    private int modificationCount;
+    private ByteBuffer scratch;
+    private boolean closed;
+
+    private Set<Pair<K, V>> entrySet = new AbstractSet<Pair<K, V>>() {
+        @Override
+        public boolean contains(Object o) {
+            if (!(o instanceof Pair)) {
+                return false;
+            }
+            Pair<?, ?> entry = (Pair<?, ?>) o;
+            return Objects.equals(entry.second(), MappedHashTable.this.get(entry.first()));
+        }
+
+        @Override
+        public void clear() {
+            MappedHashTable.this.clear();
+        }
+
+        @Override
+        public Iterator<Pair<K, V>> iterator() {
+            return new EntryIterator();
+        }
+
+        @Override
+        public void remove(Object o) {
+            if (o instanceof Pair) {
+                Pair<?, ?> entry = (Pair<?, ?>) o;
+                MappedHashTable.this.remove(entry.first());
+            }
+        }
+
+        @Override
+        public int size() {
+            return MappedHashTable.this.size();
+        }
+    };
+
+    private Set<K> keySet = new AbstractSet<K>() {
+        @Override
+        public boolean contains(Object o) {
+            return containsKey(o);
+        }
+
+        @Override
+        public void clear() {
+            MappedHashTable.this.clear();
+        }
+
+        @Override
+        public Iterator<K> iterator() {
+            return new KeyIterator();
+        }
+
+        @Override
+        public void remove(Object key) {
+            MappedHashTable.this.remove(key);
+        }
+
+        @Override
+        public int size() {
+            return MappedHashTable.this.size();
+        }
+    };
+
+    /**
+     * Opens the table stored in the file, or creates an empty one if the file does not exist.
+     */
+    public MappedHashTable(Path file, Serializer<K> keySerializer, Serializer<V> valueSerializer) throws IOException {
+        this(file, keySerializer, valueSerializer, DEFAULT_SIZE, DEFAULT_SEGMENT_SIZE);
+    }
+
+    /**
+     * Opens the table stored in the file, or creates one sized for the expected number of entries whose
+     * data file is mapped in segments of the given number of bytes. An existing table keeps the segment
+     * size it was created with.
+     */
+    public MappedHashTable(Path file, Serializer<K> keySerializer, Serializer<V> valueSerializer,
+                           int expectedSize, int segmentSize) throws IOException {
+        if (expectedSize < 0) {
+            throw new IllegalArgumentException("Illegal size: " + expectedSize);
+        }
+        if (segmentSize <= DATA_HEADER_SIZE) {
+            throw new IllegalArgumentException("Illegal segment size: " + segmentSize);
+        }
+        this.indexFile = file;
+        this.keySerializer = Objects.requireNonNull(keySerializer);
+        this.valueSerializer = Objects.requireNonNull(valueSerializer);
+        Path dataFile = file.resolveSibling(file.getFileName() + ".data");
+        if (Files.exists(file) && Files.size(file) > 0) {
+            index = map(file, Files.size(file));
+            FileChannel channel = null;
+            try {
+                if (index.getInt(0) != MAGIC || index.getInt(4) != VERSION) {
+                    throw new IOException("Not a hash table file: " + file);
+                }
+                setCapacity(index.getInt(CAPACITY_OFFSET));
+                size = index.getInt(SIZE_OFFSET);
+                this.segmentSize = index.getInt(SEGMENT_SIZE_OFFSET);
+                dataEnd = index.getLong(DATA_END_OFFSET);
+                if (!Files.exists(dataFile) || Files.size(dataFile) < dataEnd) {
+                    throw new IOException("Missing or truncated data file: " + dataFile);
+                }
+                channel = FileChannel.open(dataFile, StandardOpenOption.READ, StandardOpenOption.WRITE);
+                ByteBuffer magic = ByteBuffer.allocate(Long.BYTES);
+                channel.read(magic, 0);
+                if (magic.position() < Long.BYTES || magic.getLong(0) != MAGIC) {
+                    throw new IOException("Not a hash table data file: " + dataFile);
+                }
+            } catch (IOException | RuntimeException e) {
+                // don't leave the files mapped or open until the next garbage collection
+                DirectBuffers.release(index);
+                if (channel != null) {
+                    try {
+                        channel.close();
+                    } catch (IOException suppressed) {
+                        e.addSuppressed(suppressed);
+                    }
+                }
+                throw e;
+            }
+            dataChannel = channel;
+            segments = new MappedByteBuffer[(int) ((dataEnd - 1) / this.segmentSize) + 1];
+        } else {
+            int tableSize = Math.min(Hashing.tableSizeFor(expectedSize, MAX_LOAD_FACTOR), MAX_CAPACITY);
+            index = map(file, indexFileSize(tableSize));
+            setCapacity(tableSize);
+            size = 0;
+            this.segmentSize = segmentSize;
+            dataEnd = DATA_HEADER_SIZE;
+            writeHeader(index);
+            dataChannel = FileChannel.open(dataFile, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                                           StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+            segments = new MappedByteBuffer[1];
+            segment(0).putLong(0, MAGIC);
+        }
+    }
+
+    @Override
+    public V put(K key, V value) {
+        checkOpen();
+        if (value == null) {
+            throw new NullPointerException();
+        }
+        ByteBuffer keyBytes = serialize(key);
+        int hash = Hashing.spread(keyBytes);
+        int slot = indexOf(hash, keyBytes);
+        if (slot >= 0) {
+            V result = readValue(address(index, slot));
+            setAddress(index, slot, append(keyBytes, value));
+            return result;
+        }
+        long address = append(keyBytes, value);
+        slot = hash & mask;
+        while (address(index, slot) != EMPTY) {
+            slot = (slot + 1) & mask;
+        }
+        setSlot(index, slot, address, hash);
+        size++;
+        index.putInt(SIZE_OFFSET, size);
+        modificationCount++;
+        if (size > threshold) {
+            resize();
+        }
+        return null;
+    }
+
+    @Override
+    public V get(Object key) {
+        checkOpen();
+        int slot = indexOf(key);
+        return slot < 0 ? null : readValue(address(index, slot));
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        checkOpen();
+        return indexOf(key) >= 0;
+    }
+
+    @Override
+    public boolean containsValue(Object value) {
+        checkOpen();
+        if (value == null) {
+            throw new NullPointerException();
+        }
+        for (int i = 0; i < capacity; i++) {
+            long address = address(index, i);
+            if (address != EMPTY && readValue(address).equals(value)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public V remove(Object key) {
+        checkOpen();
+        int slot = indexOf(key);
+        if (slot < 0) {
+            return null;
+        }
+        V result = readValue(address(index, slot));
+        removeAt(slot);
+        return result;
+    }
+
+    /**
+     * Removes every entry. Later entries are written over the records of the removed ones.
+     */
+    @Override
+    public void clear() {
+        checkOpen();
+        for (int i = 0; i < capacity; i++) {
+            setSlot(index, i, EMPTY, 0);
+        }
+        size = 0;
+        dataEnd = DATA_HEADER_SIZE;
+        writeHeader(index);
+        modificationCount++;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public Set<K> keySet() {
+        return keySet;
+    }
+
+    @Override
+    public Set<Pair<K, V>> entrySet() {
+        return entrySet;
+    }
+
+    /**
+     * Returns the number of bytes written to the data file, including the records of replaced and
+     * removed entries.
+     */
+    public long dataBytes() {
+        return dataEnd;
+    }
+
+    /**
+     * Writes every change made so far through to the files.
+     */
+    public void force() {
+        checkOpen();
+        forceData();
+        index.force();
+    }
+
+    /**
+     * Forces every change to the files and unmaps them. Any further use of the table throws an
+     * {@link IllegalStateException}.
+     */
+    @Override
+    public void close() throws IOException {
+        if (!closed) {
+            force();
+            closed = true;
+            for (int i = 0; i < segments.length; i++) {
+                DirectBuffers.release(segments[i]);
+                segments[i] = null;
+            }
+            DirectBuffers.release(index);
+            index = null;
+            dataChannel.close();
+            modificationCount++;
+        }
+    }
+
+    private void forceData() {
+        for (MappedByteBuffer segment : segments) {
+            if (segment != null) {
+                segment.force();
+            }
+        }
+    }
+
+    private void checkOpen() {
+        if (closed) {
+            throw new IllegalStateException("Table is closed");
+        }
+    }
+
+    private static MappedByteBuffer map(Path file, long length) throws IOException {
+        // the mapping stays valid once the channel is closed
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                                                    StandardOpenOption.WRITE)) {
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, length);
+        }
+    }
+
+    private static long indexFileSize(int capacity) {
+        return INDEX_HEADER_SIZE + (long) capacity * SLOT_SIZE;
+    }
+
+    private void setCapacity(int capacity) {
+        this.capacity = capacity;
+        mask = capacity - 1;
+        threshold = (int) Math.min(capacity * MAX_LOAD_FACTOR, capacity - 1);
+    }
+
+    private void writeHeader(ByteBuffer buffer) {
+        buffer.putInt(0, MAGIC);
+        buffer.putInt(4, VERSION);
+        buffer.putInt(CAPACITY_OFFSET, capacity);
+        buffer.putInt(SIZE_OFFSET, size);
+        buffer.putInt(SEGMENT_SIZE_OFFSET, segmentSize);
+        buffer.putLong(DATA_END_OFFSET, dataEnd);
+    }
+
+    private static long address(ByteBuffer buffer, int slot) {
+        return buffer.getLong(INDEX_HEADER_SIZE + slot * SLOT_SIZE);
+    }
+
+    private static int hash(ByteBuffer buffer, int slot) {
+        return buffer.getInt(INDEX_HEADER_SIZE + slot * SLOT_SIZE + Long.BYTES);
+    }
+
+    private static void setAddress(ByteBuffer buffer, int slot, long address) {
+        buffer.putLong(INDEX_HEADER_SIZE + slot * SLOT_SIZE, address);
+    }
+
+    private static void setSlot(ByteBuffer buffer, int slot, long address, int hash) {
+        buffer.putLong(INDEX_HEADER_SIZE + slot * SLOT_SIZE, address);
+        buffer.putInt(INDEX_HEADER_SIZE + slot * SLOT_SIZE + Long.BYTES, hash);
+    }
+
+    /**
+     * Serializes the key into a scratch buffer that is reused by the next call.
+     */
+    @SuppressWarnings("unchecked")
+    private ByteBuffer serialize(Object key) {
+        // we want null pointer to be thrown if
+        // key is null
+        Objects.requireNonNull(key);
+        K k = (K) key;
+        int length = keySerializer.size(k);
+        if (scratch == null || scratch.capacity() < length) {
+            scratch = ByteBuffer.allocate(Math.max(length, scratch == null ? 64 : 2 * scratch.capacity()));
+        }
+        scratch.clear();
+        keySerializer.write(k, scratch);
+        scratch.flip();
+        return scratch;
+    }
+
+    private int indexOf(Object key) {
+        ByteBuffer keyBytes = serialize(key);
+        return indexOf(Hashing.spread(keyBytes), keyBytes);
+    }
+
+    private int indexOf(int hash, ByteBuffer keyBytes) {
+        int slot = hash & mask;
+        long address;
+        while ((address = address(index, slot)) != EMPTY) {
+            if (hash(index, slot) == hash && keyBytes(address).equals(keyBytes)) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    private MappedByteBuffer segment(int i) {
+        if (i >= segments.length) {
+            segments = Arrays.copyOf(segments, Math.max(i + 1, segments.length + segments.length / 2));
+        }
+        if (segments[i] == null) {
+            try {
+                segments[i] = dataChannel.map(FileChannel.MapMode.READ_WRITE, (long) i * segmentSize, segmentSize);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return segments[i];
+    }
+
+    private ByteBuffer keyBytes(long address) {
+        ByteBuffer segment = segment((int) (address / segmentSize));
+        int offset = (int) (address % segmentSize);
+        ByteBuffer bytes = segment.asReadOnlyBuffer();
+        bytes.limit(offset + RECORD_HEADER_SIZE + segment.getInt(offset));
+        bytes.position(offset + RECORD_HEADER_SIZE);
+        return bytes;
+    }
+
+    private ByteBuffer valueBytes(long address) {
+        ByteBuffer segment = segment((int) (address / segmentSize));
+        int offset = (int) (address % segmentSize);
+        int start = offset + RECORD_HEADER_SIZE + segment.getInt(offset);
+        ByteBuffer bytes = segment.asReadOnlyBuffer();
+        bytes.limit(start + segment.getInt(offset + Integer.BYTES));
+        bytes.position(start);
+        return bytes;
+    }
+
+    private K readKey(long address) {
+        return keySerializer.read(keyBytes(address));
+    }
+
+    private V readValue(long address) {
+        return valueSerializer.read(valueBytes(address));
+    }
+
+    /**
+     * Writes a record for the serialized key and the value at the end of the data and returns its
+     * address.
+     */
+    private long append(ByteBuffer keyBytes, V value) {
+        int keyLength = keyBytes.remaining();
+        int valueLength = valueSerializer.size(value);
+        int recordSize = RECORD_HEADER_SIZE + keyLength + valueLength;
+        if (recordSize > segmentSize) {
+            throw new IllegalArgumentException("Entry of " + recordSize + " bytes does not fit in a segment");
+        }
+        long address = dataEnd;
+        if (address % segmentSize + recordSize > segmentSize) {
+            // records never span segments, so skip the rest of this one
+            address += segmentSize - address % segmentSize;
+        }
+        ByteBuffer segment = segment((int) (address / segmentSize)).duplicate();
+        int start = (int) (address % segmentSize);
+        segment.position(start);
+        segment.putInt(keyLength);
+        segment.putInt(valueLength);
+        segment.put(keyBytes.duplicate());
+        valueSerializer.write(value, segment);
+        if (segment.position() - start != recordSize) {
+            throw new IllegalStateException("Serializer wrote a different number of bytes than it reported");
+        }
+        dataEnd = address + recordSize;
+        index.putLong(DATA_END_OFFSET, dataEnd);
+        return address;
+    }
+
+    private void removeAt(int slot) {
+        // close the gap by shifting back any later entry of the cluster that may legally live here
+        int last = slot;
+        int current = slot;
+        while (true) {
+            current = (current + 1) & mask;
+            long address = address(index, current);
+            if (address == EMPTY) {
+                break;
+            }
+            int hash = hash(index, current);
+            int home = hash & mask;
+            if (last <= current ? (home <= last || home > current) : (home <= last && home > current)) {
+                setSlot(index, last, address, hash);
+                last = current;
+            }
+        }
+        setSlot(index, last, EMPTY, 0);
+        size--;
+        index.putInt(SIZE_OFFSET, size);
+        modificationCount++;
+    }
+
+    /**
+     * Rehashes the index into a file of twice the capacity and moves it over the current one, so the
+     * index file on disk is always complete.
+     */
+    private void resize() {
+        if (capacity == MAX_CAPACITY) {
+            throw new IllegalStateException("Hash table is full");
+        }
+        MappedByteBuffer oldIndex = index;
+        int oldCapacity = capacity;
+        Path newFile = indexFile.resolveSibling(indexFile.getFileName() + ".resize");
+        try {
+            Files.deleteIfExists(newFile);
+            setCapacity(capacity << 1);
+            MappedByteBuffer newIndex = map(newFile, indexFileSize(capacity));
+            writeHeader(newIndex);
+            for (int i = 0; i < oldCapacity; i++) {
+                long address = address(oldIndex, i);
+                if (address != EMPTY) {
+                    int hash = hash(oldIndex, i);
+                    int slot = hash & mask;
+                    while (address(newIndex, slot) != EMPTY) {
+                        slot = (slot + 1) & mask;
+                    }
+                    setSlot(newIndex, slot, address, hash);
+                }
+            }
+            // the new index must never point at records that are not yet on disk
+            forceData();
+            newIndex.force();
+            Files.move(newFile, indexFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            index = newIndex;
+        } catch (IOException e) {
+            setCapacity(oldCapacity);
+            throw new UncheckedIOException(e);
+        }
+        DirectBuffers.release(oldIndex);
+    }
+
+    private class KeyIterator extends SlotIterator implements Iterator<K> {
+        @Override
+        public K next() {
+            return readKey(address(index, nextSlot()));
+        }
+    }
+
+    private class EntryIterator extends SlotIterator implements Iterator<Pair<K, V>> {
+        @Override
+        public Pair<K, V> next() {
+            long address = address(index, nextSlot());
+            return Pair.of(readKey(address), readValue(address));
+        }
+    }
+
+    /**
+     * Walks the index starting just after an empty slot. No cluster can wrap around past that slot, so
+     * the backward shift done by {@link #remove()} only ever moves entries that have not been visited
+     * yet into the slot that was just removed.
+     */
+    private abstract class SlotIterator {
+        int start;
+        int steps;
+        int remaining;
+        int lastReturned;
+        int expectedModCount;
+
+        public SlotIterator() {
+            checkOpen();
+            start = 0;
+            while (size > 0 && address(index, start) != EMPTY) {
+                start++;
+            }
+            steps = 0;
+            remaining = size;
+            lastReturned = -1;
+            expectedModCount = modificationCount;
+        }
+
+        public boolean hasNext() {
+            return remaining > 0;
+        }
+
+        public int nextSlot() {
+            checkForModification();
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            int slot = (start + steps) & mask;
+            while (address(index, slot) == EMPTY) {
+                steps++;
+                slot = (start + steps) & mask;
+            }
+            steps++;
+            remaining--;
+            lastReturned = slot;
+            return slot;
+        }
+
+        public void remove() {
+            checkOpen();
+            checkForModification();
+            if (lastReturned == -1) {
+                throw new IllegalStateException();
+            }
+            removeAt(lastReturned);
+            // the slot we just emptied may now hold the next unvisited entry
+            steps--;
+            lastReturned = -1;
+            expectedModCount = modificationCount;
+        }
+
+        private void checkForModification() {
+            if (expectedModCount != modificationCount) {
+                throw new ConcurrentModificationException();
+            }
+        }
+    }
+}
@@ -0,0 +1,397 @@
+package lock14.datastructures.impl;
+
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.ObjIntConsumer;
+import lock14.datastructures.Map;
+import lock14.datastructures.Pair;
+import lock14.datastructures.Set;
+
+/**
+ * A hash map from object keys to {@code int} values that keeps its values in a primitive array, so
+ * counters never box and no entry allocates a node.
+ * <p>
+ * The table uses linear probing over a power of two sized array with null marking an empty slot, so
+ * null keys are not permitted. Lookups of absent keys return {@code 0}; use
+ * {@link #containsKey(Object)} or {@link #getOrDefault(Object, int)} to tell the two cases apart.
+ */
+public class ObjectIntHashTable<K> {
+    private static final int DEFAULT_SIZE = 16;
+    private static final double MAX_LOAD_FACTOR = 0.75;
+
+    private Object[] keys;
+    private int[] values;
+    private int mask;
+    private int threshold;
+    private int size;
+    private int modificationCount;
+
+    public ObjectIntHashTable() {
+        this(DEFAULT_SIZE);
+    }
+
+    public ObjectIntHashTable(int expectedSize) {
+        if (expectedSize < 0) {
+            throw new IllegalArgumentException("Illegal size: " + expectedSize);
+        }
+        allocate(Hashing.tableSizeFor(expectedSize, MAX_LOAD_FACTOR));
+    }
+
+    public int get(Object key) {
+        return getOrDefault(key, 0);
+    }
+
+    public int getOrDefault(Object key, int defaultValue) {
+        int index = indexOf(key);
+        return index < 0 ? defaultValue : values[index];
+    }
+
+    public boolean containsKey(Object key) {
+        return indexOf(key) >= 0;
+    }
+
+    public boolean containsValue(int value) {
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != null && values[i] == value) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Associates the value with the key.
+     *
+     * @return the previous value associated with the key, or {@code 0} if there was none
+     */
+    public int put(K key, int value) {
+        int index = slotFor(key);
+        if (keys[index] != null) {
+            int result = values[index];
+            values[index] = value;
+            return result;
+        }
+        insertAt(index, key, value);
+        return 0;
+    }
+
+    /**
+     * Adds the increment to the value associated with the key, treating an absent key as being mapped
+     * to {@code 0}.
+     *
+     * @return the previous value associated with the key, or {@code 0} if there was none
+     */
+    public int addTo(K key, int increment) {
+        int index = slotFor(key);
+        if (keys[index] != null) {
+            int result = values[index];
+            values[index] += increment;
+            return result;
+        }
+        insertAt(index, key, increment);
+        return 0;
+    }
+
+    /**
+     * Removes the mapping for the key.
+     *
+     * @return the value that was associated with the key, or {@code 0} if there was none
+     */
+    public int remove(Object key) {
+        int index = indexOf(key);
+        if (index < 0) {
+            return 0;
+        }
+        int result = values[index];
+        removeAt(index);
+        return result;
+    }
+
+    public void clear() {
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = null;
+            values[i] = 0;
+        }
+        size = 0;
+        modificationCount++;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Calls the action once for every mapping in this table without boxing any value.
+     */
+    public void forEach(ObjIntConsumer<? super K> action) {
+        int expectedModCount = modificationCount;
+        for (int i = 0; i < keys.length && expectedModCount == modificationCount; i++) {
+            if (keys[i] != null) {
+                action.accept(keyAt(i), values[i]);
+            }
+        }
+        if (expectedModCount != modificationCount) {
+            throw new ConcurrentModificationException();
+        }
+    }
+
+    /**
+     * Returns a boxed {@link Map} view of this table. Changes to either are visible in the other.
+     */
+    public Map<K, Integer> asMap() {
+        return new AbstractMap<K, Integer>() {
+            private Set<Pair<K, Integer>> entrySet = new AbstractSet<Pair<K, Integer>>() {
+                @Override
+                public boolean contains(Object o) {
+                    if (!(o instanceof Pair)) {
+                        return false;
+                    }
+                    Pair<?, ?> entry = (Pair<?, ?>) o;
+                    int index = entry.first() == null ? -1 : indexOf(entry.first());
+                    return index >= 0 && entry.second() instanceof Integer
+                            && values[index] == (Integer) entry.second();
+                }
+
+                @Override
+                public void clear() {
+                    ObjectIntHashTable.this.clear();
+                }
+
+                @Override
+                public Iterator<Pair<K, Integer>> iterator() {
+                    return new EntryIterator();
+                }
+
+                @Override
+                public int size() {
+                    return ObjectIntHashTable.this.size();
+                }
+            };
+
+            @Override
+            public int size() {
+                return ObjectIntHashTable.this.size();
+            }
+
+            @Override
+            public boolean isEmpty() {
+                return ObjectIntHashTable.this.isEmpty();
+            }
+
+            @Override
+            public boolean containsKey(Object key) {
+                return key != null && ObjectIntHashTable.this.containsKey(key);
+            }
+
+            @Override
+            public boolean containsValue(Object value) {
+                return value instanceof Integer && ObjectIntHashTable.this.containsValue((Integer) value);
+            }
+
+            @Override
+            public Integer get(Object key) {
+                int index = key == null ? -1 : indexOf(key);
+                return index < 0 ? null : values[index];
+            }
+
+            @Override
+            public Integer put(K key, Integer value) {
+                int v = value;
+                int index = slotFor(key);
+                if (keys[index] != null) {
+                    int result = values[index];
+                    values[index] = v;
+                    return result;
+                }
+                insertAt(index, key, v);
+                return null;
+            }
+
+            @Override
+            public Integer remove(Object key) {
+                int index = key == null ? -1 : indexOf(key);
+                if (index < 0) {
+                    return null;
+                }
+                int result = values[index];
+                removeAt(index);
+                return result;
+            }
+
+            @Override
+            public void clear() {
+                ObjectIntHashTable.this.clear();
+            }
+
+            @Override
+            public Set<Pair<K, Integer>> entrySet() {
+                return entrySet;
+            }
+        };
+    }
+
+    private static int hash(Object key) {
+        // we want null pointer to be thrown if
+        // key is null
+        return Hashing.spread(key.hashCode());
+    }
+
+    private int indexOf(Object key) {
+        int index = hash(key) & mask;
+        Object k;
+        while ((k = keys[index]) != null) {
+            if (k.equals(key)) {
+                return index;
+            }
+            index = (index + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the slot holding the key, or the free slot where it would be inserted.
+     */
+    private int slotFor(Object key) {
+        int index = hash(key) & mask;
+        Object k;
+        while ((k = keys[index]) != null && !k.equals(key)) {
+            index = (index + 1) & mask;
+        }
+        return index;
+    }
+
+    private void insertAt(int index, K key, int value) {
+        keys[index] = key;
+        values[index] = value;
+        size++;
+        modificationCount++;
+        if (size > threshold) {
+            resize();
+        }
+    }
+
+    private void removeAt(int index) {
+        // close the gap by shifting back any later entry of the cluster that may legally live here
+        int last = index;
+        int current = index;
+        while (true) {
+            current = (current + 1) & mask;
+            Object key = keys[current];
+            if (key == null) {
+                break;
+            }
+            int home = hash(key) & mask;
+            if (last <= current ? (home <= last || home > current) : (home <= last && home > current)) {
+                keys[last] = key;
+                values[last] = values[current];
+                last = current;
+            }
+        }
+        keys[last] = null;
+        values[last] = 0;
+        size--;
+        modificationCount++;
+    }
+
+    private void allocate(int tableSize) {
+        keys = new Object[tableSize];
+        values = new int[tableSize];
+        mask = tableSize - 1;
+        threshold = (int) Math.min(tableSize * MAX_LOAD_FACTOR, tableSize - 1);
+    }
+
+    private void resize() {
+        if (keys.length == Hashing.MAX_TABLE_SIZE) {
+            throw new IllegalStateException("Hash table is full");
+        }
+        Object[] oldKeys = keys;
+        int[] oldValues = values;
+        allocate(keys.length << 1);
+        for (int i = 0; i < oldKeys.length; i++) {
+            Object key = oldKeys[i];
+            if (key != null) {
+                int index = hash(key) & mask;
+                while (keys[index] != null) {
+                    index = (index + 1) & mask;
+                }
+                keys[index] = key;
+                values[index] = oldValues[i];
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private K keyAt(int index) {
+        return (K) keys[index];
+    }
+
+    /**
+     * Walks the table starting just after a free slot. No cluster can wrap around past that slot, so
+     * the entries moved by {@link #removeAt(int)} during {@link #remove()} are always ones that have
+     * not been visited yet.
+     */
+    private class EntryIterator implements Iterator<Pair<K, Integer>> {
+        int start;
+        int steps;
+        int remaining;
+        int lastReturned;
+        int expectedModCount;
+
+        EntryIterator() {
+            start = 0;
+            while (keys[start] != null) {
+                start++;
+            }
+            steps = 0;
+            remaining = size;
+            lastReturned = -1;
+            expectedModCount = modificationCount;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return remaining > 0;
+        }
+
+        @Override
+        public Pair<K, Integer> next() {
+            checkForModification();
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            int slot = (start + steps) & mask;
+            while (keys[slot] == null) {
+                steps++;
+                slot = (start + steps) & mask;
+            }
+            steps++;
+            remaining--;
+            lastReturned = slot;
+            return Pair.of(keyAt(slot), values[slot]);
+        }
+
+        @Override
+        public void remove() {
+            checkForModification();
+            if (lastReturned == -1) {
+                throw new IllegalStateException();
+            }
+            removeAt(lastReturned);
+            // the slot we just emptied may now hold the next unvisited entry
+            steps--;
+            lastReturned = -1;
+            expectedModCount = modificationCount;
+        }
+
+        private void checkForModification() {
+            if (expectedModCount != modificationCount) {
+                throw new ConcurrentModificationException();
+            }
+        }
+    }
+}
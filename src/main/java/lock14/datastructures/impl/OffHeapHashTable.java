@@ -0,0 +1,565 @@
+package lock14.datastructures.impl;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import lock14.datastructures.Pair;
+import lock14.datastructures.Set;
+
+/**
+ * A hash map that keeps its entries serialized in direct {@link ByteBuffer} slabs outside the Java
+ * heap, so even a very large table adds only a few arrays to the work of the garbage collector.
+ * <p>
+ * Every entry is appended to the current slab as a record of the key length, the value length, the
+ * key bytes and the value bytes. The index is an open addressing table on the heap that holds the
+ * hash and the slab address of each record, so lookups compare serialized keys without
+ * deserializing anything but the value that is returned. Replacing or removing an entry leaves its
+ * old record behind as garbage until {@link #compact()} is called.
+ * <p>
+ * The memory of the slabs is released by {@link #close()}; the table cannot be used afterwards.
+ * Neither null keys nor null values are permitted.
+ */
+public class OffHeapHashTable<K, V> extends AbstractMap<K, V> implements AutoCloseable {
+    private static final int DEFAULT_SIZE = 16;
+    private static final int DEFAULT_SLAB_SIZE = 1 << 20;
+    private static final double MAX_LOAD_FACTOR = 0.75;
+    // records start with the key length and the value length
+    private static final int HEADER_SIZE = 2 * Integer.BYTES;
+    private static final long EMPTY = -1L;
+
+    private final Serializer<K> keySerializer;
+    private final Serializer<V> valueSerializer;
+    private final int slabSize;
+
+    private ByteBuffer[] slabs;
+    private int slabCount;
+    private long[] addresses;
+    private int[] hashes;
+    private int mask;
+    private int threshold;
+    private int size;
+    private int modificationCount;
+    private long usedBytes;
+    private long liveBytes;
+    private ByteBuffer scratch;
+    private boolean closed;
+
+    private Set<Pair<K, V>> entrySet = new AbstractSet<Pair<K, V>>() {
+        @Override
+        public boolean contains(Object o) {
+            if (!(o instanceof Pair)) {
+                return false;
+            }
+            Pair<?, ?> entry = (Pair<?, ?>) o;
+            return Objects.equals(entry.second(), OffHeapHashTable.this.get(entry.first()));
+        }
+
+        @Override
+        public void clear() {
+            OffHeapHashTable.this.clear();
+        }
+
+        @Override
+        public Iterator<Pair<K, V>> iterator() {
+            return new EntryIterator();
+        }
+
+        @Override
+        public void remove(Object o) {
+            if (o instanceof Pair) {
+                Pair<?, ?> entry = (Pair<?, ?>) o;
+                OffHeapHashTable.this.remove(entry.first());
+            }
+        }
+
+        @Override
+        public int size() {
+            return OffHeapHashTable.this.size();
+        }
+    };
+
+    private Set<K> keySet = new AbstractSet<K>() {
+        @Override
+        public boolean contains(Object o) {
+            return containsKey(o);
+        }
+
+        @Override
+        public void clear() {
+            OffHeapHashTable.this.clear();
+        }
+
+        @Override
+        public Iterator<K> iterator() {
+            return new KeyIterator();
+        }
+
+        @Override
+        public void remove(Object key) {
+            OffHeapHashTable.this.remove(key);
+        }
+
+        @Override
+        public int size() {
+            return OffHeapHashTable.this.size();
+        }
+    };
+
+    public OffHeapHashTable(Serializer<K> keySerializer, Serializer<V> valueSerializer) {
+        this(keySerializer, valueSerializer, DEFAULT_SIZE, DEFAULT_SLAB_SIZE);
+    }
+
+    /**
+     * Creates a table sized for the expected number of entries that allocates off-heap memory in slabs
+     * of the given number of bytes. Records larger than a slab get a slab of their own.
+     */
+    public OffHeapHashTable(Serializer<K> keySerializer, Serializer<V> valueSerializer, int expectedSize,
+                            int slabSize) {
+        if (expectedSize < 0) {
+            throw new IllegalArgumentException("Illegal size: " + expectedSize);
+        }
+        if (slabSize <= 0) {
+            throw new IllegalArgumentException("Illegal slab size: " + slabSize);
+        }
+        this.keySerializer = Objects.requireNonNull(keySerializer);
+        this.valueSerializer = Objects.requireNonNull(valueSerializer);
+        this.slabSize = slabSize;
+        this.slabs = new ByteBuffer[4];
+        allocate(Hashing.tableSizeFor(expectedSize, MAX_LOAD_FACTOR));
+    }
+
+    @Override
+    public V put(K key, V value) {
+        checkOpen();
+        if (value == null) {
+            throw new NullPointerException();
+        }
+        ByteBuffer keyBytes = serialize(key);
+        int hash = Hashing.spread(keyBytes);
+        int index = indexOf(hash, keyBytes);
+        if (index >= 0) {
+            V result = readValue(addresses[index]);
+            liveBytes -= recordSize(addresses[index]);
+            addresses[index] = append(keyBytes, value);
+            return result;
+        }
+        long address = append(keyBytes, value);
+        index = hash & mask;
+        while (addresses[index] != EMPTY) {
+            index = (index + 1) & mask;
+        }
+        addresses[index] = address;
+        hashes[index] = hash;
+        size++;
+        modificationCount++;
+        if (size > threshold) {
+            resize();
+        }
+        return null;
+    }
+
+    @Override
+    public V get(Object key) {
+        checkOpen();
+        int index = indexOf(key);
+        return index < 0 ? null : readValue(addresses[index]);
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        checkOpen();
+        return indexOf(key) >= 0;
+    }
+
+    @Override
+    public boolean containsValue(Object value) {
+        checkOpen();
+        if (value == null) {
+            throw new NullPointerException();
+        }
+        for (long address : addresses) {
+            if (address != EMPTY && readValue(address).equals(value)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public V remove(Object key) {
+        checkOpen();
+        int index = indexOf(key);
+        if (index < 0) {
+            return null;
+        }
+        V result = readValue(addresses[index]);
+        liveBytes -= recordSize(addresses[index]);
+        removeAt(index);
+        return result;
+    }
+
+    @Override
+    public void clear() {
+        checkOpen();
+        releaseSlabs();
+        Arrays.fill(addresses, EMPTY);
+        size = 0;
+        usedBytes = 0;
+        liveBytes = 0;
+        modificationCount++;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public Set<K> keySet() {
+        return keySet;
+    }
+
+    @Override
+    public Set<Pair<K, V>> entrySet() {
+        return entrySet;
+    }
+
+    /**
+     * Copies the live records into fresh slabs and releases the old ones, reclaiming the space of every
+     * replaced or removed entry.
+     */
+    public void compact() {
+        checkOpen();
+        ByteBuffer[] oldSlabs = slabs;
+        int oldSlabCount = slabCount;
+        slabs = new ByteBuffer[Math.max(oldSlabCount, 4)];
+        slabCount = 0;
+        usedBytes = 0;
+        for (int i = 0; i < addresses.length; i++) {
+            long address = addresses[i];
+            if (address != EMPTY) {
+                ByteBuffer record = oldSlabs[slab(address)].duplicate();
+                int offset = offset(address);
+                record.limit(offset + recordSize(oldSlabs, address));
+                record.position(offset);
+                addresses[i] = reserve(record.remaining());
+                slabs[slabCount - 1].put(record);
+            }
+        }
+        for (int i = 0; i < oldSlabCount; i++) {
+            DirectBuffers.release(oldSlabs[i]);
+        }
+    }
+
+    /**
+     * Returns the number of off-heap bytes allocated for slabs.
+     */
+    public long offHeapBytes() {
+        long bytes = 0;
+        for (int i = 0; i < slabCount; i++) {
+            bytes += slabs[i].capacity();
+        }
+        return bytes;
+    }
+
+    /**
+     * Returns the number of slab bytes written so far, including the records of replaced and removed
+     * entries.
+     */
+    public long usedBytes() {
+        return usedBytes;
+    }
+
+    /**
+     * Returns the number of slab bytes taken by the records of the current entries.
+     */
+    public long liveBytes() {
+        return liveBytes;
+    }
+
+    /**
+     * Returns the number of on-heap bytes taken by the index arrays.
+     */
+    public long indexBytes() {
+        return (long) addresses.length * (Long.BYTES + Integer.BYTES);
+    }
+
+    /**
+     * Releases the off-heap memory of this table. Any further use of the table throws an
+     * {@link IllegalStateException}.
+     */
+    @Override
+    public void close() {
+        if (!closed) {
+            closed = true;
+            releaseSlabs();
+            size = 0;
+            modificationCount++;
+        }
+    }
+
+    private void checkOpen() {
+        if (closed) {
+            throw new IllegalStateException("Table is closed");
+        }
+    }
+
+    /**
+     * Serializes the key into a scratch buffer that is reused by the next call.
+     */
+    @SuppressWarnings("unchecked")
+    private ByteBuffer serialize(Object key) {
+        // we want null pointer to be thrown if
+        // key is null
+        Objects.requireNonNull(key);
+        K k = (K) key;
+        int length = keySerializer.size(k);
+        if (scratch == null || scratch.capacity() < length) {
+            scratch = ByteBuffer.allocate(Math.max(length, scratch == null ? 64 : 2 * scratch.capacity()));
+        }
+        scratch.clear();
+        keySerializer.write(k, scratch);
+        scratch.flip();
+        return scratch;
+    }
+
+    private int indexOf(Object key) {
+        ByteBuffer keyBytes = serialize(key);
+        return indexOf(Hashing.spread(keyBytes), keyBytes);
+    }
+
+    private int indexOf(int hash, ByteBuffer keyBytes) {
+        int index = hash & mask;
+        long address;
+        while ((address = addresses[index]) != EMPTY) {
+            if (hashes[index] == hash && keyBytes(address).equals(keyBytes)) {
+                return index;
+            }
+            index = (index + 1) & mask;
+        }
+        return -1;
+    }
+
+    private static int slab(long address) {
+        return (int) (address >>> 32);
+    }
+
+    private static int offset(long address) {
+        return (int) address;
+    }
+
+    private int recordSize(long address) {
+        return recordSize(slabs, address);
+    }
+
+    private static int recordSize(ByteBuffer[] slabs, long address) {
+        ByteBuffer slab = slabs[slab(address)];
+        int offset = offset(address);
+        return HEADER_SIZE + slab.getInt(offset) + slab.getInt(offset + Integer.BYTES);
+    }
+
+    private ByteBuffer keyBytes(long address) {
+        ByteBuffer slab = slabs[slab(address)];
+        int offset = offset(address);
+        ByteBuffer bytes = slab.asReadOnlyBuffer();
+        bytes.limit(offset + HEADER_SIZE + slab.getInt(offset));
+        bytes.position(offset + HEADER_SIZE);
+        return bytes;
+    }
+
+    private ByteBuffer valueBytes(long address) {
+        ByteBuffer slab = slabs[slab(address)];
+        int offset = offset(address);
+        int start = offset + HEADER_SIZE + slab.getInt(offset);
+        ByteBuffer bytes = slab.asReadOnlyBuffer();
+        bytes.limit(start + slab.getInt(offset + Integer.BYTES));
+        bytes.position(start);
+        return bytes;
+    }
+
+    private K readKey(long address) {
+        return keySerializer.read(keyBytes(address));
+    }
+
+    private V readValue(long address) {
+        return valueSerializer.read(valueBytes(address));
+    }
+
+    /**
+     * Writes a record for the serialized key and the value and returns its address.
+     */
+    private long append(ByteBuffer keyBytes, V value) {
+        int keyLength = keyBytes.remaining();
+        int valueLength = valueSerializer.size(value);
+        long address = reserve(HEADER_SIZE + keyLength + valueLength);
+        ByteBuffer slab = slabs[slabCount - 1];
+        int start = slab.position();
+        slab.putInt(keyLength);
+        slab.putInt(valueLength);
+        slab.put(keyBytes.duplicate());
+        valueSerializer.write(value, slab);
+        if (slab.position() - start != HEADER_SIZE + keyLength + valueLength) {
+            throw new IllegalStateException("Serializer wrote a different number of bytes than it reported");
+        }
+        liveBytes += slab.position() - start;
+        return address;
+    }
+
+    /**
+     * Makes room for a record of the given size at the end of the last slab and returns its address.
+     */
+    private long reserve(int recordSize) {
+        if (slabCount == 0 || slabs[slabCount - 1].remaining() < recordSize) {
+            if (slabCount == slabs.length) {
+                slabs = Arrays.copyOf(slabs, slabs.length + slabs.length / 2 + 1);
+            }
+            slabs[slabCount++] = ByteBuffer.allocateDirect(Math.max(slabSize, recordSize));
+        }
+        usedBytes += recordSize;
+        return ((long) (slabCount - 1) << 32) | slabs[slabCount - 1].position();
+    }
+
+    private void releaseSlabs() {
+        for (int i = 0; i < slabCount; i++) {
+            DirectBuffers.release(slabs[i]);
+            slabs[i] = null;
+        }
+        slabCount = 0;
+    }
+
+    private void removeAt(int index) {
+        // close the gap by shifting back any later entry of the cluster that may legally live here
+        int last = index;
+        int current = index;
+        while (true) {
+            current = (current + 1) & mask;
+            if (addresses[current] == EMPTY) {
+                break;
+            }
+            int home = hashes[current] & mask;
+            if (last <= current ? (home <= last || home > current) : (home <= last && home > current)) {
+                addresses[last] = addresses[current];
+                hashes[last] = hashes[current];
+                last = current;
+            }
+        }
+        addresses[last] = EMPTY;
+        size--;
+        modificationCount++;
+    }
+
+    private void allocate(int tableSize) {
+        addresses = new long[tableSize];
+        Arrays.fill(addresses, EMPTY);
+        hashes = new int[tableSize];
+        mask = tableSize - 1;
+        threshold = (int) Math.min(tableSize * MAX_LOAD_FACTOR, tableSize - 1);
+    }
+
+    private void resize() {
+        if (addresses.length == Hashing.MAX_TABLE_SIZE) {
+            throw new IllegalStateException("Hash table is full");
+        }
+        long[] oldAddresses = addresses;
+        int[] oldHashes = hashes;
+        allocate(addresses.length << 1);
+        // the index keeps the hashes, so growing it never has to touch the slabs
+        for (int i = 0; i < oldAddresses.length; i++) {
+            if (oldAddresses[i] != EMPTY) {
+                int index = oldHashes[i] & mask;
+                while (addresses[index] != EMPTY) {
+                    index = (index + 1) & mask;
+                }
+                addresses[index] = oldAddresses[i];
+                hashes[index] = oldHashes[i];
+            }
+        }
+    }
+
+    private class KeyIterator extends SlotIterator implements Iterator<K> {
+        @Override
+        public K next() {
+            return readKey(addresses[nextSlot()]);
+        }
+    }
+
+    private class EntryIterator extends SlotIterator implements Iterator<Pair<K, V>> {
+        @Override
+        public Pair<K, V> next() {
+            long address = addresses[nextSlot()];
+            return Pair.of(readKey(address), readValue(address));
+        }
+    }
+
+    /**
+     * Walks the index starting just after an empty slot. No cluster can wrap around past that slot, so
+     * the backward shift done by {@link #remove()} only ever moves entries that have not been visited
+     * yet into the slot that was just removed.
+     */
+    private abstract class SlotIterator {
+        int start;
+        int steps;
+        int remaining;
+        int lastReturned;
+        int expectedModCount;
+
+        public SlotIterator() {
+            checkOpen();
+            start = 0;
+            while (size > 0 && addresses[start] != EMPTY) {
+                start++;
+            }
+            steps = 0;
+            remaining = size;
+            lastReturned = -1;
+            expectedModCount = modificationCount;
+        }
+
+        public boolean hasNext() {
+            return remaining > 0;
+        }
+
+        public int nextSlot() {
+            checkForModification();
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            int slot = (start + steps) & mask;
+            while (addresses[slot] == EMPTY) {
+                steps++;
+                slot = (start + steps) & mask;
+            }
+            steps++;
+            remaining--;
+            lastReturned = slot;
+            return slot;
+        }
+
+        public void remove() {
+            checkForModification();
+            if (lastReturned == -1) {
+                throw new IllegalStateException();
+            }
+            liveBytes -= recordSize(addresses[lastReturned]);
+            removeAt(lastReturned);
+            // the slot we just emptied may now hold the next unvisited entry
+            steps--;
+            lastReturned = -1;
+            expectedModCount = modificationCount;
+        }
+
+        private void checkForModification() {
+            if (expectedModCount != modificationCount) {
+                throw new ConcurrentModificationException();
+            }
+        }
+    }
+}
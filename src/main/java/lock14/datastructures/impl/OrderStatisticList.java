@@ -0,0 +1,410 @@
+package lock14.datastructures.impl;
+
+import java.util.Comparator;
+import java.util.ConcurrentModificationException;
+import java.util.ListIterator;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import lock14.datastructures.Collection;
+import lock14.datastructures.Pair;
+
+/**
+ * A list stored in a weight balanced binary tree ordered by position, so that getting, inserting
+ * and removing at any index take O(log n) time.
+ * <p>
+ * Every node records the size of its subtree, and the weights (size plus one) of two siblings never
+ * differ by more than a factor of about 2.4. All rebalancing goes through a single join operation,
+ * which joins two trees of any size around a middle node in time proportional to the difference of
+ * their heights. Insertion and removal rejoin the path they walked, and {@link #split(int)} and
+ * {@link #concat(OrderStatisticList)} cut or join whole trees in O(log n) time.
+ */
+public class OrderStatisticList<E> extends AbstractList<E> {
+    // siblings must each carry at least this percentage of their parent's weight
+    private static final int ALPHA_PERCENT = 29;
+
+    private Node<E> root;
+    private int modificationCount;
+
+    public OrderStatisticList() {
+        this((Collection<E>) null);
+    }
+
+    public OrderStatisticList(Collection<E> c) {
+        root = null;
+        modificationCount = 0;
+        Optional.ofNullable(c).ifPresent(this::addAll);
+    }
+
+    private OrderStatisticList(Node<E> root) {
+        this.root = root;
+        this.modificationCount = 0;
+    }
+
+    @Override
+    public void add(int index, E element) {
+        if (index != size()) {
+            check(index);
+        }
+        root = insert(root, index, new Node<>(element));
+        modificationCount++;
+    }
+
+    /**
+     * Appends all the elements by building a balanced tree of them and joining it to this one.
+     */
+    @Override
+    public void addAll(Collection<? extends E> c) {
+        Object[] elements = new Object[c.size()];
+        int i = 0;
+        for (E e : c) {
+            elements[i++] = e;
+        }
+        root = concat(root, build(elements, 0, elements.length));
+        modificationCount++;
+    }
+
+    @Override
+    public void clear() {
+        root = null;
+        modificationCount++;
+    }
+
+    /**
+     * Appends the elements of the other list, leaving it empty.
+     */
+    public void concat(OrderStatisticList<E> other) {
+        if (other == this) {
+            throw new IllegalArgumentException("Cannot concatenate a list with itself");
+        }
+        root = concat(root, other.root);
+        other.root = null;
+        modificationCount++;
+        other.modificationCount++;
+    }
+
+    @Override
+    public E get(int index) {
+        check(index);
+        return nodeAt(index).data;
+    }
+
+    @Override
+    public ListIterator<E> listIterator() {
+        return listIterator(0);
+    }
+
+    @Override
+    public ListIterator<E> listIterator(int index) {
+        if (index != size()) {
+            check(index);
+        }
+        return new OrderStatisticListIterator(index);
+    }
+
+    /**
+     * Returns the number of elements less than the given one, which is the index it would be inserted
+     * at to keep the list sorted. The list must be sorted by the comparator.
+     */
+    public int rank(E element, Comparator<? super E> comparator) {
+        int rank = 0;
+        Node<E> cur = root;
+        while (cur != null) {
+            if (comparator.compare(cur.data, element) < 0) {
+                rank += size(cur.left) + 1;
+                cur = cur.right;
+            } else {
+                cur = cur.left;
+            }
+        }
+        return rank;
+    }
+
+    @Override
+    public void remove(int index) {
+        check(index);
+        root = remove(root, index);
+        modificationCount++;
+    }
+
+    @Override
+    public void set(int index, E element) {
+        check(index);
+        nodeAt(index).data = element;
+    }
+
+    @Override
+    public int size() {
+        return size(root);
+    }
+
+    /**
+     * Removes the elements from the index onwards and returns them as a new list.
+     */
+    public OrderStatisticList<E> split(int index) {
+        if (index != size()) {
+            check(index);
+        }
+        Pair<Node<E>, Node<E>> parts = split(root, index);
+        root = parts.first();
+        modificationCount++;
+        return new OrderStatisticList<>(parts.second());
+    }
+
+    private Node<E> nodeAt(int index) {
+        Node<E> cur = root;
+        while (true) {
+            int leftSize = size(cur.left);
+            if (index < leftSize) {
+                cur = cur.left;
+            } else if (index > leftSize) {
+                index -= leftSize + 1;
+                cur = cur.right;
+            } else {
+                return cur;
+            }
+        }
+    }
+
+    private static <E> Node<E> insert(Node<E> tree, int index, Node<E> node) {
+        if (tree == null) {
+            return join(null, node, null);
+        }
+        int leftSize = size(tree.left);
+        if (index <= leftSize) {
+            return join(insert(tree.left, index, node), tree, tree.right);
+        }
+        return join(tree.left, tree, insert(tree.right, index - leftSize - 1, node));
+    }
+
+    private static <E> Node<E> remove(Node<E> tree, int index) {
+        int leftSize = size(tree.left);
+        if (index < leftSize) {
+            return join(remove(tree.left, index), tree, tree.right);
+        }
+        if (index > leftSize) {
+            return join(tree.left, tree, remove(tree.right, index - leftSize - 1));
+        }
+        return concat(tree.left, tree.right);
+    }
+
+    private static <E> Pair<Node<E>, Node<E>> split(Node<E> tree, int index) {
+        if (tree == null) {
+            return Pair.of(null, null);
+        }
+        int leftSize = size(tree.left);
+        if (index <= leftSize) {
+            Pair<Node<E>, Node<E>> parts = split(tree.left, index);
+            return Pair.of(parts.first(), join(parts.second(), tree, tree.right));
+        }
+        Pair<Node<E>, Node<E>> parts = split(tree.right, index - leftSize - 1);
+        return Pair.of(join(tree.left, tree, parts.first()), parts.second());
+    }
+
+    private static <E> Node<E> concat(Node<E> left, Node<E> right) {
+        if (left == null) {
+            return right;
+        }
+        if (right == null) {
+            return left;
+        }
+        Node<E> last = left;
+        while (last.right != null) {
+            last = last.right;
+        }
+        return join(remove(left, left.size - 1), last, right);
+    }
+
+    private static <E> Node<E> build(Object[] elements, int from, int to) {
+        if (from == to) {
+            return null;
+        }
+        int mid = (from + to) >>> 1;
+        @SuppressWarnings("unchecked")
+        Node<E> node = new Node<>((E) elements[mid]);
+        return link(build(elements, from, mid), node, build(elements, mid + 1, to));
+    }
+
+    /**
+     * Returns a balanced tree of the left tree, the middle node and the right tree, reusing the middle
+     * node.
+     */
+    private static <E> Node<E> join(Node<E> left, Node<E> middle, Node<E> right) {
+        if (heavier(left, right)) {
+            return joinRight(left, middle, right);
+        }
+        if (heavier(right, left)) {
+            return joinLeft(left, middle, right);
+        }
+        return link(left, middle, right);
+    }
+
+    private static <E> Node<E> joinRight(Node<E> left, Node<E> middle, Node<E> right) {
+        if (!heavier(left, right)) {
+            return link(left, middle, right);
+        }
+        Node<E> joined = joinRight(left.right, middle, right);
+        if (balanced(weight(left.left), weight(joined))) {
+            return link(left.left, left, joined);
+        }
+        if (balanced(weight(left.left), weight(joined.left))
+                && balanced(weight(left.left) + weight(joined.left), weight(joined.right))) {
+            return rotateLeft(link(left.left, left, joined));
+        }
+        return rotateLeft(link(left.left, left, rotateRight(joined)));
+    }
+
+    private static <E> Node<E> joinLeft(Node<E> left, Node<E> middle, Node<E> right) {
+        if (!heavier(right, left)) {
+            return link(left, middle, right);
+        }
+        Node<E> joined = joinLeft(left, middle, right.left);
+        if (balanced(weight(joined), weight(right.right))) {
+            return link(joined, right, right.right);
+        }
+        if (balanced(weight(joined.right), weight(right.right))
+                && balanced(weight(joined.left), weight(joined.right) + weight(right.right))) {
+            return rotateRight(link(joined, right, right.right));
+        }
+        return rotateRight(link(rotateLeft(joined), right, right.right));
+    }
+
+    private static <E> Node<E> rotateLeft(Node<E> node) {
+        Node<E> right = node.right;
+        link(node.left, node, right.left);
+        return link(node, right, right.right);
+    }
+
+    private static <E> Node<E> rotateRight(Node<E> node) {
+        Node<E> left = node.left;
+        link(left.right, node, node.right);
+        return link(left.left, left, node);
+    }
+
+    private static <E> Node<E> link(Node<E> left, Node<E> node, Node<E> right) {
+        node.left = left;
+        node.right = right;
+        node.size = size(left) + size(right) + 1;
+        return node;
+    }
+
+    /**
+     * Returns true if the first tree is too heavy to be a sibling of the second.
+     */
+    private static boolean heavier(Node<?> a, Node<?> b) {
+        return 100L * weight(b) < (long) ALPHA_PERCENT * (weight(a) + weight(b));
+    }
+
+    private static boolean balanced(long a, long b) {
+        long total = (long) ALPHA_PERCENT * (a + b);
+        return 100L * a >= total && 100L * b >= total;
+    }
+
+    private static long weight(Node<?> node) {
+        return size(node) + 1L;
+    }
+
+    private static int size(Node<?> node) {
+        return node == null ? 0 : node.size;
+    }
+
+    private class OrderStatisticListIterator implements ListIterator<E> {
+        int lastReturned;
+        int index;
+        int expectedModCount;
+
+        OrderStatisticListIterator(int index) {
+            this.lastReturned = -1;
+            this.index = index;
+            this.expectedModCount = modificationCount;
+        }
+
+        @Override
+        public void add(E element) {
+            checkForModification();
+            OrderStatisticList.this.add(index++, element);
+            lastReturned = -1;
+            expectedModCount = modificationCount;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return index < size();
+        }
+
+        @Override
+        public boolean hasPrevious() {
+            return index > 0;
+        }
+
+        @Override
+        public E next() {
+            checkForModification();
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            lastReturned = index;
+            return nodeAt(index++).data;
+        }
+
+        @Override
+        public int nextIndex() {
+            return index;
+        }
+
+        @Override
+        public E previous() {
+            checkForModification();
+            if (!hasPrevious()) {
+                throw new NoSuchElementException();
+            }
+            lastReturned = --index;
+            return nodeAt(index).data;
+        }
+
+        @Override
+        public int previousIndex() {
+            return index - 1;
+        }
+
+        @Override
+        public void remove() {
+            checkForModification();
+            if (lastReturned == -1) {
+                throw new IllegalStateException();
+            }
+            OrderStatisticList.this.remove(lastReturned);
+            if (lastReturned < index) {
+                index--;
+            }
+            lastReturned = -1;
+            expectedModCount = modificationCount;
+        }
+
+        @Override
+        public void set(E element) {
+            checkForModification();
+            if (lastReturned == -1) {
+                throw new IllegalStateException();
+            }
+            nodeAt(lastReturned).data = element;
+        }
+
+        private void checkForModification() {
+            if (expectedModCount != modificationCount) {
+                throw new ConcurrentModificationException();
+            }
+        }
+    }
+
+    private static final class Node<E> {
+        E data;
+        Node<E> left;
+        Node<E> right;
+        int size;
+
+        Node(E data) {
+            this.data = data;
+            this.size = 1;
+        }
+    }
+}
@@ -0,0 +1,216 @@
+package lock14.datastructures.impl;
+
+import java.util.Comparator;
+import java.util.NoSuchElementException;
+import lock14.datastructures.Collection;
+
+/**
+ * A pairing heap: a heap ordered tree in which every node keeps its children in a linked list.
+ * Inserting, melding and decreasing a key link two trees in O(1) time; dequeueing merges the
+ * children of the root in two passes, in O(log n) amortized time. Pairing heaps have small constant
+ * factors and are usually the fastest meldable heap in practice.
+ * <p>
+ * {@link #meld(PairingHeap)} moves every element of another heap into this one in O(1) time, and
+ * the handles of the moved elements then belong to this heap. Both heaps must order their elements
+ * the same way.
+ */
+public class PairingHeap<E> extends AbstractMeldableHeap<E> {
+    private final Comparator<? super E> comparator;
+    private Node<E> root;
+
+    @SuppressWarnings("unchecked")
+    public PairingHeap() {
+        this((Comparator<? super E>) Comparator.naturalOrder());
+    }
+
+    public PairingHeap(Comparator<? super E> comparator) {
+        this.comparator = comparator;
+        this.root = null;
+    }
+
+    public PairingHeap(Collection<E> c) {
+        this();
+        if (c != null) {
+            addAll(c);
+        }
+    }
+
+    @Override
+    public void clear() {
+        super.clear();
+        root = null;
+    }
+
+    @Override
+    public void decreaseKey(Handle<E> handle, E element) {
+        Node<E> node = node(handle);
+        if (comparator.compare(element, node.element) > 0) {
+            throw new IllegalArgumentException("New element is greater than the current one");
+        }
+        node.element = element;
+        if (node != root) {
+            detach(node);
+            root = link(root, node);
+        }
+    }
+
+    @Override
+    public E dequeue() {
+        Node<E> node = root;
+        if (node == null) {
+            throw new NoSuchElementException();
+        }
+        root = mergePairs(node.child);
+        node.child = null;
+        discard(node);
+        return node.element;
+    }
+
+    @Override
+    public void increaseKey(Handle<E> handle, E element) {
+        Node<E> node = node(handle);
+        if (comparator.compare(element, node.element) < 0) {
+            throw new IllegalArgumentException("New element is less than the current one");
+        }
+        cut(node);
+        node.element = element;
+        root = link(root, node);
+    }
+
+    @Override
+    public Handle<E> insert(E element) {
+        Node<E> node = new Node<>(element);
+        adopt(node);
+        root = link(root, node);
+        return node;
+    }
+
+    /**
+     * Moves all the elements of the other heap into this one, leaving the other heap empty.
+     */
+    public void meld(PairingHeap<E> other) {
+        if (other == this) {
+            throw new IllegalArgumentException("Cannot meld a heap with itself");
+        }
+        if (other.root == null) {
+            return;
+        }
+        root = link(root, other.root);
+        other.root = null;
+        takeNodes(other);
+    }
+
+    @Override
+    public E peek() {
+        if (root == null) {
+            throw new NoSuchElementException();
+        }
+        return root.element;
+    }
+
+    @Override
+    public void remove(Handle<E> handle) {
+        Node<E> node = node(handle);
+        cut(node);
+        discard(node);
+    }
+
+    /**
+     * Takes the node out of the tree on its own, putting its children back in its place.
+     */
+    private void cut(Node<E> node) {
+        Node<E> children = mergePairs(node.child);
+        node.child = null;
+        if (node == root) {
+            root = children;
+        } else {
+            detach(node);
+            root = link(root, children);
+        }
+    }
+
+    /**
+     * Unlinks a node other than the root, together with its subtree, from its parent and siblings.
+     */
+    private static <E> void detach(Node<E> node) {
+        if (node.prev.child == node) {
+            node.prev.child = node.next;
+        } else {
+            node.prev.next = node.next;
+        }
+        if (node.next != null) {
+            node.next.prev = node.prev;
+        }
+        node.prev = null;
+        node.next = null;
+    }
+
+    /**
+     * Links two detached trees by making the one with the greater root the first child of the other,
+     * and returns the combined tree.
+     */
+    private Node<E> link(Node<E> a, Node<E> b) {
+        if (a == null) {
+            return b;
+        }
+        if (b == null) {
+            return a;
+        }
+        if (comparator.compare(b.element, a.element) < 0) {
+            Node<E> temp = a;
+            a = b;
+            b = temp;
+        }
+        b.prev = a;
+        b.next = a.child;
+        if (a.child != null) {
+            a.child.prev = b;
+        }
+        a.child = b;
+        a.prev = null;
+        a.next = null;
+        return a;
+    }
+
+    /**
+     * Merges a list of siblings into one tree by linking them in pairs from left to right, then linking
+     * the pairs from right to left.
+     */
+    private Node<E> mergePairs(Node<E> first) {
+        Node<E> pairs = null;
+        Node<E> cur = first;
+        while (cur != null) {
+            Node<E> a = cur;
+            Node<E> b = a.next;
+            cur = b == null ? null : b.next;
+            a.prev = null;
+            a.next = null;
+            if (b != null) {
+                b.prev = null;
+                b.next = null;
+            }
+            Node<E> linked = link(a, b);
+            linked.next = pairs;
+            pairs = linked;
+        }
+        Node<E> result = null;
+        while (pairs != null) {
+            Node<E> next = pairs.next;
+            pairs.next = null;
+            result = link(result, pairs);
+            pairs = next;
+        }
+        return result;
+    }
+
+    private static final class Node<E> extends RingNode<E> {
+        Node<E> child;
+        Node<E> next;
+        // the previous sibling, or the parent of a first child
+        Node<E> prev;
+
+        Node(E element) {
+            super(element);
+        }
+    }
+}
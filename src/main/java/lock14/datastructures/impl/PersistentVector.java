@@ -0,0 +1,637 @@
+package lock14.datastructures.impl;
+
+import java.util.Arrays;
+import java.util.ListIterator;
+import java.util.NoSuchElementException;
+import lock14.datastructures.Collection;
+import lock14.datastructures.RandomAccessList;
+
+/**
+ * An immutable list where every update returns a new version that shares most of its structure with
+ * the old one.
+ * <p>
+ * The elements are stored in a relaxed radix balanced tree of 32 way nodes with the last leaf kept
+ * aside as a tail. Lookups, {@link #with(int, Object)} and {@link #plus(Object)} take O(log32 n)
+ * time, and {@link #concat(PersistentVector)} and {@link #slice(int, int)} copy only the nodes
+ * along the edges they cut or join. Nodes whose children are not all full carry a table of
+ * cumulative sizes, so they can still be searched by index. Since a vector never changes once built
+ * it can be handed to other threads without copying or locking. The list mutators throw
+ * {@link UnsupportedOperationException}; use a {@link Builder} to add many elements at once.
+ */
+public final class PersistentVector<E> extends AbstractList<E> implements RandomAccessList<E> {
+    private static final int BITS = 5;
+    private static final int WIDTH = 1 << BITS;
+    // how many more nodes than the minimum a concatenation may leave on each level
+    private static final int EXTRAS = 2;
+    private static final Object[] EMPTY_ARRAY = new Object[0];
+    private static final Node EMPTY_NODE = new Node(EMPTY_ARRAY, null, 0);
+
+    private final int size;
+    private final int shift;
+    private final Node root;
+    private final Object[] tail;
+
+    public PersistentVector() {
+        this(0, BITS, EMPTY_NODE, EMPTY_ARRAY);
+    }
+
+    public PersistentVector(Collection<E> c) {
+        this(c == null ? new PersistentVector<>() : new Builder<E>().addAll(c).build());
+    }
+
+    private PersistentVector(PersistentVector<E> other) {
+        this(other.size, other.shift, other.root, other.tail);
+    }
+
+    private PersistentVector(int size, int shift, Node root, Object[] tail) {
+        // drop levels that have a single child
+        while (shift > BITS && root.children.length == 1) {
+            root = (Node) root.children[0];
+            shift -= BITS;
+        }
+        this.size = size;
+        this.shift = shift;
+        this.root = root;
+        this.tail = tail;
+    }
+
+    public static <E> Builder<E> builder() {
+        return new Builder<>();
+    }
+
+    /**
+     * Returns a builder that appends to this vector.
+     */
+    public Builder<E> toBuilder() {
+        return new Builder<>(this);
+    }
+
+    /**
+     * Returns a vector with the element appended.
+     */
+    public PersistentVector<E> plus(E element) {
+        if (tail.length < WIDTH) {
+            Object[] newTail = Arrays.copyOf(tail, tail.length + 1);
+            newTail[tail.length] = element;
+            return new PersistentVector<>(size + 1, shift, root, newTail);
+        }
+        PersistentVector<E> pushed = pushTail();
+        return new PersistentVector<>(size + 1, pushed.shift, pushed.root, new Object[]{element});
+    }
+
+    /**
+     * Returns a vector with the element at the index replaced.
+     */
+    public PersistentVector<E> with(int index, E element) {
+        check(index);
+        int tailOffset = size - tail.length;
+        if (index >= tailOffset) {
+            Object[] newTail = tail.clone();
+            newTail[index - tailOffset] = element;
+            return new PersistentVector<>(size, shift, root, newTail);
+        }
+        return new PersistentVector<>(size, shift, (Node) with(root, shift, index, element), tail);
+    }
+
+    /**
+     * Returns a vector holding the elements of this vector followed by those of the other.
+     */
+    public PersistentVector<E> concat(PersistentVector<? extends E> other) {
+        if (other.size == 0) {
+            return this;
+        }
+        @SuppressWarnings("unchecked")
+        PersistentVector<E> right = (PersistentVector<E>) other;
+        if (size == 0) {
+            return right;
+        }
+        if (right.root.size == 0) {
+            return concatTail(right.tail);
+        }
+        PersistentVector<E> left = pushTail();
+        Object[] nodes = concat(left.root, left.shift, right.root, right.shift);
+        int newShift = Math.max(left.shift, right.shift);
+        Node newRoot;
+        if (nodes.length == 1) {
+            newRoot = (Node) nodes[0];
+        } else {
+            newShift += BITS;
+            newRoot = node(nodes, newShift);
+        }
+        return new PersistentVector<>(size + right.size, newShift, newRoot, right.tail);
+    }
+
+    /**
+     * Appends the elements of a tail by topping up the tail of this vector, so that only full leaves
+     * are pushed into the tree, just as {@link #plus(Object)} would.
+     */
+    private PersistentVector<E> concatTail(Object[] elements) {
+        int room = WIDTH - tail.length;
+        if (elements.length <= room) {
+            Object[] newTail = Arrays.copyOf(tail, tail.length + elements.length);
+            System.arraycopy(elements, 0, newTail, tail.length, elements.length);
+            return new PersistentVector<>(size + elements.length, shift, root, newTail);
+        }
+        Object[] full = Arrays.copyOf(tail, WIDTH);
+        System.arraycopy(elements, 0, full, tail.length, room);
+        PersistentVector<E> pushed = new PersistentVector<E>(size + room, shift, root, full).pushTail();
+        return new PersistentVector<>(size + elements.length, pushed.shift, pushed.root,
+                                      Arrays.copyOfRange(elements, room, elements.length));
+    }
+
+    /**
+     * Returns a vector holding the elements from {@code fromIndex}, inclusive, to {@code toIndex},
+     * exclusive.
+     */
+    public PersistentVector<E> slice(int fromIndex, int toIndex) {
+        if (fromIndex < 0 || toIndex > size || fromIndex > toIndex) {
+            throw new IndexOutOfBoundsException("Range out of bounds: [" + fromIndex + ", " + toIndex + ")");
+        }
+        if (fromIndex == 0 && toIndex == size) {
+            return this;
+        }
+        if (fromIndex == toIndex) {
+            return new PersistentVector<>();
+        }
+        int tailOffset = size - tail.length;
+        if (fromIndex >= tailOffset) {
+            Object[] newTail = Arrays.copyOfRange(tail, fromIndex - tailOffset, toIndex - tailOffset);
+            return new PersistentVector<>(newTail.length, BITS, EMPTY_NODE, newTail);
+        }
+        Node newRoot = root;
+        Object[] newTail;
+        if (toIndex > tailOffset) {
+            newTail = Arrays.copyOf(tail, toIndex - tailOffset);
+        } else {
+            newTail = EMPTY_ARRAY;
+            newRoot = (Node) take(root, shift, toIndex);
+        }
+        if (fromIndex > 0) {
+            newRoot = (Node) drop(newRoot, shift, fromIndex);
+        }
+        return new PersistentVector<>(toIndex - fromIndex, shift, newRoot, newTail);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public E get(int index) {
+        check(index);
+        int tailOffset = size - tail.length;
+        if (index >= tailOffset) {
+            return (E) tail[index - tailOffset];
+        }
+        Object node = root;
+        for (int level = shift; level > 0; level -= BITS) {
+            Node n = (Node) node;
+            int child = childIndex(n, level, index);
+            index -= offset(n, level, child);
+            node = n.children[child];
+        }
+        return (E) ((Object[]) node)[index];
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public ListIterator<E> listIterator() {
+        return listIterator(0);
+    }
+
+    @Override
+    public ListIterator<E> listIterator(int index) {
+        if (index != size) {
+            check(index);
+        }
+        return new PersistentVectorIterator(index);
+    }
+
+    @Override
+    public void add(int index, E element) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void addAll(Collection<? extends E> c) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void clear() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void remove(int index) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void remove(Object o) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void removeAll(Collection<?> c) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void retainAll(Collection<?> c) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void set(int index, E element) {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Returns a vector with the same elements whose tail has been moved into the tree.
+     */
+    private PersistentVector<E> pushTail() {
+        if (tail.length == 0) {
+            return this;
+        }
+        Node newRoot = push(root, shift, tail);
+        int newShift = shift;
+        if (newRoot == null) {
+            newShift += BITS;
+            newRoot = node(new Object[]{root, path(shift, tail)}, newShift);
+        }
+        return new PersistentVector<>(size, newShift, newRoot, EMPTY_ARRAY);
+    }
+
+    /**
+     * Appends the leaf after the last leaf of the node, or returns null if the node is full.
+     */
+    private static Node push(Node node, int shift, Object[] leaf) {
+        int length = node.children.length;
+        if (shift > BITS && length > 0) {
+            Node child = push((Node) node.children[length - 1], shift - BITS, leaf);
+            if (child != null) {
+                Object[] children = node.children.clone();
+                children[length - 1] = child;
+                return node(children, shift);
+            }
+        }
+        if (length == WIDTH) {
+            return null;
+        }
+        Object[] children = Arrays.copyOf(node.children, length + 1);
+        children[length] = path(shift - BITS, leaf);
+        return node(children, shift);
+    }
+
+    private static Object path(int shift, Object[] leaf) {
+        return shift == 0 ? leaf : node(new Object[]{path(shift - BITS, leaf)}, shift);
+    }
+
+    private static Object with(Object node, int shift, int index, Object element) {
+        if (shift == 0) {
+            Object[] leaf = ((Object[]) node).clone();
+            leaf[index] = element;
+            return leaf;
+        }
+        Node n = (Node) node;
+        int child = childIndex(n, shift, index);
+        Object[] children = n.children.clone();
+        children[child] = with(children[child], shift - BITS, index - offset(n, shift, child), element);
+        return new Node(children, n.sizes, n.size);
+    }
+
+    /**
+     * Returns the first {@code count} elements of the subtree, which must hold at least one.
+     */
+    private static Object take(Object node, int shift, int count) {
+        if (shift == 0) {
+            Object[] leaf = (Object[]) node;
+            return count == leaf.length ? leaf : Arrays.copyOf(leaf, count);
+        }
+        Node n = (Node) node;
+        int child = childIndex(n, shift, count - 1);
+        Object[] children = Arrays.copyOf(n.children, child + 1);
+        children[child] = take(children[child], shift - BITS, count - offset(n, shift, child));
+        return node(children, shift);
+    }
+
+    /**
+     * Returns the subtree without its first {@code count} elements, which must leave at least one.
+     */
+    private static Object drop(Object node, int shift, int count) {
+        if (shift == 0) {
+            Object[] leaf = (Object[]) node;
+            return Arrays.copyOfRange(leaf, count, leaf.length);
+        }
+        Node n = (Node) node;
+        int child = childIndex(n, shift, count);
+        Object[] children = Arrays.copyOfRange(n.children, child, n.children.length);
+        children[0] = drop(children[0], shift - BITS, count - offset(n, shift, child));
+        return node(children, shift);
+    }
+
+    /**
+     * Joins two subtrees, returning one or two nodes at the height of the taller one.
+     */
+    private static Object[] concat(Object left, int leftShift, Object right, int rightShift) {
+        if (leftShift > rightShift) {
+            Node l = (Node) left;
+            Object[] middle = concat(l.children[l.children.length - 1], leftShift - BITS, right, rightShift);
+            return rebalance(l, middle, null, leftShift);
+        }
+        if (leftShift < rightShift) {
+            Node r = (Node) right;
+            Object[] middle = concat(left, leftShift, r.children[0], rightShift - BITS);
+            return rebalance(null, middle, r, rightShift);
+        }
+        if (leftShift == 0) {
+            return new Object[]{left, right};
+        }
+        Node l = (Node) left;
+        Node r = (Node) right;
+        Object[] middle = concat(l.children[l.children.length - 1], leftShift - BITS, r.children[0], rightShift - BITS);
+        return rebalance(l, middle, r, leftShift);
+    }
+
+    /**
+     * Puts the children of the left node but its last, the middle nodes and the children of the right
+     * node but its first under one or two new nodes, first moving slots between them so that there are
+     * at most {@link #EXTRAS} more of them than needed.
+     */
+    private static Object[] rebalance(Node left, Object[] middle, Node right, int shift) {
+        int leftLength = left == null ? 0 : left.children.length - 1;
+        int rightLength = right == null ? 0 : right.children.length - 1;
+        Object[] all = new Object[leftLength + middle.length + rightLength];
+        if (left != null) {
+            System.arraycopy(left.children, 0, all, 0, leftLength);
+        }
+        System.arraycopy(middle, 0, all, leftLength, middle.length);
+        if (right != null) {
+            System.arraycopy(right.children, 1, all, leftLength + middle.length, rightLength);
+        }
+        int childShift = shift - BITS;
+        int[] plan = new int[all.length];
+        int total = 0;
+        for (int i = 0; i < all.length; i++) {
+            plan[i] = slots(all[i], childShift).length;
+            total += plan[i];
+        }
+        int length = plan(plan, total);
+        Object[] balanced = all;
+        if (length < all.length) {
+            Object[] slots = new Object[total];
+            int position = 0;
+            for (Object node : all) {
+                Object[] s = slots(node, childShift);
+                System.arraycopy(s, 0, slots, position, s.length);
+                position += s.length;
+            }
+            balanced = new Object[length];
+            position = 0;
+            for (int i = 0; i < length; i++) {
+                Object[] s = Arrays.copyOfRange(slots, position, position + plan[i]);
+                balanced[i] = childShift == 0 ? s : node(s, childShift);
+                position += plan[i];
+            }
+        }
+        if (length <= WIDTH) {
+            return new Object[]{node(balanced, shift)};
+        }
+        return new Object[]{node(Arrays.copyOf(balanced, WIDTH), shift),
+                            node(Arrays.copyOfRange(balanced, WIDTH, length), shift)};
+    }
+
+    /**
+     * Rewrites the slot counts so that short nodes are merged into the ones after them, and returns the
+     * new number of nodes.
+     */
+    private static int plan(int[] plan, int total) {
+        int optimal = (total - 1) / WIDTH + 1;
+        int length = plan.length;
+        int i = 0;
+        while (length > optimal + EXTRAS) {
+            while (plan[i] > WIDTH - EXTRAS / 2) {
+                i++;
+            }
+            int remaining = plan[i];
+            do {
+                int count = Math.min(remaining + plan[i + 1], WIDTH);
+                remaining += plan[i + 1] - count;
+                plan[i] = count;
+                i++;
+            } while (remaining > 0);
+            System.arraycopy(plan, i + 1, plan, i, length - i - 1);
+            length--;
+            i--;
+        }
+        return length;
+    }
+
+    private static Object[] slots(Object node, int shift) {
+        return shift == 0 ? (Object[]) node : ((Node) node).children;
+    }
+
+    private static int size(Object node, int shift) {
+        return shift == 0 ? ((Object[]) node).length : ((Node) node).size;
+    }
+
+    /**
+     * Creates a node, adding a size table unless every child but the last is full.
+     */
+    private static Node node(Object[] children, int shift) {
+        int[] sizes = new int[children.length];
+        boolean relaxed = false;
+        int total = 0;
+        for (int i = 0; i < children.length; i++) {
+            int childSize = size(children[i], shift - BITS);
+            relaxed |= i < children.length - 1 && childSize != 1 << shift;
+            total += childSize;
+            sizes[i] = total;
+        }
+        return new Node(children, relaxed ? sizes : null, total);
+    }
+
+    private static int childIndex(Node node, int shift, int index) {
+        int child = index >>> shift;
+        if (node.sizes != null) {
+            while (node.sizes[child] <= index) {
+                child++;
+            }
+        }
+        return child;
+    }
+
+    private static int offset(Node node, int shift, int child) {
+        if (child == 0) {
+            return 0;
+        }
+        return node.sizes == null ? child << shift : node.sizes[child - 1];
+    }
+
+    private static final class Node {
+        final Object[] children;
+        // cumulative sizes of the children, or null if all but the last are full
+        final int[] sizes;
+        final int size;
+
+        Node(Object[] children, int[] sizes, int size) {
+            this.children = children;
+            this.sizes = sizes;
+            this.size = size;
+        }
+    }
+
+    /**
+     * Collects elements into full leaves and builds the tree over them in one pass.
+     */
+    public static final class Builder<E> {
+        private final PersistentVector<E> base;
+        private Object[][] leaves;
+        private int leafCount;
+        private Object[] tail;
+        private int tailSize;
+
+        public Builder() {
+            this(new PersistentVector<>());
+        }
+
+        private Builder(PersistentVector<E> base) {
+            this.base = base;
+            this.leaves = new Object[4][];
+            this.tail = new Object[WIDTH];
+        }
+
+        public Builder<E> add(E element) {
+            if (tailSize == WIDTH) {
+                if (leafCount == leaves.length) {
+                    leaves = Arrays.copyOf(leaves, leafCount + (leafCount >> 1));
+                }
+                leaves[leafCount++] = tail;
+                tail = new Object[WIDTH];
+                tailSize = 0;
+            }
+            tail[tailSize++] = element;
+            return this;
+        }
+
+        public Builder<E> addAll(Iterable<? extends E> elements) {
+            for (E element : elements) {
+                add(element);
+            }
+            return this;
+        }
+
+        public PersistentVector<E> build() {
+            Object[] level = Arrays.copyOf(leaves, leafCount, Object[].class);
+            int shift = BITS;
+            Node root = EMPTY_NODE;
+            while (level.length > 0) {
+                Object[] parents = new Object[(level.length - 1) / WIDTH + 1];
+                for (int i = 0; i < parents.length; i++) {
+                    int from = i * WIDTH;
+                    parents[i] = node(Arrays.copyOfRange(level, from, Math.min(from + WIDTH, level.length)), shift);
+                }
+                if (parents.length == 1) {
+                    root = (Node) parents[0];
+                    break;
+                }
+                level = parents;
+                shift += BITS;
+            }
+            PersistentVector<E> added = new PersistentVector<>(leafCount * WIDTH + tailSize, shift, root,
+                                                               Arrays.copyOf(tail, tailSize));
+            return base.concat(added);
+        }
+    }
+
+    private class PersistentVectorIterator implements ListIterator<E> {
+        Object[] leaf;
+        int leafStart;
+        int index;
+
+        PersistentVectorIterator(int index) {
+            this.leaf = EMPTY_ARRAY;
+            this.index = index;
+        }
+
+        @Override
+        public void add(E element) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return index < size;
+        }
+
+        @Override
+        public boolean hasPrevious() {
+            return index > 0;
+        }
+
+        @Override
+        public E next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return element(index++);
+        }
+
+        @Override
+        public int nextIndex() {
+            return index;
+        }
+
+        @Override
+        public E previous() {
+            if (!hasPrevious()) {
+                throw new NoSuchElementException();
+            }
+            return element(--index);
+        }
+
+        @Override
+        public int previousIndex() {
+            return index - 1;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void set(E element) {
+            throw new UnsupportedOperationException();
+        }
+
+        @SuppressWarnings("unchecked")
+        private E element(int i) {
+            if (i < leafStart || i >= leafStart + leaf.length) {
+                seek(i);
+            }
+            return (E) leaf[i - leafStart];
+        }
+
+        private void seek(int i) {
+            int tailOffset = size - tail.length;
+            if (i >= tailOffset) {
+                leaf = tail;
+                leafStart = tailOffset;
+                return;
+            }
+            Object node = root;
+            int local = i;
+            for (int level = shift; level > 0; level -= BITS) {
+                Node n = (Node) node;
+                int child = childIndex(n, level, local);
+                local -= offset(n, level, child);
+                node = n.children[child];
+            }
+            leaf = (Object[]) node;
+            leafStart = i - local;
+        }
+    }
+}
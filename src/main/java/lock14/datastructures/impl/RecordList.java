@@ -0,0 +1,570 @@
+package lock14.datastructures.impl;
+
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.ShortBuffer;
+import java.util.function.DoublePredicate;
+import java.util.function.IntPredicate;
+import java.util.function.LongPredicate;
+import lock14.datastructures.impl.RecordSchema.Type;
+
+/**
+ * A list of fixed layout records stored column by column: each field of the {@link RecordSchema}
+ * has a primitive array of its own, either on the heap or in direct memory outside it. A record
+ * costs only the bytes of its fields, with no object header, pointer or boxing, and a scan over one
+ * field reads a single contiguous array.
+ * <p>
+ * Records are addressed by index and fields by their position in the schema. A {@link Cursor} is a
+ * reusable view of one record at a time, so walking the list allocates nothing. The scans such as
+ * {@link #filterInt(int, IntPredicate)} loop over a single column and return the indices of the
+ * matching records. Reading a field as a type other than its own throws an
+ * {@link IllegalArgumentException}, except that the scans accept the narrower types of their kind.
+ * <p>
+ * The memory of an off-heap list is released by {@link #close()}; the list cannot be used
+ * afterwards.
+ */
+public class RecordList implements AutoCloseable {
+    private static final int DEFAULT_CAPACITY = 16;
+
+    private final RecordSchema schema;
+    private final boolean offHeap;
+    private final Type[] types;
+    private final Buffer[] columns;
+    // the direct buffers behind the columns of an off-heap list
+    private final ByteBuffer[] memory;
+    private int capacity;
+    private int size;
+    private boolean closed;
+
+    public RecordList(RecordSchema schema) {
+        this(schema, DEFAULT_CAPACITY, false);
+    }
+
+    /**
+     * Creates a list with room for the given number of records, keeping its columns outside the heap if
+     * offHeap is true.
+     */
+    public RecordList(RecordSchema schema, int capacity, boolean offHeap) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("Illegal capacity: " + capacity);
+        }
+        this.schema = schema;
+        this.offHeap = offHeap;
+        this.types = new Type[schema.fieldCount()];
+        this.columns = new Buffer[types.length];
+        this.memory = offHeap ? new ByteBuffer[types.length] : null;
+        for (int i = 0; i < types.length; i++) {
+            types[i] = schema.type(i);
+            columns[i] = allocate(i, capacity);
+        }
+        this.capacity = capacity;
+        this.size = 0;
+        this.closed = false;
+    }
+
+    /**
+     * Appends a record with every field zero and returns its index.
+     */
+    public int add() {
+        ensureCapacity(size + 1);
+        for (int i = 0; i < columns.length; i++) {
+            zero(i, size);
+        }
+        return size++;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    @Override
+    public void close() {
+        if (!closed) {
+            closed = true;
+            size = 0;
+            capacity = 0;
+            if (offHeap) {
+                for (int i = 0; i < memory.length; i++) {
+                    DirectBuffers.release(memory[i]);
+                    memory[i] = null;
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns a cursor positioned before the first record.
+     */
+    public Cursor cursor() {
+        return new Cursor();
+    }
+
+    public void ensureCapacity(int minCapacity) {
+        if (closed) {
+            throw new IllegalStateException("List is closed");
+        }
+        if (minCapacity <= capacity) {
+            return;
+        }
+        int newCapacity = Math.max(minCapacity, capacity + (capacity >> 1));
+        for (int i = 0; i < columns.length; i++) {
+            Buffer oldColumn = columns[i];
+            ByteBuffer oldMemory = offHeap ? memory[i] : null;
+            columns[i] = allocate(i, newCapacity);
+            if (offHeap) {
+                ByteBuffer source = oldMemory.duplicate();
+                source.clear();
+                source.limit(size * types[i].width());
+                memory[i].put(source);
+                DirectBuffers.release(oldMemory);
+            } else {
+                System.arraycopy(oldColumn.array(), 0, columns[i].array(), 0, size);
+            }
+        }
+        capacity = newCapacity;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public boolean isOffHeap() {
+        return offHeap;
+    }
+
+    /**
+     * Removes the record at the index, shifting the later records down by one.
+     */
+    public void remove(int index) {
+        check(index);
+        int moved = size - index - 1;
+        for (int i = 0; i < columns.length; i++) {
+            if (offHeap) {
+                int width = types[i].width();
+                ByteBuffer region = memory[i].duplicate();
+                region.clear();
+                region.position(index * width);
+                region.limit(size * width);
+                ByteBuffer tail = region.slice();
+                tail.position(width);
+                tail.compact();
+            } else {
+                Object array = columns[i].array();
+                System.arraycopy(array, index + 1, array, index, moved);
+            }
+        }
+        size--;
+    }
+
+    public RecordSchema schema() {
+        return schema;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public byte getByte(int index, int field) {
+        check(index);
+        return ((ByteBuffer) column(field, Type.BYTE)).get(index);
+    }
+
+    public short getShort(int index, int field) {
+        check(index);
+        return ((ShortBuffer) column(field, Type.SHORT)).get(index);
+    }
+
+    public int getInt(int index, int field) {
+        check(index);
+        return ((IntBuffer) column(field, Type.INT)).get(index);
+    }
+
+    public long getLong(int index, int field) {
+        check(index);
+        return ((LongBuffer) column(field, Type.LONG)).get(index);
+    }
+
+    public float getFloat(int index, int field) {
+        check(index);
+        return ((FloatBuffer) column(field, Type.FLOAT)).get(index);
+    }
+
+    public double getDouble(int index, int field) {
+        check(index);
+        return ((DoubleBuffer) column(field, Type.DOUBLE)).get(index);
+    }
+
+    public void setByte(int index, int field, byte value) {
+        check(index);
+        ((ByteBuffer) column(field, Type.BYTE)).put(index, value);
+    }
+
+    public void setShort(int index, int field, short value) {
+        check(index);
+        ((ShortBuffer) column(field, Type.SHORT)).put(index, value);
+    }
+
+    public void setInt(int index, int field, int value) {
+        check(index);
+        ((IntBuffer) column(field, Type.INT)).put(index, value);
+    }
+
+    public void setLong(int index, int field, long value) {
+        check(index);
+        ((LongBuffer) column(field, Type.LONG)).put(index, value);
+    }
+
+    public void setFloat(int index, int field, float value) {
+        check(index);
+        ((FloatBuffer) column(field, Type.FLOAT)).put(index, value);
+    }
+
+    public void setDouble(int index, int field, double value) {
+        check(index);
+        ((DoubleBuffer) column(field, Type.DOUBLE)).put(index, value);
+    }
+
+    /**
+     * Returns the indices, in ascending order, of the records whose value of a byte, short or int field
+     * satisfies the predicate.
+     */
+    public IntArrayList filterInt(int field, IntPredicate predicate) {
+        IntArrayList matches = new IntArrayList();
+        Buffer column = columns[checkField(field)];
+        switch (types[field]) {
+            case BYTE: {
+                ByteBuffer values = (ByteBuffer) column;
+                for (int i = 0; i < size; i++) {
+                    if (predicate.test(values.get(i))) {
+                        matches.addInt(i);
+                    }
+                }
+                break;
+            }
+            case SHORT: {
+                ShortBuffer values = (ShortBuffer) column;
+                for (int i = 0; i < size; i++) {
+                    if (predicate.test(values.get(i))) {
+                        matches.addInt(i);
+                    }
+                }
+                break;
+            }
+            case INT: {
+                IntBuffer values = (IntBuffer) column;
+                for (int i = 0; i < size; i++) {
+                    if (predicate.test(values.get(i))) {
+                        matches.addInt(i);
+                    }
+                }
+                break;
+            }
+            default:
+                throw wrongType(field, "an int");
+        }
+        return matches;
+    }
+
+    /**
+     * Returns the indices, in ascending order, of the records whose value of an integral field
+     * satisfies the predicate.
+     */
+    public IntArrayList filterLong(int field, LongPredicate predicate) {
+        Type type = types[checkField(field)];
+        if (type == Type.FLOAT || type == Type.DOUBLE) {
+            throw wrongType(field, "an integral");
+        }
+        if (type != Type.LONG) {
+            return filterInt(field, predicate::test);
+        }
+        IntArrayList matches = new IntArrayList();
+        LongBuffer values = (LongBuffer) columns[field];
+        for (int i = 0; i < size; i++) {
+            if (predicate.test(values.get(i))) {
+                matches.addInt(i);
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * Returns the indices, in ascending order, of the records whose value of a float or double field
+     * satisfies the predicate.
+     */
+    public IntArrayList filterDouble(int field, DoublePredicate predicate) {
+        IntArrayList matches = new IntArrayList();
+        Buffer column = columns[checkField(field)];
+        switch (types[field]) {
+            case FLOAT: {
+                FloatBuffer values = (FloatBuffer) column;
+                for (int i = 0; i < size; i++) {
+                    if (predicate.test(values.get(i))) {
+                        matches.addInt(i);
+                    }
+                }
+                break;
+            }
+            case DOUBLE: {
+                DoubleBuffer values = (DoubleBuffer) column;
+                for (int i = 0; i < size; i++) {
+                    if (predicate.test(values.get(i))) {
+                        matches.addInt(i);
+                    }
+                }
+                break;
+            }
+            default:
+                throw wrongType(field, "a floating point");
+        }
+        return matches;
+    }
+
+    /**
+     * Returns the sum of an integral field over all records.
+     */
+    public long sumLong(int field) {
+        Buffer column = columns[checkField(field)];
+        long sum = 0;
+        switch (types[field]) {
+            case BYTE: {
+                ByteBuffer values = (ByteBuffer) column;
+                for (int i = 0; i < size; i++) {
+                    sum += values.get(i);
+                }
+                break;
+            }
+            case SHORT: {
+                ShortBuffer values = (ShortBuffer) column;
+                for (int i = 0; i < size; i++) {
+                    sum += values.get(i);
+                }
+                break;
+            }
+            case INT: {
+                IntBuffer values = (IntBuffer) column;
+                for (int i = 0; i < size; i++) {
+                    sum += values.get(i);
+                }
+                break;
+            }
+            case LONG: {
+                LongBuffer values = (LongBuffer) column;
+                for (int i = 0; i < size; i++) {
+                    sum += values.get(i);
+                }
+                break;
+            }
+            default:
+                throw wrongType(field, "an integral");
+        }
+        return sum;
+    }
+
+    /**
+     * Returns the sum of a float or double field over all records.
+     */
+    public double sumDouble(int field) {
+        Buffer column = columns[checkField(field)];
+        double sum = 0;
+        switch (types[field]) {
+            case FLOAT: {
+                FloatBuffer values = (FloatBuffer) column;
+                for (int i = 0; i < size; i++) {
+                    sum += values.get(i);
+                }
+                break;
+            }
+            case DOUBLE: {
+                DoubleBuffer values = (DoubleBuffer) column;
+                for (int i = 0; i < size; i++) {
+                    sum += values.get(i);
+                }
+                break;
+            }
+            default:
+                throw wrongType(field, "a floating point");
+        }
+        return sum;
+    }
+
+    private Buffer allocate(int field, int capacity) {
+        Type type = types[field];
+        if (offHeap) {
+            ByteBuffer bytes = ByteBuffer.allocateDirect(Math.multiplyExact(capacity, type.width()))
+                                         .order(ByteOrder.nativeOrder());
+            memory[field] = bytes;
+            switch (type) {
+                case BYTE:
+                    return bytes;
+                case SHORT:
+                    return bytes.asShortBuffer();
+                case INT:
+                    return bytes.asIntBuffer();
+                case LONG:
+                    return bytes.asLongBuffer();
+                case FLOAT:
+                    return bytes.asFloatBuffer();
+                default:
+                    return bytes.asDoubleBuffer();
+            }
+        }
+        switch (type) {
+            case BYTE:
+                return ByteBuffer.wrap(new byte[capacity]);
+            case SHORT:
+                return ShortBuffer.wrap(new short[capacity]);
+            case INT:
+                return IntBuffer.wrap(new int[capacity]);
+            case LONG:
+                return LongBuffer.wrap(new long[capacity]);
+            case FLOAT:
+                return FloatBuffer.wrap(new float[capacity]);
+            default:
+                return DoubleBuffer.wrap(new double[capacity]);
+        }
+    }
+
+    private void zero(int field, int index) {
+        Buffer column = columns[field];
+        switch (types[field]) {
+            case BYTE:
+                ((ByteBuffer) column).put(index, (byte) 0);
+                break;
+            case SHORT:
+                ((ShortBuffer) column).put(index, (short) 0);
+                break;
+            case INT:
+                ((IntBuffer) column).put(index, 0);
+                break;
+            case LONG:
+                ((LongBuffer) column).put(index, 0L);
+                break;
+            case FLOAT:
+                ((FloatBuffer) column).put(index, 0f);
+                break;
+            default:
+                ((DoubleBuffer) column).put(index, 0d);
+                break;
+        }
+    }
+
+    private Buffer column(int field, Type type) {
+        if (types[checkField(field)] != type) {
+            throw wrongType(field, type.name());
+        }
+        return columns[field];
+    }
+
+    private void check(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index out of range: " + index);
+        }
+    }
+
+    private int checkField(int field) {
+        if (field < 0 || field >= types.length) {
+            throw new IndexOutOfBoundsException("No such field: " + field);
+        }
+        return field;
+    }
+
+    private IllegalArgumentException wrongType(int field, String expected) {
+        return new IllegalArgumentException("Field " + schema.name(field) + " is " + types[field]
+                + ", not " + expected);
+    }
+
+    /**
+     * A movable view of one record of the list. The cursor starts before the first record; use
+     * {@link #next()} to walk the records in order or {@link #at(int)} to jump to one.
+     */
+    public final class Cursor {
+        private int index;
+
+        private Cursor() {
+            this.index = -1;
+        }
+
+        /**
+         * Moves the cursor to the record at the index.
+         */
+        public Cursor at(int index) {
+            check(index);
+            this.index = index;
+            return this;
+        }
+
+        public int index() {
+            return index;
+        }
+
+        /**
+         * Moves the cursor to the next record and returns true, or returns false if there is none.
+         */
+        public boolean next() {
+            if (index + 1 >= size) {
+                return false;
+            }
+            index++;
+            return true;
+        }
+
+        public byte getByte(int field) {
+            return RecordList.this.getByte(index, field);
+        }
+
+        public short getShort(int field) {
+            return RecordList.this.getShort(index, field);
+        }
+
+        public int getInt(int field) {
+            return RecordList.this.getInt(index, field);
+        }
+
+        public long getLong(int field) {
+            return RecordList.this.getLong(index, field);
+        }
+
+        public float getFloat(int field) {
+            return RecordList.this.getFloat(index, field);
+        }
+
+        public double getDouble(int field) {
+            return RecordList.this.getDouble(index, field);
+        }
+
+        public Cursor setByte(int field, byte value) {
+            RecordList.this.setByte(index, field, value);
+            return this;
+        }
+
+        public Cursor setShort(int field, short value) {
+            RecordList.this.setShort(index, field, value);
+            return this;
+        }
+
+        public Cursor setInt(int field, int value) {
+            RecordList.this.setInt(index, field, value);
+            return this;
+        }
+
+        public Cursor setLong(int field, long value) {
+            RecordList.this.setLong(index, field, value);
+            return this;
+        }
+
+        public Cursor setFloat(int field, float value) {
+            RecordList.this.setFloat(index, field, value);
+            return this;
+        }
+
+        public Cursor setDouble(int field, double value) {
+            RecordList.this.setDouble(index, field, value);
+            return this;
+        }
+    }
+}
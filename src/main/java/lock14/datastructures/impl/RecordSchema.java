@@ -0,0 +1,156 @@
+package lock14.datastructures.impl;
+
+/**
+ * The layout of the records of a {@link RecordList}: an ordered list of named fields, each of a
+ * primitive type. Fields are addressed by their position in the schema, which
+ * {@link #field(String)} looks up once so that loops over many records do not compare names.
+ */
+public final class RecordSchema {
+    public enum Type {
+        BYTE(Byte.BYTES),
+        SHORT(Short.BYTES),
+        INT(Integer.BYTES),
+        LONG(Long.BYTES),
+        FLOAT(Float.BYTES),
+        DOUBLE(Double.BYTES);
+
+        private final int width;
+
+        Type(int width) {
+            this.width = width;
+        }
+
+        /**
+         * Returns the number of bytes a value of this type takes.
+         */
+        public int width() {
+            return width;
+        }
+    }
+
+    private final String[] names;
+    private final Type[] types;
+
+    private RecordSchema(String[] names, Type[] types) {
+        this.names = names;
+        this.types = types;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Returns the position of the field with the given name.
+     */
+    public int field(String name) {
+        for (int i = 0; i < names.length; i++) {
+            if (names[i].equals(name)) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("No such field: " + name);
+    }
+
+    public int fieldCount() {
+        return names.length;
+    }
+
+    public String name(int field) {
+        check(field);
+        return names[field];
+    }
+
+    /**
+     * Returns the number of bytes one record takes, the sum of the widths of its fields.
+     */
+    public int recordSize() {
+        int recordSize = 0;
+        for (Type type : types) {
+            recordSize += type.width();
+        }
+        return recordSize;
+    }
+
+    public Type type(int field) {
+        check(field);
+        return types[field];
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("{");
+        for (int i = 0; i < names.length; i++) {
+            if (i > 0) {
+                sb.append(", ");
+            }
+            sb.append(names[i]).append(": ").append(types[i]);
+        }
+        return sb.append("}").toString();
+    }
+
+    private void check(int field) {
+        if (field < 0 || field >= names.length) {
+            throw new IndexOutOfBoundsException("No such field: " + field);
+        }
+    }
+
+    public static final class Builder {
+        private final ArrayList<String> names;
+        private final ArrayList<Type> types;
+
+        private Builder() {
+            names = new ArrayList<>();
+            types = new ArrayList<>();
+        }
+
+        public Builder addByte(String name) {
+            return add(name, Type.BYTE);
+        }
+
+        public Builder addShort(String name) {
+            return add(name, Type.SHORT);
+        }
+
+        public Builder addInt(String name) {
+            return add(name, Type.INT);
+        }
+
+        public Builder addLong(String name) {
+            return add(name, Type.LONG);
+        }
+
+        public Builder addFloat(String name) {
+            return add(name, Type.FLOAT);
+        }
+
+        public Builder addDouble(String name) {
+            return add(name, Type.DOUBLE);
+        }
+
+        public Builder add(String name, Type type) {
+            if (name == null || type == null) {
+                throw new NullPointerException("Field name and type must not be null");
+            }
+            if (names.contains(name)) {
+                throw new IllegalArgumentException("Duplicate field: " + name);
+            }
+            names.add(name);
+            types.add(type);
+            return this;
+        }
+
+        public RecordSchema build() {
+            if (names.isEmpty()) {
+                throw new IllegalStateException("A schema needs at least one field");
+            }
+            String[] fieldNames = new String[names.size()];
+            Type[] fieldTypes = new Type[types.size()];
+            for (int i = 0; i < fieldNames.length; i++) {
+                fieldNames[i] = names.get(i);
+                fieldTypes[i] = types.get(i);
+            }
+            return new RecordSchema(fieldNames, fieldTypes);
+        }
+    }
+}
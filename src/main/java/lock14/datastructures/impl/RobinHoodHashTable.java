@@ -0,0 +1,370 @@
+package lock14.datastructures.impl;
+
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import lock14.datastructures.Pair;
+import lock14.datastructures.Set;
+
+/**
+ * An open addressing hash map that keeps keys, values and hashes in parallel arrays instead of
+ * allocating a node per entry.
+ * <p>
+ * Collisions are resolved with Robin Hood linear probing: an entry being inserted takes the slot of
+ * any entry that is closer to its home slot, which keeps probe sequences short and uniform.
+ * Deletion shifts the rest of the cluster back by one slot so no tombstones are ever needed. Like
+ * {@link HashTable}, neither null keys nor null values are permitted.
+ */
+public class RobinHoodHashTable<K, V> extends AbstractMap<K, V> {
+    private static final int DEFAULT_SIZE = 16;
+    private static final double MAX_LOAD_FACTOR = 0.8;
+    // hashes are never zero so that zero can mark an empty slot
+    private static final int EMPTY = 0;
+
+    private int[] hashes;
+    private Object[] keys;
+    private Object[] values;
+    private int mask;
+    private int threshold;
+    private int size;
+    private int modificationCount;
+
+    private Set<Pair<K, V>> entrySet = new AbstractSet<Pair<K, V>>() {
+        @Override
+        public boolean contains(Object o) {
+            if (!(o instanceof Pair)) {
+                return false;
+            }
+            Pair<?, ?> entry = (Pair<?, ?>) o;
+            return Objects.equals(entry.second(), RobinHoodHashTable.this.get(entry.first()));
+        }
+
+        @Override
+        public void clear() {
+            RobinHoodHashTable.this.clear();
+        }
+
+        @Override
+        public Iterator<Pair<K, V>> iterator() {
+            return new EntryIterator();
+        }
+
+        @Override
+        public void remove(Object o) {
+            if (o instanceof Pair) {
+                Pair<?, ?> entry = (Pair<?, ?>) o;
+                RobinHoodHashTable.this.remove(entry.first());
+            }
+        }
+
+        @Override
+        public int size() {
+            return RobinHoodHashTable.this.size();
+        }
+    };
+
+    private Set<K> keySet = new AbstractSet<K>() {
+        @Override
+        public boolean contains(Object o) {
+            return containsKey(o);
+        }
+
+        @Override
+        public void clear() {
+            RobinHoodHashTable.this.clear();
+        }
+
+        @Override
+        public Iterator<K> iterator() {
+            return new KeyIterator();
+        }
+
+        @Override
+        public void remove(Object key) {
+            RobinHoodHashTable.this.remove(key);
+        }
+
+        @Override
+        public int size() {
+            return RobinHoodHashTable.this.size();
+        }
+    };
+
+    public RobinHoodHashTable() {
+        this(DEFAULT_SIZE);
+    }
+
+    public RobinHoodHashTable(int expectedSize) {
+        if (expectedSize < 0) {
+            throw new IllegalArgumentException("Illegal size: " + expectedSize);
+        }
+        allocate(Hashing.tableSizeFor(expectedSize, MAX_LOAD_FACTOR));
+    }
+
+    @Override
+    public V put(K key, V value) {
+        if (value == null) {
+            throw new NullPointerException();
+        }
+        int hash = hash(key);
+        int index = indexOf(hash, key);
+        if (index >= 0) {
+            V result = valueAt(index);
+            values[index] = value;
+            return result;
+        }
+        if (size >= threshold) {
+            resize();
+        }
+        insert(hash, key, value);
+        size++;
+        modificationCount++;
+        return null;
+    }
+
+    @Override
+    public V get(Object key) {
+        int index = indexOf(hash(key), key);
+        return index < 0 ? null : valueAt(index);
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return indexOf(hash(key), key) >= 0;
+    }
+
+    @Override
+    public boolean containsValue(Object value) {
+        if (value == null) {
+            throw new NullPointerException();
+        }
+        for (int i = 0; i < hashes.length; i++) {
+            if (hashes[i] != EMPTY && values[i].equals(value)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public V remove(Object key) {
+        int index = indexOf(hash(key), key);
+        if (index < 0) {
+            return null;
+        }
+        V result = valueAt(index);
+        removeAt(index);
+        return result;
+    }
+
+    @Override
+    public void clear() {
+        for (int i = 0; i < hashes.length; i++) {
+            hashes[i] = EMPTY;
+            keys[i] = null;
+            values[i] = null;
+        }
+        size = 0;
+        modificationCount++;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public Set<K> keySet() {
+        return keySet;
+    }
+
+    @Override
+    public Set<Pair<K, V>> entrySet() {
+        return entrySet;
+    }
+
+    private static int hash(Object key) {
+        // we want null pointer to be thrown if
+        // key is null
+        int hash = Hashing.spread(key.hashCode());
+        return hash == EMPTY ? 1 : hash;
+    }
+
+    private int probeDistance(int hash, int index) {
+        return (index - hash) & mask;
+    }
+
+    private int indexOf(int hash, Object key) {
+        int index = hash & mask;
+        for (int distance = 0;; distance++) {
+            int h = hashes[index];
+            // once we pass an entry closer to home than we are, the key cannot be further along
+            if (h == EMPTY || probeDistance(h, index) < distance) {
+                return -1;
+            }
+            if (h == hash && keys[index].equals(key)) {
+                return index;
+            }
+            index = (index + 1) & mask;
+        }
+    }
+
+    private void insert(int hash, Object key, Object value) {
+        int index = hash & mask;
+        int distance = 0;
+        while (hashes[index] != EMPTY) {
+            int existingDistance = probeDistance(hashes[index], index);
+            if (existingDistance < distance) {
+                // take from the rich: swap in and carry on inserting the displaced entry
+                int tempHash = hashes[index];
+                Object tempKey = keys[index];
+                Object tempValue = values[index];
+                hashes[index] = hash;
+                keys[index] = key;
+                values[index] = value;
+                hash = tempHash;
+                key = tempKey;
+                value = tempValue;
+                distance = existingDistance;
+            }
+            index = (index + 1) & mask;
+            distance++;
+        }
+        hashes[index] = hash;
+        keys[index] = key;
+        values[index] = value;
+    }
+
+    private void removeAt(int index) {
+        int next = (index + 1) & mask;
+        // backward shift the rest of the cluster until an empty slot or an entry at its home slot
+        while (hashes[next] != EMPTY && probeDistance(hashes[next], next) > 0) {
+            hashes[index] = hashes[next];
+            keys[index] = keys[next];
+            values[index] = values[next];
+            index = next;
+            next = (next + 1) & mask;
+        }
+        hashes[index] = EMPTY;
+        keys[index] = null;
+        values[index] = null;
+        size--;
+        modificationCount++;
+    }
+
+    private void allocate(int tableSize) {
+        hashes = new int[tableSize];
+        keys = new Object[tableSize];
+        values = new Object[tableSize];
+        mask = tableSize - 1;
+        threshold = (int) Math.min(tableSize * MAX_LOAD_FACTOR, tableSize - 1);
+    }
+
+    private void resize() {
+        if (hashes.length == Hashing.MAX_TABLE_SIZE) {
+            throw new IllegalStateException("Hash table is full");
+        }
+        int[] oldHashes = hashes;
+        Object[] oldKeys = keys;
+        Object[] oldValues = values;
+        allocate(hashes.length << 1);
+        for (int i = 0; i < oldHashes.length; i++) {
+            if (oldHashes[i] != EMPTY) {
+                insert(oldHashes[i], oldKeys[i], oldValues[i]);
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private K keyAt(int index) {
+        return (K) keys[index];
+    }
+
+    @SuppressWarnings("unchecked")
+    private V valueAt(int index) {
+        return (V) values[index];
+    }
+
+    private class KeyIterator extends SlotIterator implements Iterator<K> {
+        @Override
+        public K next() {
+            return keyAt(nextSlot());
+        }
+    }
+
+    private class EntryIterator extends SlotIterator implements Iterator<Pair<K, V>> {
+        @Override
+        public Pair<K, V> next() {
+            int slot = nextSlot();
+            return Pair.of(keyAt(slot), valueAt(slot));
+        }
+    }
+
+    /**
+     * Walks the table starting just after an empty slot. No cluster can wrap around past that slot, so
+     * the backward shift done by {@link #remove()} only ever moves entries that have not been visited
+     * yet into the slot that was just removed.
+     */
+    private abstract class SlotIterator {
+        int start;
+        int steps;
+        int remaining;
+        int lastReturned;
+        int expectedModCount;
+
+        public SlotIterator() {
+            start = 0;
+            while (size > 0 && hashes[start] != EMPTY) {
+                start++;
+            }
+            steps = 0;
+            remaining = size;
+            lastReturned = -1;
+            expectedModCount = modificationCount;
+        }
+
+        public boolean hasNext() {
+            return remaining > 0;
+        }
+
+        public int nextSlot() {
+            checkForModification();
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            int slot = (start + steps) & mask;
+            while (hashes[slot] == EMPTY) {
+                steps++;
+                slot = (start + steps) & mask;
+            }
+            steps++;
+            remaining--;
+            lastReturned = slot;
+            return slot;
+        }
+
+        public void remove() {
+            checkForModification();
+            if (lastReturned == -1) {
+                throw new IllegalStateException();
+            }
+            removeAt(lastReturned);
+            // the slot we just emptied may now hold the next unvisited entry
+            steps--;
+            lastReturned = -1;
+            expectedModCount = modificationCount;
+        }
+
+        private void checkForModification() {
+            if (expectedModCount != modificationCount) {
+                throw new ConcurrentModificationException();
+            }
+        }
+    }
+}
@@ -13,7 +13,7 @@ public class SequentialQueue<E> extends AbstractQueue<E> {
     }
 
     public SequentialQueue(Collection<E> c) {
-        this(c, LinkedList.class);
+        this(c, UnrolledLinkedList.class);
     }
 
     public <T extends SequentialList<?>> SequentialQueue(Class<T> backingClass) {
@@ -0,0 +1,120 @@
+package lock14.datastructures.impl;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Converts values to and from bytes for the tables that keep their entries outside the Java heap.
+ * <p>
+ * Those tables compare keys by their serialized bytes, so a key serializer must always produce the
+ * same bytes for keys that are equal.
+ */
+public interface Serializer<T> {
+    Serializer<String> STRING = new Serializer<String>() {
+        // counts the UTF-8 bytes without encoding the string, which write then does only once
+        @Override
+        public int size(String value) {
+            int size = 0;
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                if (c < 0x80) {
+                    size += 1;
+                } else if (c < 0x800) {
+                    size += 2;
+                } else if (Character.isHighSurrogate(c) && i + 1 < value.length()
+                        && Character.isLowSurrogate(value.charAt(i + 1))) {
+                    size += 4;
+                    i++;
+                } else if (Character.isSurrogate(c)) {
+                    // an unpaired surrogate is encoded as '?'
+                    size += 1;
+                } else {
+                    size += 3;
+                }
+            }
+            return size;
+        }
+
+        @Override
+        public void write(String value, ByteBuffer buffer) {
+            buffer.put(value.getBytes(StandardCharsets.UTF_8));
+        }
+
+        @Override
+        public String read(ByteBuffer buffer) {
+            byte[] bytes = new byte[buffer.remaining()];
+            buffer.get(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    };
+
+    Serializer<Integer> INTEGER = new Serializer<Integer>() {
+        @Override
+        public int size(Integer value) {
+            return Integer.BYTES;
+        }
+
+        @Override
+        public void write(Integer value, ByteBuffer buffer) {
+            buffer.putInt(value);
+        }
+
+        @Override
+        public Integer read(ByteBuffer buffer) {
+            return buffer.getInt();
+        }
+    };
+
+    Serializer<Long> LONG = new Serializer<Long>() {
+        @Override
+        public int size(Long value) {
+            return Long.BYTES;
+        }
+
+        @Override
+        public void write(Long value, ByteBuffer buffer) {
+            buffer.putLong(value);
+        }
+
+        @Override
+        public Long read(ByteBuffer buffer) {
+            return buffer.getLong();
+        }
+    };
+
+    Serializer<byte[]> BYTE_ARRAY = new Serializer<byte[]>() {
+        @Override
+        public int size(byte[] value) {
+            return value.length;
+        }
+
+        @Override
+        public void write(byte[] value, ByteBuffer buffer) {
+            buffer.put(value);
+        }
+
+        @Override
+        public byte[] read(ByteBuffer buffer) {
+            byte[] bytes = new byte[buffer.remaining()];
+            buffer.get(bytes);
+            return bytes;
+        }
+    };
+
+    /**
+     * Returns the number of bytes {@link #write(Object, ByteBuffer)} will put for the value.
+     */
+    int size(T value);
+
+    /**
+     * Writes the value at the position of the buffer, advancing it by {@link #size(Object)} bytes.
+     */
+    void write(T value, ByteBuffer buffer);
+
+    /**
+     * Reads a value from all of the remaining bytes of the buffer. The buffer is a read-only view of
+     * memory owned by the table, which may be freed or reused once this method returns, so neither it
+     * nor any slice of it may be kept; copy out whatever the value needs.
+     */
+    T read(ByteBuffer buffer);
+}
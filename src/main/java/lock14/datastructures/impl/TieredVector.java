@@ -0,0 +1,385 @@
+package lock14.datastructures.impl;
+
+import java.util.ConcurrentModificationException;
+import java.util.ListIterator;
+import java.util.NoSuchElementException;
+import lock14.datastructures.Collection;
+import lock14.datastructures.RandomAccessList;
+
+/**
+ * A list with constant time access by index that can also insert and remove in the middle in O(sqrt
+ * n) time and at either end in constant time.
+ * <p>
+ * The elements live in blocks of a power of two size, each of which is a circular buffer, and the
+ * blocks are held in a circular directory. Every block but the first and the last is full.
+ * Inserting shifts elements only within the block at the index and then rotates each following
+ * block by one slot, handing its last element on to the next block, so no element moves more than
+ * once. The block size is kept near the square root of the size by rebuilding the list when it
+ * outgrows its blocks.
+ */
+public class TieredVector<E> extends AbstractList<E> implements RandomAccessList<E> {
+    private static final int MIN_BLOCK_SHIFT = 3;
+
+    private int blockShift;
+    private int blockMask;
+    private Object[][] blocks;
+    // start of each block's circular buffer
+    private int[] offsets;
+    private int directoryStart;
+    private int blockCount;
+    // unused slots at the front of the first block
+    private int frontGap;
+    private int size;
+    private int modificationCount;
+
+    public TieredVector() {
+        init(MIN_BLOCK_SHIFT);
+    }
+
+    public TieredVector(Collection<E> c) {
+        this();
+        if (c != null) {
+            addAll(c);
+        }
+    }
+
+    @Override
+    public void add(int index, E element) {
+        if (index != size) {
+            check(index);
+        }
+        if (index == 0) {
+            addFirst(element);
+        } else if (index == size) {
+            addLast(element);
+        } else {
+            insert(index + frontGap, element);
+        }
+        size++;
+        modificationCount++;
+        if (blockCount > 2 << blockShift) {
+            rebuild(blockShift + 1);
+        }
+    }
+
+    @Override
+    public E get(int index) {
+        check(index);
+        int position = index + frontGap;
+        int block = directoryIndex(position >>> blockShift);
+        return element(block, position & blockMask);
+    }
+
+    @Override
+    public void set(int index, E element) {
+        check(index);
+        int position = index + frontGap;
+        int block = directoryIndex(position >>> blockShift);
+        blocks[block][slot(block, position & blockMask)] = element;
+    }
+
+    @Override
+    public void remove(int index) {
+        check(index);
+        if (index == 0) {
+            removeFirst();
+        } else {
+            delete(index + frontGap);
+        }
+        size--;
+        modificationCount++;
+        if (blockShift > MIN_BLOCK_SHIFT && blockCount < (1 << blockShift) / 4) {
+            rebuild(blockShift - 1);
+        }
+    }
+
+    @Override
+    public void clear() {
+        init(MIN_BLOCK_SHIFT);
+        size = 0;
+        modificationCount++;
+    }
+
+    @Override
+    public ListIterator<E> listIterator() {
+        return listIterator(0);
+    }
+
+    @Override
+    public ListIterator<E> listIterator(int index) {
+        if (index != size) {
+            check(index);
+        }
+        return new TieredVectorIterator(index);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    private void init(int shift) {
+        blockShift = shift;
+        blockMask = (1 << shift) - 1;
+        blocks = new Object[4][];
+        offsets = new int[4];
+        directoryStart = 0;
+        blockCount = 0;
+        frontGap = 0;
+    }
+
+    private int directoryIndex(int block) {
+        return (directoryStart + block) & (blocks.length - 1);
+    }
+
+    private int slot(int block, int position) {
+        return (offsets[block] + position) & blockMask;
+    }
+
+    @SuppressWarnings("unchecked")
+    private E element(int block, int position) {
+        return (E) blocks[block][slot(block, position)];
+    }
+
+    private void addFirst(E element) {
+        if (frontGap == 0) {
+            growDirectory();
+            directoryStart = (directoryStart - 1) & (blocks.length - 1);
+            blocks[directoryStart] = new Object[blockMask + 1];
+            offsets[directoryStart] = 0;
+            blockCount++;
+            frontGap = blockMask + 1;
+        }
+        frontGap--;
+        blocks[directoryStart][slot(directoryStart, frontGap)] = element;
+    }
+
+    private void addLast(E element) {
+        int position = size + frontGap;
+        int block = lastBlockFor(position);
+        blocks[block][slot(block, position & blockMask)] = element;
+    }
+
+    /**
+     * Returns the directory index of the block holding the position just past the end, adding a block
+     * if the last one is full.
+     */
+    private int lastBlockFor(int end) {
+        if (end >>> blockShift == blockCount) {
+            growDirectory();
+            int block = directoryIndex(blockCount);
+            blocks[block] = new Object[blockMask + 1];
+            offsets[block] = 0;
+            blockCount++;
+        }
+        return directoryIndex(end >>> blockShift);
+    }
+
+    private void insert(int position, E element) {
+        int end = size + frontGap;
+        lastBlockFor(end);
+        int last = end >>> blockShift;
+        int first = position >>> blockShift;
+        int offset = position & blockMask;
+        int block = directoryIndex(first);
+        if (first == last) {
+            shiftRight(block, offset, end & blockMask);
+            blocks[block][slot(block, offset)] = element;
+            return;
+        }
+        Object carry = blocks[block][slot(block, blockMask)];
+        shiftRight(block, offset, blockMask);
+        blocks[block][slot(block, offset)] = element;
+        for (int i = first + 1; i <= last; i++) {
+            block = directoryIndex(i);
+            // rotating a block back by one slot turns its last slot, which is either free or
+            // holds the element handed on, into its first
+            Object next = blocks[block][slot(block, blockMask)];
+            offsets[block] = (offsets[block] - 1) & blockMask;
+            blocks[block][offsets[block]] = carry;
+            carry = next;
+        }
+    }
+
+    private void removeFirst() {
+        blocks[directoryStart][slot(directoryStart, frontGap)] = null;
+        frontGap++;
+        if (frontGap > blockMask || size == 1) {
+            blocks[directoryStart] = null;
+            directoryStart = directoryIndex(1);
+            blockCount--;
+            frontGap = 0;
+        }
+    }
+
+    private void delete(int position) {
+        int end = size + frontGap;
+        int last = (end - 1) >>> blockShift;
+        int first = position >>> blockShift;
+        int block = directoryIndex(first);
+        if (first == last) {
+            shiftLeft(block, position & blockMask, (end - 1) & blockMask);
+        } else {
+            shiftLeft(block, position & blockMask, blockMask);
+            for (int i = first + 1; i <= last; i++) {
+                int next = directoryIndex(i);
+                // pop the front of the next block into the last slot of this one
+                blocks[block][slot(block, blockMask)] = blocks[next][offsets[next]];
+                blocks[next][offsets[next]] = null;
+                offsets[next] = (offsets[next] + 1) & blockMask;
+                block = next;
+            }
+        }
+        if (((end - 1) & blockMask) == 0) {
+            blocks[directoryIndex(last)] = null;
+            blockCount--;
+        }
+    }
+
+    /**
+     * Moves the elements of the block at positions {@code from} to {@code to - 1} one position up.
+     */
+    private void shiftRight(int block, int from, int to) {
+        Object[] data = blocks[block];
+        for (int i = to; i > from; i--) {
+            data[slot(block, i)] = data[slot(block, i - 1)];
+        }
+    }
+
+    /**
+     * Moves the elements of the block at positions {@code from + 1} to {@code to} one position down and
+     * clears position {@code to}.
+     */
+    private void shiftLeft(int block, int from, int to) {
+        Object[] data = blocks[block];
+        for (int i = from; i < to; i++) {
+            data[slot(block, i)] = data[slot(block, i + 1)];
+        }
+        data[slot(block, to)] = null;
+    }
+
+    private void growDirectory() {
+        if (blockCount < blocks.length) {
+            return;
+        }
+        Object[][] newBlocks = new Object[blocks.length << 1][];
+        int[] newOffsets = new int[blocks.length << 1];
+        for (int i = 0; i < blockCount; i++) {
+            newBlocks[i] = blocks[directoryIndex(i)];
+            newOffsets[i] = offsets[directoryIndex(i)];
+        }
+        blocks = newBlocks;
+        offsets = newOffsets;
+        directoryStart = 0;
+    }
+
+    /**
+     * Copies every element into blocks of the new size.
+     */
+    private void rebuild(int newShift) {
+        Object[] elements = new Object[size];
+        for (int i = 0; i < size; i++) {
+            elements[i] = get(i);
+        }
+        init(newShift);
+        int blockSize = blockMask + 1;
+        int count = (size + blockMask) >>> blockShift;
+        int directorySize = Integer.highestOneBit(Math.max(4, count)) << 1;
+        blocks = new Object[directorySize][];
+        offsets = new int[directorySize];
+        for (int i = 0; i < count; i++) {
+            blocks[i] = new Object[blockSize];
+            System.arraycopy(elements, i << blockShift, blocks[i], 0, Math.min(blockSize, size - (i << blockShift)));
+        }
+        blockCount = count;
+    }
+
+    private class TieredVectorIterator implements ListIterator<E> {
+        int lastReturned;
+        int index;
+        int expectedModCount;
+
+        TieredVectorIterator(int index) {
+            this.lastReturned = -1;
+            this.index = index;
+            this.expectedModCount = modificationCount;
+        }
+
+        @Override
+        public void add(E element) {
+            checkForModification();
+            TieredVector.this.add(index++, element);
+            lastReturned = -1;
+            expectedModCount = modificationCount;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return index < size;
+        }
+
+        @Override
+        public boolean hasPrevious() {
+            return index > 0;
+        }
+
+        @Override
+        public E next() {
+            checkForModification();
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            lastReturned = index;
+            return get(index++);
+        }
+
+        @Override
+        public int nextIndex() {
+            return index;
+        }
+
+        @Override
+        public E previous() {
+            checkForModification();
+            if (!hasPrevious()) {
+                throw new NoSuchElementException();
+            }
+            lastReturned = --index;
+            return get(index);
+        }
+
+        @Override
+        public int previousIndex() {
+            return index - 1;
+        }
+
+        @Override
+        public void remove() {
+            checkForModification();
+            if (lastReturned == -1) {
+                throw new IllegalStateException();
+            }
+            TieredVector.this.remove(lastReturned);
+            if (lastReturned < index) {
+                index--;
+            }
+            lastReturned = -1;
+            expectedModCount = modificationCount;
+        }
+
+        @Override
+        public void set(E element) {
+            checkForModification();
+            if (lastReturned == -1) {
+                throw new IllegalStateException();
+            }
+            TieredVector.this.set(lastReturned, element);
+        }
+
+        private void checkForModification() {
+            if (expectedModCount != modificationCount) {
+                throw new ConcurrentModificationException();
+            }
+        }
+    }
+}
@@ -0,0 +1,328 @@
+package lock14.datastructures.impl;
+
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.ListIterator;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import lock14.datastructures.Collection;
+import lock14.datastructures.SequentialList;
+
+/**
+ * A doubly linked list whose nodes each hold up to {@value #NODE_CAPACITY} elements in an array.
+ * <p>
+ * Every node but the last is kept at least half full, so the list needs far fewer nodes than
+ * {@link LinkedList} and a scan reads mostly contiguous memory. Inserting or removing at an
+ * iterator position shifts at most one node's worth of elements, splitting a full node in two or
+ * refilling a node that drops below half full from the one after it.
+ */
+public class UnrolledLinkedList<E> extends AbstractList<E> implements SequentialList<E> {
+    private static final int NODE_CAPACITY = 32;
+    private static final int MIN_COUNT = NODE_CAPACITY / 2;
+
+    private final Node list;
+    private int size;
+    private int modificationCount;
+
+    public UnrolledLinkedList() {
+        this(null);
+    }
+
+    public UnrolledLinkedList(Collection<E> c) {
+        // create sentinel node
+        list = new Node(0);
+        list.next = list;
+        list.prev = list;
+        size = 0;
+        modificationCount = 0;
+        Optional.ofNullable(c).ifPresent(this::addAll);
+    }
+
+    @Override
+    public void add(int index, E element) {
+        if (index != size) {
+            check(index);
+        }
+        listIterator(index).add(element);
+    }
+
+    @Override
+    public void clear() {
+        list.next = list;
+        list.prev = list;
+        size = 0;
+        modificationCount++;
+    }
+
+    @Override
+    public E get(int index) {
+        check(index);
+        return listIterator(index).next();
+    }
+
+    @Override
+    public ListIterator<E> listIterator() {
+        return listIterator(0);
+    }
+
+    @Override
+    public ListIterator<E> listIterator(int index) {
+        if (index != size) {
+            check(index);
+        }
+        return new UnrolledLinkedListIterator(index);
+    }
+
+    @Override
+    public void remove(int index) {
+        check(index);
+        ListIterator<E> itr = listIterator(index);
+        itr.next();
+        itr.remove();
+    }
+
+    @Override
+    public void set(int index, E element) {
+        check(index);
+        ListIterator<E> itr = listIterator(index);
+        itr.next();
+        itr.set(element);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    private Node linkAfter(Node node) {
+        Node temp = new Node(NODE_CAPACITY);
+        temp.prev = node;
+        temp.next = node.next;
+        node.next.prev = temp;
+        node.next = temp;
+        return temp;
+    }
+
+    private void unlink(Node node) {
+        // the links of the removed node are kept so that an iterator standing on it can move on
+        node.prev.next = node.next;
+        node.next.prev = node.prev;
+    }
+
+    /**
+     * Inserts the element at the offset of a node that has room for it.
+     */
+    private void insert(Node node, int offset, E element) {
+        System.arraycopy(node.items, offset, node.items, offset + 1, node.count - offset);
+        node.items[offset] = element;
+        node.count++;
+        size++;
+        modificationCount++;
+    }
+
+    /**
+     * Moves the upper half of a full node into a new node after it.
+     */
+    private Node split(Node node) {
+        Node temp = linkAfter(node);
+        int moved = node.count - MIN_COUNT;
+        System.arraycopy(node.items, MIN_COUNT, temp.items, 0, moved);
+        Arrays.fill(node.items, MIN_COUNT, node.count, null);
+        node.count = MIN_COUNT;
+        temp.count = moved;
+        return temp;
+    }
+
+    /**
+     * Removes the element at the offset of the node. Afterwards the element that followed it is at the
+     * same offset of the node, or first in the node after it if the offset is past the end.
+     */
+    private void removeAt(Node node, int offset) {
+        System.arraycopy(node.items, offset + 1, node.items, offset, node.count - offset - 1);
+        node.items[--node.count] = null;
+        if (node.count == 0) {
+            unlink(node);
+        } else if (node.count < MIN_COUNT && node.next != list) {
+            Node next = node.next;
+            int moved = node.count + next.count <= NODE_CAPACITY ? next.count : (next.count - node.count) / 2;
+            System.arraycopy(next.items, 0, node.items, node.count, moved);
+            node.count += moved;
+            if (moved == next.count) {
+                unlink(next);
+            } else {
+                System.arraycopy(next.items, moved, next.items, 0, next.count - moved);
+                Arrays.fill(next.items, next.count - moved, next.count, null);
+                next.count -= moved;
+            }
+        }
+        size--;
+        modificationCount++;
+    }
+
+    private class UnrolledLinkedListIterator implements ListIterator<E> {
+        Node lastNode;
+        int lastOffset;
+        int lastIndex;
+        // position of the next element, or the sentinel at the end of the list
+        Node node;
+        int offset;
+        int index;
+        int expectedModCount;
+
+        public UnrolledLinkedListIterator(int index) {
+            this.lastNode = null;
+            this.index = index;
+            this.expectedModCount = modificationCount;
+            if (index == size) {
+                node = list;
+            } else if (index < size >> 1) {
+                node = list.next;
+                int i = index;
+                while (i >= node.count) {
+                    i -= node.count;
+                    node = node.next;
+                }
+                offset = i;
+            } else {
+                node = list.prev;
+                int i = size - index;
+                while (i > node.count) {
+                    i -= node.count;
+                    node = node.prev;
+                }
+                offset = node.count - i;
+            }
+        }
+
+        @Override
+        public void add(E element) {
+            checkForModification();
+            if (node == list) {
+                Node last = list.prev;
+                if (last == list || last.count == NODE_CAPACITY) {
+                    last = linkAfter(last);
+                }
+                insert(last, last.count, element);
+            } else if (offset == 0 && node.prev != list && node.prev.count < NODE_CAPACITY) {
+                insert(node.prev, node.prev.count, element);
+            } else {
+                if (node.count == NODE_CAPACITY) {
+                    Node temp = split(node);
+                    if (offset > MIN_COUNT) {
+                        node = temp;
+                        offset -= MIN_COUNT;
+                    }
+                }
+                insert(node, offset++, element);
+                normalize();
+            }
+            index++;
+            lastNode = null;
+            expectedModCount = modificationCount;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return index < size;
+        }
+
+        @Override
+        public boolean hasPrevious() {
+            return index > 0;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public E next() {
+            checkForModification();
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            lastNode = node;
+            lastOffset = offset;
+            lastIndex = index++;
+            offset++;
+            normalize();
+            return (E) lastNode.items[lastOffset];
+        }
+
+        @Override
+        public int nextIndex() {
+            return index;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public E previous() {
+            checkForModification();
+            if (!hasPrevious()) {
+                throw new NoSuchElementException();
+            }
+            if (offset == 0) {
+                node = node.prev;
+                offset = node.count;
+            }
+            offset--;
+            lastNode = node;
+            lastOffset = offset;
+            lastIndex = --index;
+            return (E) node.items[offset];
+        }
+
+        @Override
+        public int previousIndex() {
+            return index - 1;
+        }
+
+        @Override
+        public void remove() {
+            checkForModification();
+            if (lastNode == null) {
+                throw new IllegalStateException();
+            }
+            removeAt(lastNode, lastOffset);
+            // whichever way it was reached, the removed element's successor is now next
+            node = lastNode;
+            offset = lastOffset;
+            normalize();
+            if (lastIndex < index) {
+                index--;
+            }
+            lastNode = null;
+            expectedModCount = modificationCount;
+        }
+
+        @Override
+        public void set(E element) {
+            checkForModification();
+            if (lastNode == null) {
+                throw new IllegalStateException();
+            }
+            lastNode.items[lastOffset] = element;
+        }
+
+        private void normalize() {
+            if (offset == node.count && node != list) {
+                node = node.next;
+                offset = 0;
+            }
+        }
+
+        private void checkForModification() {
+            if (expectedModCount != modificationCount) {
+                throw new ConcurrentModificationException();
+            }
+        }
+    }
+
+    private static final class Node {
+        final Object[] items;
+        int count;
+        Node prev;
+        Node next;
+
+        Node(int capacity) {
+            this.items = new Object[capacity];
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package lock14.datastructures;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+import java.util.Comparator;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import lock14.datastructures.AddressableQueue.Handle;
+import org.junit.Test;
+
+public abstract class AddressableQueueTest extends CollectionTest<Integer> {
+    Function<Comparator<Integer>, AddressableQueue<Integer>> queueWithComparator;
+    // moves the elements of the second queue into the first, or null if the queue cannot be melded
+    BiConsumer<AddressableQueue<Integer>, AddressableQueue<Integer>> meld;
+
+    public AddressableQueueTest(Supplier<Collection<Integer>> collectionSupplier,
+                                Function<Collection<Integer>, Collection<Integer>> fromCollection,
+                                Function<Comparator<Integer>, AddressableQueue<Integer>> queueWithComparator) {
+        this(collectionSupplier, fromCollection, queueWithComparator, null);
+    }
+
+    public AddressableQueueTest(Supplier<Collection<Integer>> collectionSupplier,
+                                Function<Collection<Integer>, Collection<Integer>> fromCollection,
+                                Function<Comparator<Integer>, AddressableQueue<Integer>> queueWithComparator,
+                                BiConsumer<AddressableQueue<Integer>, AddressableQueue<Integer>> meld) {
+        super(collectionSupplier, fromCollection, new AtomicInteger()::getAndIncrement);
+        this.queueWithComparator = queueWithComparator;
+        this.meld = meld;
+    }
+
+    @Test
+    public void testDequeueInOrder() {
+        AddressableQueue<Integer> queue = queueWithComparator.apply(Comparator.naturalOrder());
+        java.util.PriorityQueue<Integer> expected = new java.util.PriorityQueue<>();
+        for (int i = 0; i < TEST_SIZE; i++) {
+            int e = RNG.nextInt();
+            queue.enqueue(e);
+            expected.add(e);
+            if (RNG.nextInt(4) == 0) {
+                assertEquals(expected.remove(), queue.dequeue());
+            }
+        }
+        while (!expected.isEmpty()) {
+            assertEquals(expected.peek(), queue.peek());
+            assertEquals(expected.remove(), queue.dequeue());
+        }
+        assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    public void testHandles() {
+        AddressableQueue<Integer> queue = queueWithComparator.apply(Comparator.reverseOrder());
+        java.util.PriorityQueue<Integer> expected = new java.util.PriorityQueue<>(Comparator.reverseOrder());
+        java.util.List<Handle<Integer>> handles = new java.util.ArrayList<>();
+        for (int i = 0; i < TEST_SIZE / 10; i++) {
+            int e = RNG.nextInt(TEST_SIZE);
+            handles.add(queue.insert(e));
+            expected.add(e);
+        }
+        for (int i = 0; i < TEST_SIZE / 10; i++) {
+            if (RNG.nextInt(10) == 0) {
+                assertEquals(expected.remove(), queue.dequeue());
+                continue;
+            }
+            Handle<Integer> handle = handles.get(RNG.nextInt(handles.size()));
+            if (!queue.contains(handle)) {
+                continue;
+            }
+            int old = handle.element();
+            expected.remove(old);
+            switch (RNG.nextInt(3)) {
+                case 0:
+                    // larger is higher priority in a max queue
+                    queue.decreaseKey(handle, old + RNG.nextInt(100));
+                    expected.add(handle.element());
+                    break;
+                case 1:
+                    queue.increaseKey(handle, old - RNG.nextInt(100));
+                    expected.add(handle.element());
+                    break;
+                default:
+                    queue.remove(handle);
+                    assertFalse(queue.contains(handle));
+                    break;
+            }
+        }
+        assertEquals(expected.size(), queue.size());
+        while (!expected.isEmpty()) {
+            assertEquals(expected.remove(), queue.dequeue());
+        }
+    }
+
+    @Test
+    public void testDequeuedHandleIsStale() {
+        AddressableQueue<Integer> queue = queueWithComparator.apply(Comparator.naturalOrder());
+        Handle<Integer> a = queue.insert(1);
+        Handle<Integer> b = queue.insert(2);
+        assertEquals(1, (int) queue.dequeue());
+        assertFalse(queue.contains(a));
+        assertTrue(queue.contains(b));
+        assertFalse(queueWithComparator.apply(Comparator.naturalOrder()).contains(b));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testDecreaseKeyRejectsLowerPriority() {
+        AddressableQueue<Integer> queue = queueWithComparator.apply(Comparator.naturalOrder());
+        Handle<Integer> handle = queue.insert(5);
+        queue.decreaseKey(handle, 6);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRemoveStaleHandle() {
+        AddressableQueue<Integer> queue = queueWithComparator.apply(Comparator.naturalOrder());
+        Handle<Integer> handle = queue.insert(5);
+        queue.remove(handle);
+        queue.remove(handle);
+    }
+
+    @Test
+    public void testMeld() {
+        assumeTrue(meld != null);
+        AddressableQueue<Integer> queue = queueWithComparator.apply(Comparator.naturalOrder());
+        java.util.PriorityQueue<Integer> expected = new java.util.PriorityQueue<>();
+        java.util.List<Handle<Integer>> handles = new java.util.ArrayList<>();
+        for (int part = 0; part < 10; part++) {
+            AddressableQueue<Integer> other = queueWithComparator.apply(Comparator.naturalOrder());
+            for (int i = 0; i < TEST_SIZE / 100; i++) {
+                int e = RNG.nextInt(TEST_SIZE);
+                handles.add(other.insert(e));
+                expected.add(e);
+            }
+            meld.accept(queue, other);
+            assertTrue(other.isEmpty());
+            assertFalse(other.contains(handles.get(handles.size() - 1)));
+        }
+        assertEquals(expected.size(), queue.size());
+        for (Handle<Integer> handle : handles) {
+            assertTrue(queue.contains(handle));
+            if (RNG.nextBoolean()) {
+                expected.remove(handle.element());
+                queue.decreaseKey(handle, handle.element() - TEST_SIZE);
+                expected.add(handle.element());
+            }
+        }
+        while (!expected.isEmpty()) {
+            assertEquals(expected.remove(), queue.dequeue());
+        }
+    }
+}
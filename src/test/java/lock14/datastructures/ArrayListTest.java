@@ -4,8 +4,12 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotEquals;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import java.util.ConcurrentModificationException;
+import java.util.Spliterator;
 import java.util.function.Supplier;
 import java.util.stream.Collector;
+import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 import java.util.stream.Stream;
 import org.junit.Test;
@@ -81,6 +85,109 @@ public class ArrayListTest {
         assertNotEquals(list1, collect(IntStream.range(0, 99)));
     }
 
+    @Test
+    public void testAddAllAtIndex() {
+        ArrayList<Integer> list = collect(IntStream.range(0, 10));
+        list.addAll(5, collect(IntStream.range(100, 120)));
+        assertEquals(30, list.size());
+        assertEquals(collect(IntStream.concat(IntStream.concat(IntStream.range(0, 5), IntStream.range(100, 120)),
+                                              IntStream.range(5, 10))),
+                     list);
+        list.addAll(list.size(), new ArrayList<>());
+        assertEquals(30, list.size());
+    }
+
+    @Test
+    public void testAddAllToItself() {
+        ArrayList<Integer> list = collect(IntStream.range(0, 3));
+        list.addAll(1, list);
+        assertEquals("[0, 0, 1, 2, 1, 2]", list.toString());
+        list.addAll(list);
+        assertEquals(12, list.size());
+    }
+
+    @Test
+    public void testAddToZeroCapacity() {
+        ArrayList<Integer> list = new ArrayList<>(0);
+        list.add(1);
+        list.addAll(collect(IntStream.range(2, 100)));
+        assertEquals(collect(IntStream.range(1, 100)), list);
+    }
+
+    @Test
+    public void testRemoveRange() {
+        ArrayList<Integer> list = collect(IntStream.range(0, 100));
+        list.removeRange(10, 90);
+        assertEquals(collect(IntStream.concat(IntStream.range(0, 10), IntStream.range(90, 100))), list);
+        list.removeRange(5, 5);
+        assertEquals(20, list.size());
+        list.removeRange(0, list.size());
+        assertTrue(list.isEmpty());
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testRemoveRangeOutOfBounds() {
+        collect(IntStream.range(0, 10)).removeRange(5, 11);
+    }
+
+    @Test
+    public void testRemoveIf() {
+        ArrayList<Integer> list = collect(IntStream.range(0, 100));
+        list.removeIf(n -> n % 3 == 0);
+        assertEquals(collect(IntStream.range(0, 100).filter(n -> n % 3 != 0)), list);
+    }
+
+    @Test
+    public void testRemoveIfLeavesListUnchangedWhenPredicateThrows() {
+        ArrayList<Integer> list = collect(IntStream.range(0, 10));
+        try {
+            list.removeIf(n -> {
+                if (n == 5) {
+                    throw new IllegalStateException();
+                }
+                return n % 2 == 0;
+            });
+        } catch (IllegalStateException e) {
+            // expected
+        }
+        assertEquals(collect(IntStream.range(0, 10)), list);
+    }
+
+    @Test
+    public void testRemoveIfKeepsElementsWhenPredicateModifiesList() {
+        ArrayList<Integer> list = collect(IntStream.range(0, 10));
+        try {
+            list.removeIf(n -> {
+                if (n == 5) {
+                    list.add(10);
+                }
+                return n % 2 == 0;
+            });
+            fail();
+        } catch (ConcurrentModificationException e) {
+            // expected
+        }
+        assertEquals(collect(IntStream.range(0, 11)), list);
+    }
+
+    @Test
+    public void testRetainAll() {
+        ArrayList<Integer> list = collect(IntStream.range(0, 100));
+        list.retainAll(collect(IntStream.range(50, 60)));
+        assertEquals(collect(IntStream.range(50, 60)), list);
+    }
+
+    @Test
+    public void testParallelStreamKeepsOrder() {
+        ArrayList<Integer> list = collect(IntStream.range(0, 100000));
+        java.util.List<Integer> expected = IntStream.range(0, 100000).boxed().collect(Collectors.toList());
+        assertEquals(expected, list.parallelStream().collect(Collectors.toList()));
+        Spliterator<Integer> spliterator = list.spliterator();
+        assertTrue(spliterator.hasCharacteristics(Spliterator.SIZED | Spliterator.SUBSIZED | Spliterator.ORDERED));
+        Spliterator<Integer> prefix = spliterator.trySplit();
+        assertEquals(100000, prefix.estimateSize() + spliterator.estimateSize());
+    }
+
     private static ArrayList<Integer> collect(IntStream stream) {
         return collect(stream.boxed());
     }
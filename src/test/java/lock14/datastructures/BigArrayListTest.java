@@ -0,0 +1,125 @@
+package lock14.datastructures;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import java.util.Iterator;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+import org.junit.Test;
+import lock14.datastructures.impl.BigArrayList;
+
+public class BigArrayListTest extends CollectionTest<Integer> {
+
+    public BigArrayListTest() {
+        super(() -> new BigArrayList<Integer>(64).asList(),
+              c -> new BigArrayList<Integer>(c).asList(),
+              new AtomicInteger()::getAndIncrement);
+    }
+
+    @Test
+    public void testAddAndRemoveByIndexAcrossChunks() {
+        BigArrayList<Integer> list = new BigArrayList<>(8);
+        java.util.List<Integer> expected = new java.util.ArrayList<>();
+        for (int i = 0; i < TEST_SIZE / 20; i++) {
+            int index = RNG.nextInt(expected.size() + 1);
+            list.add(index, i);
+            expected.add(index, i);
+        }
+        assertSameElements(expected, list);
+        for (int i = 0; i < TEST_SIZE / 20; i++) {
+            int index = RNG.nextInt(expected.size());
+            if (RNG.nextInt(3) == 0) {
+                list.set(index, -i);
+                expected.set(index, -i);
+            } else {
+                list.remove(index);
+                expected.remove(index);
+            }
+        }
+        assertSameElements(expected, list);
+    }
+
+    @Test
+    public void testLongIndices() {
+        BigArrayList<Long> list = new BigArrayList<>(16);
+        for (long i = 0; i < 1000; i++) {
+            list.add(i * i);
+        }
+        assertEquals(1000L, list.size());
+        assertEquals(999L * 999L, (long) list.get(999L));
+        assertEquals(30L, list.indexOf(900L));
+        assertEquals(-1L, list.indexOf(901L));
+        assertTrue(list.contains(0L));
+    }
+
+    @Test
+    public void testIteratorRemove() {
+        BigArrayList<Integer> list = new BigArrayList<>(4);
+        for (int i = 0; i < 100; i++) {
+            list.add(i);
+        }
+        Iterator<Integer> itr = list.iterator();
+        while (itr.hasNext()) {
+            if (itr.next() % 2 == 0) {
+                itr.remove();
+            }
+        }
+        assertEquals(50L, list.size());
+        int expected = 1;
+        for (int e : list) {
+            assertEquals(expected, e);
+            expected += 2;
+        }
+    }
+
+    @Test
+    public void testTrimAndClear() {
+        BigArrayList<Integer> list = new BigArrayList<>(4);
+        list.ensureCapacity(1000);
+        for (int i = 0; i < 10; i++) {
+            list.add(i);
+        }
+        list.trimToSize();
+        for (int i = 10; i < 100; i++) {
+            list.add(i);
+        }
+        assertEquals(99, (int) list.get(99));
+        list.clear();
+        assertTrue(list.isEmpty());
+        assertFalse(list.iterator().hasNext());
+        list.add(7);
+        assertEquals("[7]", list.toString());
+    }
+
+    @Test
+    public void testParallelStream() {
+        BigArrayList<Long> list = new BigArrayList<>(128);
+        LongStream.range(0, TEST_SIZE).forEach(list::add);
+        assertEquals(LongStream.range(0, TEST_SIZE).boxed().collect(Collectors.toList()),
+                     list.parallelStream().collect(Collectors.toList()));
+        assertEquals((long) TEST_SIZE * (TEST_SIZE - 1) / 2,
+                     list.parallelStream().mapToLong(Long::longValue).sum());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testChunkSizeMustBePowerOfTwo() {
+        new BigArrayList<Integer>(12);
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testOutOfRange() {
+        BigArrayList<Integer> list = new BigArrayList<>();
+        list.add(1);
+        list.get(1L);
+    }
+
+    private static void assertSameElements(java.util.List<Integer> expected, BigArrayList<Integer> list) {
+        assertEquals(expected.size(), list.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i), list.get(i));
+        }
+        assertEquals(expected, list.stream().collect(Collectors.toList()));
+    }
+}
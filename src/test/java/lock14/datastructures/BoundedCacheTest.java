@@ -0,0 +1,114 @@
+package lock14.datastructures;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+import lock14.datastructures.impl.BoundedCache;
+import lock14.datastructures.impl.BoundedCache.Policy;
+
+public class BoundedCacheTest extends MapTest {
+
+    public BoundedCacheTest() {
+        super(() -> new BoundedCache<>(1 << 16));
+    }
+
+    @Test
+    public void testNeverExceedsMaximumSize() {
+        for (Policy policy : Policy.values()) {
+            BoundedCache<Integer, Integer> cache = new BoundedCache<>(100, policy);
+            for (int i = 0; i < TEST_SIZE; i++) {
+                int key = RNG.nextInt(1000);
+                if (RNG.nextBoolean()) {
+                    cache.put(key, key);
+                } else if (RNG.nextInt(4) == 0) {
+                    cache.remove(key);
+                } else {
+                    Integer value = cache.get(key);
+                    assertTrue(value == null || value == key);
+                }
+                assertTrue(cache.size() <= 100);
+            }
+            int count = 0;
+            for (Pair<Integer, Integer> entry : cache.entrySet()) {
+                assertEquals(entry.first(), entry.second());
+                count++;
+            }
+            assertEquals(cache.size(), count);
+        }
+    }
+
+    @Test
+    public void testLruEvictsLeastRecentlyUsed() {
+        List<Integer> evicted = new ArrayList<>();
+        BoundedCache<Integer, String> cache = new BoundedCache<>(3, Policy.LRU, (key, value) -> evicted.add(key));
+        cache.put(1, "one");
+        cache.put(2, "two");
+        cache.put(3, "three");
+        cache.get(1);
+        cache.put(4, "four");
+        assertFalse(cache.containsKey(2));
+        cache.put(5, "five");
+        assertFalse(cache.containsKey(3));
+        assertEquals(2, evicted.size());
+        assertEquals(Integer.valueOf(2), evicted.get(0));
+        assertEquals(Integer.valueOf(3), evicted.get(1));
+        assertEquals(2, cache.evictionCount());
+    }
+
+    @Test
+    public void testLfuEvictsLeastFrequentlyUsed() {
+        BoundedCache<Integer, String> cache = new BoundedCache<>(3, Policy.LFU);
+        cache.put(1, "one");
+        cache.put(2, "two");
+        cache.put(3, "three");
+        cache.get(1);
+        cache.get(1);
+        cache.get(3);
+        cache.put(4, "four");
+        assertFalse(cache.containsKey(2));
+        cache.get(4);
+        cache.get(4);
+        // 3 and 5 now share the lowest frequency and 3 was used less recently
+        cache.put(5, "five");
+        assertFalse(cache.containsKey(3));
+        assertTrue(cache.containsKey(1));
+        assertTrue(cache.containsKey(4));
+    }
+
+    @Test
+    public void testTinyLfuResistsScans() {
+        BoundedCache<Integer, Integer> cache = new BoundedCache<>(100);
+        for (int round = 0; round < 10; round++) {
+            for (int i = 0; i < 50; i++) {
+                cache.put(i, i);
+                cache.get(i);
+            }
+        }
+        // a long scan of keys seen only once must not flush the popular ones
+        for (int i = 1000; i < 1000 + TEST_SIZE; i++) {
+            cache.put(i, i);
+        }
+        int retained = 0;
+        for (int i = 0; i < 50; i++) {
+            if (cache.containsKey(i)) {
+                retained++;
+            }
+        }
+        assertTrue(retained >= 45);
+    }
+
+    @Test
+    public void testCounters() {
+        BoundedCache<Integer, Integer> cache = new BoundedCache<>(10, Policy.LRU);
+        cache.put(1, 1);
+        assertEquals(Integer.valueOf(1), cache.get(1));
+        assertNull(cache.get(2));
+        assertEquals(1, cache.hitCount());
+        assertEquals(1, cache.missCount());
+        assertEquals(0.5, cache.hitRate(), 0.0);
+    }
+}
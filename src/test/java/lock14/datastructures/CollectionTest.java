@@ -88,6 +88,22 @@ public abstract class CollectionTest<T> {
         }
     }
 
+    @Test
+    public void testStreams() {
+        java.util.List<T> items = Stream.generate(tSupplier)
+                                        .limit(RNG.nextInt(TEST_SIZE))
+                                        .collect(Collectors.toList());
+        Collection<T> collection = collect(items.stream());
+        java.util.Map<T, Long> expected = items.stream()
+                                               .collect(Collectors.groupingBy(Function.identity(),
+                                                                              Collectors.counting()));
+        assertEquals(expected,
+                     collection.stream().collect(Collectors.groupingBy(Function.identity(), Collectors.counting())));
+        assertEquals(expected, collection.parallelStream()
+                                         .collect(Collectors.groupingBy(Function.identity(), Collectors.counting())));
+        assertEquals(items.size(), collection.parallelStream().count());
+    }
+
     private Collection<T> collect(Stream<T> stream) {
         return stream.collect(Collector.of(collectionSupplier,
                                            Collection::add,
@@ -0,0 +1,113 @@
+package lock14.datastructures;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Test;
+import lock14.datastructures.impl.ConcurrentHashTable;
+
+public class ConcurrentHashTableTest extends MapTest {
+    private static final int THREADS = 8;
+
+    public ConcurrentHashTableTest() {
+        super(ConcurrentHashTable::new);
+    }
+
+    @Override
+    @Test
+    public void testConcurrentModification() {
+        // iterators are weakly consistent, so removing while iterating is allowed
+        Map<Integer, Integer> map = fill(new java.util.HashMap<>(), RNG.nextInt(TEST_SIZE) + 2);
+        for (Integer key : map.keySet()) {
+            map.remove(key);
+        }
+        assertTrue(map.isEmpty());
+    }
+
+    @Test
+    public void testConcurrentMerge() throws InterruptedException {
+        ConcurrentHashTable<Integer, Integer> map = new ConcurrentHashTable<>();
+        runConcurrently(() -> {
+            for (int i = 0; i < TEST_SIZE; i++) {
+                map.merge(i % 1000, 1, Integer::sum);
+            }
+        });
+        assertEquals(1000, map.size());
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(Integer.valueOf(THREADS * TEST_SIZE / 1000), map.get(i));
+        }
+    }
+
+    @Test
+    public void testConcurrentPutAndRemove() throws InterruptedException {
+        ConcurrentHashTable<Integer, Integer> map = new ConcurrentHashTable<>();
+        AtomicInteger threadIds = new AtomicInteger();
+        runConcurrently(() -> {
+            int id = threadIds.getAndIncrement();
+            for (int i = 0; i < TEST_SIZE; i++) {
+                map.put(id * TEST_SIZE + i, i);
+            }
+            for (int i = 0; i < TEST_SIZE; i += 2) {
+                assertEquals(Integer.valueOf(i), map.remove(id * TEST_SIZE + i));
+            }
+        });
+        assertEquals(THREADS * TEST_SIZE / 2, map.size());
+        int count = 0;
+        for (Pair<Integer, Integer> entry : map.entrySet()) {
+            assertEquals(entry.first() % TEST_SIZE, (int) entry.second());
+            count++;
+        }
+        assertEquals(THREADS * TEST_SIZE / 2, count);
+    }
+
+    @Test
+    public void testComputeIfAbsentIsAtomic() throws InterruptedException {
+        ConcurrentHashTable<Integer, Integer> map = new ConcurrentHashTable<>();
+        AtomicInteger calls = new AtomicInteger();
+        runConcurrently(() -> {
+            for (int i = 0; i < TEST_SIZE; i++) {
+                map.computeIfAbsent(i, key -> calls.incrementAndGet());
+            }
+        });
+        assertEquals(TEST_SIZE, calls.get());
+        assertEquals(TEST_SIZE, map.size());
+    }
+
+    @Override
+    @Test
+    public void testPutIfAbsent() {
+        super.testPutIfAbsent();
+        ConcurrentHashTable<Integer, Integer> map = new ConcurrentHashTable<>();
+        assertEquals(null, map.putIfAbsent(1, 1));
+        assertEquals(Integer.valueOf(1), map.putIfAbsent(1, 2));
+        assertEquals(Integer.valueOf(1), map.get(1));
+    }
+
+    private static void runConcurrently(Runnable task) throws InterruptedException {
+        CountDownLatch start = new CountDownLatch(1);
+        List<Throwable> failures = new ArrayList<>();
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            Thread thread = new Thread(() -> {
+                try {
+                    start.await();
+                    task.run();
+                } catch (Throwable t) {
+                    synchronized (failures) {
+                        failures.add(t);
+                    }
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertTrue(failures.toString(), failures.isEmpty());
+    }
+}
@@ -0,0 +1,152 @@
+package lock14.datastructures;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import java.util.Iterator;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.junit.Test;
+import lock14.datastructures.impl.ArrayList;
+import lock14.datastructures.impl.CopyOnWriteArrayList;
+
+public class CopyOnWriteArrayListTest {
+    private static final int TEST_SIZE = 1000;
+
+    @Test
+    public void testAddGetRemove() {
+        CopyOnWriteArrayList<Integer> list = new CopyOnWriteArrayList<>();
+        java.util.List<Integer> expected = new java.util.ArrayList<>();
+        for (int i = 0; i < TEST_SIZE; i++) {
+            int index = i % 7 == 0 ? 0 : expected.size();
+            list.add(index, i);
+            expected.add(index, i);
+        }
+        for (int i = 0; i < TEST_SIZE / 2; i++) {
+            list.remove(i);
+            expected.remove(i);
+            list.set(i, -i);
+            expected.set(i, -i);
+        }
+        list.remove(Integer.valueOf(TEST_SIZE - 1));
+        expected.remove(Integer.valueOf(TEST_SIZE - 1));
+        assertEquals(expected, list.stream().collect(Collectors.toList()));
+        assertEquals(expected.indexOf(-3), list.indexOf(-3));
+    }
+
+    @Test
+    public void testIteratorIsSnapshot() {
+        CopyOnWriteArrayList<Integer> list = range(0, TEST_SIZE);
+        Iterator<Integer> itr = list.iterator();
+        list.clear();
+        list.add(-1);
+        for (int i = 0; i < TEST_SIZE; i++) {
+            assertEquals(Integer.valueOf(i), itr.next());
+        }
+        assertFalse(itr.hasNext());
+        assertEquals(1, list.size());
+    }
+
+    @Test
+    public void testForEachRemoveDoesNotThrow() {
+        CopyOnWriteArrayList<Integer> list = range(0, TEST_SIZE);
+        for (Integer i : list) {
+            list.remove(i);
+        }
+        assertTrue(list.isEmpty());
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testIteratorRemoveIsUnsupported() {
+        Iterator<Integer> itr = range(0, 10).iterator();
+        itr.next();
+        itr.remove();
+    }
+
+    @Test
+    public void testUpdateAppliesBatch() {
+        CopyOnWriteArrayList<Integer> list = range(0, TEST_SIZE);
+        list.update(working -> {
+            working.removeIf(i -> i % 2 == 0);
+            working.add(0, -1);
+            working.set(1, -2);
+        });
+        assertEquals(TEST_SIZE / 2 + 1, list.size());
+        assertEquals(Integer.valueOf(-1), list.get(0));
+        assertEquals(Integer.valueOf(-2), list.get(1));
+        assertEquals(Integer.valueOf(3), list.get(2));
+    }
+
+    @Test
+    public void testEscapedWorkingListCannotChangeSnapshot() {
+        CopyOnWriteArrayList<Integer> list = range(0, 10);
+        java.util.List<ArrayList<Integer>> escaped = new java.util.ArrayList<>();
+        list.update(escaped::add);
+        ArrayList<Integer> working = escaped.get(0);
+        assertTrue(working.isEmpty());
+        working.add(-1);
+        assertEquals(range(0, 10), list);
+    }
+
+    @Test
+    public void testFailedUpdateLeavesListUnchanged() {
+        CopyOnWriteArrayList<Integer> list = range(0, 10);
+        try {
+            list.update(working -> {
+                working.clear();
+                throw new IllegalStateException();
+            });
+        } catch (IllegalStateException e) {
+            // expected
+        }
+        assertEquals(range(0, 10), list);
+    }
+
+    @Test
+    public void testAddIfAbsent() {
+        CopyOnWriteArrayList<Integer> list = range(0, 10);
+        assertFalse(list.addIfAbsent(5));
+        assertTrue(list.addIfAbsent(10));
+        list.addAllAbsent(range(5, 15));
+        assertEquals(range(0, 15), list);
+    }
+
+    @Test
+    public void testReadersSeeConsistentSnapshots() throws Exception {
+        CopyOnWriteArrayList<Integer> list = new CopyOnWriteArrayList<>();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            java.util.List<Future<?>> readers = new java.util.ArrayList<>();
+            for (int t = 0; t < 3; t++) {
+                readers.add(executor.submit(() -> {
+                    for (int i = 0; i < TEST_SIZE; i++) {
+                        // every published version holds 0..n-1 in order
+                        int expected = 0;
+                        for (Integer value : list) {
+                            assertEquals(Integer.valueOf(expected++), value);
+                        }
+                    }
+                }));
+            }
+            for (int i = 0; i < TEST_SIZE; i++) {
+                list.add(i);
+            }
+            for (Future<?> reader : readers) {
+                reader.get(1, TimeUnit.MINUTES);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(TEST_SIZE, list.size());
+    }
+
+    private static CopyOnWriteArrayList<Integer> range(int from, int to) {
+        ArrayList<Integer> elements = new ArrayList<>();
+        IntStream.range(from, to).forEach(elements::add);
+        return new CopyOnWriteArrayList<>(elements);
+    }
+}
@@ -0,0 +1,48 @@
+package lock14.datastructures;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import java.util.Spliterator;
+import java.util.stream.Collectors;
+import org.junit.Test;
+import lock14.datastructures.impl.ArrayList;
+import lock14.datastructures.impl.CopyOnWriteArraySet;
+
+public class CopyOnWriteArraySetTest {
+
+    @Test
+    public void testAddIgnoresDuplicates() {
+        CopyOnWriteArraySet<Integer> set = new CopyOnWriteArraySet<>();
+        for (int i = 0; i < 100; i++) {
+            set.add(i % 10);
+        }
+        assertEquals(10, set.size());
+        for (int i = 0; i < 10; i++) {
+            assertTrue(set.contains(i));
+        }
+        assertFalse(set.contains(10));
+    }
+
+    @Test
+    public void testBulkOperations() {
+        ArrayList<Integer> elements = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            elements.add(i % 15);
+        }
+        CopyOnWriteArraySet<Integer> set = new CopyOnWriteArraySet<>(elements);
+        assertEquals(15, set.size());
+        ArrayList<Integer> evens = new ArrayList<>();
+        for (int i = 0; i < 15; i += 2) {
+            evens.add(i);
+        }
+        set.removeAll(evens);
+        assertEquals(7, set.size());
+        set.retainAll(new ArrayList<>(elements));
+        assertEquals(7, set.size());
+        set.remove(1);
+        assertFalse(set.contains(1));
+        assertEquals(java.util.Arrays.asList(3, 5, 7, 9, 11, 13), set.stream().collect(Collectors.toList()));
+        assertTrue(set.spliterator().hasCharacteristics(Spliterator.DISTINCT | Spliterator.IMMUTABLE));
+    }
+}
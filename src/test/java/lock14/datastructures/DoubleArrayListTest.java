@@ -0,0 +1,29 @@
+package lock14.datastructures;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import org.junit.Test;
+import lock14.datastructures.impl.DoubleArrayList;
+
+public class DoubleArrayListTest extends CollectionTest<Double> {
+
+    public DoubleArrayListTest() {
+        super(() -> new DoubleArrayList().asList(), c -> {
+            List<Double> list = new DoubleArrayList().asList();
+            if (c != null) {
+                list.addAll(c);
+            }
+            return list;
+        }, RNG::nextDouble);
+    }
+
+    @Test
+    public void testSortAndIndexOf() {
+        DoubleArrayList list = new DoubleArrayList(new double[]{2.5, Double.NaN, -1.0, 0.0});
+        assertEquals(1, list.indexOf(Double.NaN));
+        list.sort();
+        assertArrayEquals(new double[]{-1.0, 0.0, 2.5, Double.NaN}, list.toArray(), 0.0);
+        assertEquals(2, list.binarySearch(2.5));
+        assertEquals(1, list.asList().indexOf(0.0));
+    }
+}
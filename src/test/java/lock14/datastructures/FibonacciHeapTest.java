@@ -0,0 +1,10 @@
+package lock14.datastructures;
+
+import lock14.datastructures.impl.FibonacciHeap;
+
+public class FibonacciHeapTest extends AddressableQueueTest {
+    public FibonacciHeapTest() {
+        super(FibonacciHeap::new, FibonacciHeap::new, FibonacciHeap::new,
+              (queue, other) -> ((FibonacciHeap<Integer>) queue).meld((FibonacciHeap<Integer>) other));
+    }
+}
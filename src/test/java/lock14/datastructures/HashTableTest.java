@@ -0,0 +1,155 @@
+package lock14.datastructures;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.function.IntFunction;
+import org.junit.Test;
+import lock14.datastructures.impl.HashTable;
+
+public class HashTableTest extends MapTest {
+
+    public HashTableTest() {
+        super(HashTable::new);
+    }
+
+    @Test
+    public void testStatistics() {
+        HashTable<Integer, Integer> map = new HashTable<>(16);
+        assertFalse(map.isStatisticsEnabled());
+        map.enableStatistics();
+        for (int i = 0; i < TEST_SIZE; i++) {
+            map.put(i, i);
+        }
+        for (int i = 0; i < TEST_SIZE; i++) {
+            map.get(i);
+        }
+        HashTable.Statistics statistics = map.statistics();
+        assertEquals(TEST_SIZE, statistics.size());
+        assertTrue(statistics.loadFactor() <= statistics.maxLoadFactor());
+        assertEquals(2 * TEST_SIZE, statistics.lookups());
+        assertTrue(statistics.averageProbes() > 0);
+        assertTrue(statistics.maxProbes() >= statistics.averageProbes());
+        assertTrue(statistics.resizes() > 0);
+        int buckets = 0;
+        int entries = 0;
+        int[] histogram = statistics.chainLengthHistogram();
+        for (int length = 0; length < histogram.length; length++) {
+            buckets += histogram[length];
+            entries += length * histogram[length];
+        }
+        assertEquals(statistics.bucketCount(), buckets);
+        assertEquals(TEST_SIZE, entries);
+
+        map.disableStatistics();
+        map.get(0);
+        assertEquals(0, map.statistics().lookups());
+    }
+
+    @Test
+    public void testStatisticsShowTreeBins() {
+        HashTable<Key, Integer> map = new HashTable<>();
+        for (int i = 0; i < 100; i++) {
+            map.put(new Key(i), i);
+        }
+        HashTable.Statistics statistics = map.statistics();
+        assertEquals(3, statistics.treeBins());
+        assertEquals(34, statistics.maxChainLength());
+    }
+
+    @Test(expected = ConcurrentModificationException.class)
+    public void testComputeIfAbsentRejectsModifyingFunction() {
+        Map<Integer, Integer> map = new HashTable<>();
+        map.computeIfAbsent(1, key -> map.put(2, 2));
+    }
+
+    @Test
+    public void testCollidingComparableKeys() {
+        testCollidingKeys(ComparableKey::new);
+    }
+
+    @Test
+    public void testCollidingKeys() {
+        testCollidingKeys(Key::new);
+    }
+
+    @Test
+    public void testCollidingKeysIteratorRemove() {
+        Map<Key, Integer> map = new HashTable<>();
+        for (int i = 0; i < 100; i++) {
+            map.put(new Key(i), i);
+        }
+        Iterator<Key> iterator = map.keySet().iterator();
+        int count = 0;
+        while (iterator.hasNext()) {
+            Key key = iterator.next();
+            if (key.id % 2 == 0) {
+                iterator.remove();
+            }
+            count++;
+        }
+        assertEquals(100, count);
+        assertEquals(50, map.size());
+        for (int i = 0; i < 100; i++) {
+            assertEquals(i % 2 == 1, map.containsKey(new Key(i)));
+        }
+    }
+
+    private void testCollidingKeys(IntFunction<Key> keys) {
+        Map<Key, Integer> map = new HashTable<>();
+        for (int i = 0; i < TEST_SIZE; i++) {
+            assertNull(map.put(keys.apply(i), i));
+        }
+        assertEquals(TEST_SIZE, map.size());
+        for (int i = 0; i < TEST_SIZE; i++) {
+            assertEquals(Integer.valueOf(i), map.get(keys.apply(i)));
+        }
+        assertFalse(map.containsKey(keys.apply(TEST_SIZE)));
+        assertTrue(map.containsValue(TEST_SIZE - 1));
+        int count = 0;
+        for (Pair<Key, Integer> entry : map.entrySet()) {
+            assertEquals(entry.first().id, (int) entry.second());
+            count++;
+        }
+        assertEquals(TEST_SIZE, count);
+        for (int i = 0; i < TEST_SIZE; i++) {
+            assertEquals(Integer.valueOf(i), map.remove(keys.apply(i)));
+        }
+        assertTrue(map.isEmpty());
+    }
+
+    /**
+     * A key whose hash code puts every instance into one of just a few buckets.
+     */
+    private static class Key {
+        final int id;
+
+        Key(int id) {
+            this.id = id;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Key && ((Key) o).id == id;
+        }
+
+        @Override
+        public int hashCode() {
+            return id % 3;
+        }
+    }
+
+    private static class ComparableKey extends Key implements Comparable<ComparableKey> {
+        ComparableKey(int id) {
+            super(id);
+        }
+
+        @Override
+        public int compareTo(ComparableKey other) {
+            return Integer.compare(id, other.id);
+        }
+    }
+}
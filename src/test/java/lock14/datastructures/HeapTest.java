@@ -1,10 +1,104 @@
 package lock14.datastructures;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import lock14.datastructures.impl.ArrayList;
 import lock14.datastructures.impl.Heap;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.Spliterator;
 import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Test;
 
 public class HeapTest extends CollectionTest<Integer> {
     public HeapTest() {
         super(Heap::new, Heap::new, new AtomicInteger()::getAndIncrement);
     }
+
+    @Test
+    public void testSpliteratorSplitsEvenly() {
+        Heap<Integer> heap = new Heap<>();
+        for (int i = 0; i < TEST_SIZE; i++) {
+            heap.enqueue(RNG.nextInt());
+        }
+        Spliterator<Integer> spliterator = heap.spliterator();
+        assertTrue(spliterator.hasCharacteristics(Spliterator.SIZED | Spliterator.SUBSIZED));
+        Spliterator<Integer> prefix = spliterator.trySplit();
+        assertEquals(TEST_SIZE / 2, prefix.estimateSize());
+        assertEquals(TEST_SIZE - TEST_SIZE / 2, spliterator.estimateSize());
+        long sum = 0;
+        for (Integer i : heap) {
+            sum += i;
+        }
+        assertEquals(sum, heap.parallelStream().mapToLong(Integer::longValue).sum());
+    }
+
+    @Test
+    public void testArities() {
+        for (int arity : new int[]{2, 3, 4, 8, 16}) {
+            Heap<Integer> heap = new Heap<>(1, arity, Comparator.naturalOrder());
+            java.util.PriorityQueue<Integer> expected = new java.util.PriorityQueue<>();
+            for (int i = 0; i < TEST_SIZE / 10; i++) {
+                int e = RNG.nextInt(TEST_SIZE);
+                heap.enqueue(e);
+                expected.add(e);
+            }
+            Iterator<Integer> itr = heap.iterator();
+            for (int i = 0; i < TEST_SIZE / 100; i++) {
+                Integer e = itr.next();
+                if (RNG.nextBoolean()) {
+                    itr.remove();
+                    expected.remove(e);
+                }
+            }
+            assertEquals(arity, heap.arity());
+            assertEquals(expected.size(), heap.size());
+            while (!expected.isEmpty()) {
+                assertEquals(expected.remove(), heap.dequeue());
+            }
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testArityMustBeAtLeastTwo() {
+        new Heap<Integer>(10, 1, Comparator.naturalOrder());
+    }
+
+    @Test
+    public void testEnqueueAll() {
+        for (int arity : new int[]{2, 4}) {
+            Heap<Integer> heap = new Heap<>(1, arity, Comparator.naturalOrder());
+            java.util.PriorityQueue<Integer> expected = new java.util.PriorityQueue<>();
+            // a batch larger than the heap is heapified, a smaller one is sifted up
+            for (int batchSize : new int[]{TEST_SIZE / 10, TEST_SIZE / 100, TEST_SIZE / 2, 1, 0}) {
+                ArrayList<Integer> batch = new ArrayList<>();
+                for (int i = 0; i < batchSize; i++) {
+                    int e = RNG.nextInt(TEST_SIZE);
+                    batch.add(e);
+                    expected.add(e);
+                }
+                heap.enqueueAll(batch);
+                assertEquals(expected.size(), heap.size());
+                assertEquals(expected.peek(), heap.peek());
+            }
+            heap.addAll(heap);
+            expected.addAll(new java.util.ArrayList<>(expected));
+            while (!expected.isEmpty()) {
+                assertEquals(expected.remove(), heap.dequeue());
+            }
+        }
+    }
+
+    @Test
+    public void testConstructFromCollection() {
+        ArrayList<Integer> elements = new ArrayList<>();
+        for (int i = TEST_SIZE; i > 0; i--) {
+            elements.add(i);
+        }
+        Heap<Integer> heap = new Heap<>(elements);
+        assertEquals(TEST_SIZE, heap.size());
+        for (int i = 1; i <= TEST_SIZE; i++) {
+            assertEquals(i, (int) heap.dequeue());
+        }
+    }
 }
@@ -0,0 +1,63 @@
+package lock14.datastructures;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+import lock14.datastructures.impl.HashTable;
+
+public class IncrementalHashTableTest extends MapTest {
+
+    public IncrementalHashTableTest() {
+        super(() -> new HashTable<>(16, true));
+    }
+
+    @Test
+    public void testLookupsDuringMigration() {
+        HashTable<Integer, Integer> map = new HashTable<>(2, true);
+        for (int i = 0; i < TEST_SIZE; i++) {
+            map.put(i, i);
+            // every key inserted so far must be reachable whichever table it currently lives in
+            assertEquals(Integer.valueOf(i / 2), map.get(i / 2));
+        }
+        assertEquals(TEST_SIZE, map.size());
+        for (int i = 0; i < TEST_SIZE; i++) {
+            assertEquals(Integer.valueOf(i), map.remove(i));
+        }
+        assertEquals(0, map.size());
+    }
+
+    @Test
+    public void testReplaceValuesWhileIteratingDuringMigration() {
+        HashTable<Integer, Integer> map = new HashTable<>(2, true);
+        for (int i = 0; i < 100; i++) {
+            map.put(i, i);
+        }
+        for (Pair<Integer, Integer> entry : map.entrySet()) {
+            map.put(entry.first(), entry.second() + 1);
+        }
+        for (int i = 0; i < 100; i++) {
+            assertEquals(Integer.valueOf(i + 1), map.get(i));
+        }
+    }
+
+    @Test
+    public void testStatisticsDuringMigration() {
+        HashTable<Integer, Integer> map = new HashTable<>(2, true);
+        boolean sawMigration = false;
+        for (int i = 0; i < 1000; i++) {
+            map.put(i, i);
+            HashTable.Statistics statistics = map.statistics();
+            int[] histogram = statistics.chainLengthHistogram();
+            int buckets = 0;
+            int entries = 0;
+            for (int length = 0; length < histogram.length; length++) {
+                buckets += histogram[length];
+                entries += length * histogram[length];
+            }
+            assertEquals(statistics.bucketCount(), buckets);
+            assertEquals(statistics.size(), entries + statistics.pendingEntries());
+            sawMigration |= statistics.pendingBuckets() > 0;
+        }
+        assertTrue(sawMigration);
+    }
+}
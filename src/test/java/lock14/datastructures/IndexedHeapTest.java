@@ -0,0 +1,47 @@
+package lock14.datastructures;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import lock14.datastructures.AddressableQueue.Handle;
+import lock14.datastructures.impl.ArrayList;
+import lock14.datastructures.impl.IndexedHeap;
+import org.junit.Test;
+
+public class IndexedHeapTest extends AddressableQueueTest {
+    public IndexedHeapTest() {
+        super(IndexedHeap::new, IndexedHeap::new, IndexedHeap::new);
+    }
+
+    @Test(expected = ConcurrentModificationException.class)
+    public void testDecreaseKeyInvalidatesIterator() {
+        IndexedHeap<Integer> heap = new IndexedHeap<>();
+        heap.insert(1);
+        heap.insert(2);
+        Handle<Integer> handle = heap.insert(3);
+        Iterator<Integer> iterator = heap.iterator();
+        iterator.next();
+        heap.decreaseKey(handle, 0);
+        iterator.next();
+    }
+
+    @Test
+    public void testRetainAllWhenRemovalSiftsUpPastCursor() {
+        IndexedHeap<Integer> heap = new IndexedHeap<>();
+        // removing 11 moves 3 into its slot, from where it sifts up behind the cursor
+        for (int e : new int[]{1, 10, 2, 11, 12, 3}) {
+            heap.insert(e);
+        }
+        ArrayList<Integer> keep = new ArrayList<>();
+        for (int e : new int[]{1, 2, 10, 12}) {
+            keep.add(e);
+        }
+        heap.retainAll(keep);
+        assertEquals(4, heap.size());
+        for (int e : new int[]{1, 2, 10, 12}) {
+            assertEquals(Integer.valueOf(e), heap.dequeue());
+        }
+        assertTrue(heap.isEmpty());
+    }
+}
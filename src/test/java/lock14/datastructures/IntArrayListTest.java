@@ -0,0 +1,86 @@
+package lock14.datastructures;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Test;
+import lock14.datastructures.impl.IntArrayList;
+
+public class IntArrayListTest extends CollectionTest<Integer> {
+
+    public IntArrayListTest() {
+        super(() -> new IntArrayList().asList(), c -> {
+            List<Integer> list = new IntArrayList().asList();
+            if (c != null) {
+                list.addAll(c);
+            }
+            return list;
+        }, new AtomicInteger()::getAndIncrement);
+    }
+
+    @Test
+    public void testAddGetRemove() {
+        IntArrayList list = new IntArrayList(0);
+        for (int i = 0; i < 100; i++) {
+            list.addInt(i);
+        }
+        list.addInt(0, -1);
+        assertEquals(101, list.size());
+        assertEquals(-1, list.getInt(0));
+        assertEquals(99, list.getInt(100));
+        assertEquals(-1, list.removeInt(0));
+        list.setInt(5, 500);
+        assertEquals(5, list.indexOf(500));
+        assertEquals(-1, list.indexOf(5));
+    }
+
+    @Test
+    public void testAddAll() {
+        IntArrayList list = new IntArrayList(new int[]{1, 2, 6});
+        list.addAll(2, new int[]{3, 4, 5});
+        list.addAll(new int[]{7});
+        assertArrayEquals(new int[]{1, 2, 3, 4, 5, 6, 7}, list.toArray());
+        assertEquals("[1, 2, 3, 4, 5, 6, 7]", list.toString());
+    }
+
+    @Test
+    public void testSortAndBinarySearch() {
+        int[] values = new int[TEST_SIZE];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = RNG.nextInt();
+        }
+        IntArrayList list = new IntArrayList(values);
+        list.sort();
+        Arrays.sort(values);
+        assertArrayEquals(values, list.toArray());
+        for (int i = 0; i < 100; i++) {
+            int index = RNG.nextInt(values.length);
+            assertEquals(values[index], list.getInt(list.binarySearch(values[index])));
+        }
+        assertTrue(list.binarySearch(Integer.MIN_VALUE) < 0 || values[0] == Integer.MIN_VALUE);
+    }
+
+    @Test
+    public void testForEach() {
+        IntArrayList list = new IntArrayList(new int[]{1, 2, 3, 4});
+        int[] sum = new int[1];
+        list.forEach(value -> sum[0] += value);
+        assertEquals(10, sum[0]);
+    }
+
+    @Test
+    public void testView() {
+        IntArrayList list = new IntArrayList();
+        RandomAccessList<Integer> view = list.asList();
+        view.add(1);
+        view.add(0, 0);
+        list.addInt(2);
+        assertEquals(3, view.size());
+        assertEquals(Integer.valueOf(2), view.get(2));
+        assertEquals(1, view.indexOf(1));
+        view.remove(0);
+        assertArrayEquals(new int[]{1, 2}, list.toArray());
+    }
+}
@@ -0,0 +1,58 @@
+package lock14.datastructures;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import org.junit.Test;
+import lock14.datastructures.impl.IntDoubleHeap;
+
+public class IntDoubleHeapTest {
+    private static final int TEST_SIZE = 100000;
+    private static final Random RNG = new Random();
+
+    @Test
+    public void testDequeueInPriorityOrder() {
+        IntDoubleHeap heap = new IntDoubleHeap(0);
+        double[] priorities = new double[TEST_SIZE];
+        java.util.PriorityQueue<Double> expected = new java.util.PriorityQueue<>();
+        for (int i = 0; i < TEST_SIZE; i++) {
+            priorities[i] = RNG.nextDouble() - 0.5;
+            heap.enqueue(priorities[i], i);
+            expected.add(priorities[i]);
+            if (RNG.nextInt(4) == 0) {
+                double least = expected.remove();
+                assertEquals(least, heap.peekPriority(), 0.0);
+                assertEquals(least, priorities[heap.dequeue()], 0.0);
+            }
+        }
+        assertEquals(expected.size(), heap.size());
+        while (!expected.isEmpty()) {
+            double least = expected.remove();
+            assertEquals(least, heap.peekPriority(), 0.0);
+            assertEquals(heap.peek(), heap.dequeue());
+        }
+        assertTrue(heap.isEmpty());
+    }
+
+    @Test
+    public void testInfinitePriorities() {
+        IntDoubleHeap heap = new IntDoubleHeap();
+        heap.enqueue(Double.POSITIVE_INFINITY, 1);
+        heap.enqueue(0.0, 2);
+        heap.enqueue(Double.NEGATIVE_INFINITY, 3);
+        assertEquals(3, heap.dequeue());
+        assertEquals(2, heap.dequeue());
+        assertEquals(1, heap.dequeue());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNaNPriority() {
+        new IntDoubleHeap().enqueue(Double.NaN, 1);
+    }
+
+    @Test(expected = NoSuchElementException.class)
+    public void testPeekEmpty() {
+        new IntDoubleHeap().peek();
+    }
+}
@@ -0,0 +1,61 @@
+package lock14.datastructures;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import java.util.HashMap;
+import org.junit.Test;
+import lock14.datastructures.impl.IntIntHashTable;
+
+public class IntIntHashTableTest extends MapTest {
+
+    public IntIntHashTableTest() {
+        super(() -> new IntIntHashTable().asMap());
+    }
+
+    @Test
+    public void testAddTo() {
+        IntIntHashTable table = new IntIntHashTable();
+        java.util.Map<Integer, Integer> expected = new HashMap<>();
+        for (int i = 0; i < TEST_SIZE; i++) {
+            int key = RNG.nextInt(100) - 50;
+            assertEquals((int) expected.getOrDefault(key, 0), table.addTo(key, 1));
+            expected.merge(key, 1, Integer::sum);
+        }
+        assertEquals(expected.size(), table.size());
+        table.forEach((key, value) -> assertEquals((int) expected.get(key), value));
+    }
+
+    @Test
+    public void testZeroKey() {
+        IntIntHashTable table = new IntIntHashTable();
+        assertFalse(table.containsKey(0));
+        assertEquals(-1, table.getOrDefault(0, -1));
+        table.put(0, 5);
+        assertTrue(table.containsKey(0));
+        assertEquals(5, table.get(0));
+        assertEquals(1, table.size());
+        assertEquals(5, table.remove(0));
+        assertFalse(table.containsKey(0));
+        assertTrue(table.isEmpty());
+    }
+
+    @Test
+    public void testMapViewForeignKeys() {
+        Map<Integer, Integer> map = new IntIntHashTable().asMap();
+        map.put(0, 0);
+        map.put(1, 1);
+        assertEquals(Integer.valueOf(0), map.get(0));
+        assertNull(map.get(2));
+        assertNull(map.get(1L));
+        assertNull(map.get(null));
+        assertFalse(map.containsKey("1"));
+        assertFalse(map.containsKey(null));
+        assertFalse(map.containsValue(1L));
+        assertNull(map.remove(null));
+        assertEquals(Integer.valueOf(0), map.remove(0));
+        assertNull(map.remove(0));
+        assertEquals(1, map.size());
+    }
+}
@@ -4,8 +4,10 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotEquals;
 import static org.junit.Assert.assertTrue;
+import java.util.Spliterator;
 import java.util.function.Supplier;
 import java.util.stream.Collector;
+import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 import java.util.stream.Stream;
 
@@ -83,6 +85,17 @@ public class LinkedListTest {
         assertNotEquals(list1, collect(IntStream.range(0, 99)));
     }
 
+    @Test
+    public void testParallelStreamKeepsOrder() {
+        LinkedList<Integer> list = collect(IntStream.range(0, 100000));
+        java.util.List<Integer> expected = IntStream.range(0, 100000).boxed().collect(Collectors.toList());
+        assertEquals(expected, list.parallelStream().collect(Collectors.toList()));
+        Spliterator<Integer> spliterator = list.spliterator();
+        assertTrue(spliterator.hasCharacteristics(Spliterator.SIZED | Spliterator.SUBSIZED | Spliterator.ORDERED));
+        Spliterator<Integer> prefix = spliterator.trySplit();
+        assertEquals(100000, prefix.estimateSize() + spliterator.estimateSize());
+    }
+
     private static LinkedList<Integer> collect(IntStream stream) {
         return collect(stream.boxed());
     }
@@ -0,0 +1,30 @@
+package lock14.datastructures;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.Test;
+import lock14.datastructures.impl.LongArrayList;
+
+public class LongArrayListTest extends CollectionTest<Long> {
+
+    public LongArrayListTest() {
+        super(() -> new LongArrayList().asList(), c -> {
+            List<Long> list = new LongArrayList().asList();
+            if (c != null) {
+                list.addAll(c);
+            }
+            return list;
+        }, new AtomicLong(Integer.MAX_VALUE)::getAndIncrement);
+    }
+
+    @Test
+    public void testSortAndBinarySearch() {
+        LongArrayList list = new LongArrayList(new long[]{5L << 40, 3, -7, 1L << 33});
+        list.sort();
+        assertArrayEquals(new long[]{-7, 3, 1L << 33, 5L << 40}, list.toArray());
+        assertEquals(2, list.binarySearch(1L << 33));
+        assertEquals(-2, list.binarySearch(0));
+        assertEquals(3, list.removeLong(0) + 10);
+    }
+}
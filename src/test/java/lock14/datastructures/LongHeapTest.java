@@ -0,0 +1,54 @@
+package lock14.datastructures;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import org.junit.Test;
+import lock14.datastructures.impl.LongHeap;
+
+public class LongHeapTest {
+    private static final int TEST_SIZE = 100000;
+    private static final Random RNG = new Random();
+
+    @Test
+    public void testDequeueInPriorityOrder() {
+        LongHeap<String> heap = new LongHeap<>(0);
+        java.util.PriorityQueue<Long> expected = new java.util.PriorityQueue<>();
+        for (int i = 0; i < TEST_SIZE; i++) {
+            long priority = RNG.nextLong();
+            heap.enqueue(priority, Long.toString(priority));
+            expected.add(priority);
+            if (RNG.nextInt(4) == 0) {
+                long least = expected.remove();
+                assertEquals(least, heap.peekPriority());
+                assertEquals(Long.toString(least), heap.dequeue());
+            }
+        }
+        assertEquals(expected.size(), heap.size());
+        while (!expected.isEmpty()) {
+            long least = expected.remove();
+            assertEquals(least, heap.peekPriority());
+            assertEquals(Long.toString(least), heap.peek());
+            assertEquals(Long.toString(least), heap.dequeue());
+        }
+        assertTrue(heap.isEmpty());
+    }
+
+    @Test
+    public void testClear() {
+        LongHeap<Integer> heap = new LongHeap<>();
+        for (int i = 0; i < 100; i++) {
+            heap.enqueue(100 - i, i);
+        }
+        heap.clear();
+        assertTrue(heap.isEmpty());
+        heap.enqueue(5, 5);
+        assertEquals(5, (int) heap.dequeue());
+    }
+
+    @Test(expected = NoSuchElementException.class)
+    public void testDequeueEmpty() {
+        new LongHeap<String>().dequeue();
+    }
+}
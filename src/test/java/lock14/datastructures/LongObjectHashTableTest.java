@@ -0,0 +1,83 @@
+package lock14.datastructures;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Random;
+import org.junit.Test;
+import lock14.datastructures.impl.LongObjectHashTable;
+
+public class LongObjectHashTableTest {
+    private static final int TEST_SIZE = 10000;
+    private static final Random RNG = new Random();
+
+    @Test
+    public void testPutGetRemove() {
+        LongObjectHashTable<String> table = new LongObjectHashTable<>();
+        java.util.Map<Long, String> expected = new HashMap<>();
+        for (int i = 0; i < TEST_SIZE; i++) {
+            long key = RNG.nextInt(TEST_SIZE) * 0x1_0000_0001L;
+            String value = Long.toString(key);
+            if (RNG.nextBoolean()) {
+                assertEquals(expected.put(key, value), table.put(key, value));
+            } else {
+                assertEquals(expected.remove(key), table.remove(key));
+            }
+            assertEquals(expected.size(), table.size());
+        }
+        for (java.util.Map.Entry<Long, String> entry : expected.entrySet()) {
+            assertEquals(entry.getValue(), table.get(entry.getKey()));
+        }
+        table.forEach((key, value) -> assertEquals(expected.get(key), value));
+    }
+
+    @Test
+    public void testZeroKey() {
+        LongObjectHashTable<String> table = new LongObjectHashTable<>();
+        assertNull(table.get(0L));
+        table.put(0L, "zero");
+        assertTrue(table.containsKey(0L));
+        assertEquals("zero", table.get(0L));
+        assertEquals("zero", table.remove(0L));
+        assertFalse(table.containsKey(0L));
+        assertTrue(table.isEmpty());
+    }
+
+    @Test
+    public void testMapView() {
+        LongObjectHashTable<String> table = new LongObjectHashTable<>();
+        Map<Long, String> map = table.asMap();
+        for (long i = 0; i < 100; i++) {
+            map.put(i, Long.toString(i));
+        }
+        assertEquals(100, table.size());
+        assertEquals("42", table.get(42L));
+        Iterator<Long> itr = map.keySet().iterator();
+        while (itr.hasNext()) {
+            if (itr.next() % 2 == 0) {
+                itr.remove();
+            }
+        }
+        assertEquals(50, table.size());
+        for (long i = 0; i < 100; i++) {
+            assertEquals(i % 2 != 0, table.containsKey(i));
+        }
+    }
+
+    @Test
+    public void testMapViewForeignKeys() {
+        LongObjectHashTable<String> table = new LongObjectHashTable<>();
+        Map<Long, String> map = table.asMap();
+        map.put(1L, "1");
+        assertNull(map.get(1));
+        assertNull(map.get(null));
+        assertFalse(map.containsKey(1));
+        assertFalse(map.containsKey(null));
+        assertNull(map.remove(1));
+        assertNull(map.remove(null));
+        assertEquals("1", map.get(1L));
+    }
+}
@@ -0,0 +1,239 @@
+package lock14.datastructures;
+
+import org.junit.Test;
+import java.util.ConcurrentModificationException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Random;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import static org.junit.Assert.*;
+
+public abstract class MapTest {
+    public static final int TEST_SIZE = 10000;
+    public static final Random RNG = new Random();
+
+    Supplier<Map<Integer, Integer>> mapSupplier;
+
+    public MapTest(Supplier<Map<Integer, Integer>> mapSupplier) {
+        this.mapSupplier = mapSupplier;
+    }
+
+    @Test
+    public void testNewMapIsEmpty() {
+        Map<Integer, Integer> map = mapSupplier.get();
+        assertTrue(map.isEmpty());
+        assertEquals(0, map.size());
+        assertFalse(map.keySet().iterator().hasNext());
+        assertFalse(map.entrySet().iterator().hasNext());
+    }
+
+    @Test
+    public void testPutAndGet() {
+        java.util.Map<Integer, Integer> expected = new HashMap<>();
+        Map<Integer, Integer> map = fill(expected, RNG.nextInt(TEST_SIZE) + 1);
+        assertEquals(expected.size(), map.size());
+        for (java.util.Map.Entry<Integer, Integer> entry : expected.entrySet()) {
+            assertTrue(map.containsKey(entry.getKey()));
+            assertEquals(entry.getValue(), map.get(entry.getKey()));
+        }
+        assertNull(map.get(-1));
+        assertFalse(map.containsKey(-1));
+    }
+
+    @Test
+    public void testPutReplacesValue() {
+        Map<Integer, Integer> map = mapSupplier.get();
+        assertNull(map.put(1, 1));
+        assertEquals(Integer.valueOf(1), map.put(1, 2));
+        assertEquals(Integer.valueOf(2), map.get(1));
+        assertEquals(1, map.size());
+    }
+
+    @Test
+    public void testRemove() {
+        java.util.Map<Integer, Integer> expected = new HashMap<>();
+        Map<Integer, Integer> map = fill(expected, RNG.nextInt(TEST_SIZE) + 1);
+        for (int i = 0; i < TEST_SIZE; i++) {
+            int key = RNG.nextInt(TEST_SIZE);
+            assertEquals(expected.remove(key), map.remove(key));
+            assertEquals(expected.size(), map.size());
+        }
+        for (java.util.Map.Entry<Integer, Integer> entry : expected.entrySet()) {
+            assertEquals(entry.getValue(), map.get(entry.getKey()));
+        }
+    }
+
+    @Test
+    public void testClear() {
+        Map<Integer, Integer> map = fill(new HashMap<>(), RNG.nextInt(TEST_SIZE) + 1);
+        assertFalse(map.isEmpty());
+        map.clear();
+        assertEquals(0, map.size());
+        assertTrue(map.isEmpty());
+        assertFalse(map.keySet().iterator().hasNext());
+    }
+
+    @Test
+    public void testContainsValue() {
+        Map<Integer, Integer> map = mapSupplier.get();
+        map.put(1, 10);
+        map.put(2, 20);
+        assertTrue(map.containsValue(10));
+        assertTrue(map.containsValue(20));
+        assertFalse(map.containsValue(30));
+    }
+
+    @Test
+    public void testEntrySet() {
+        java.util.Map<Integer, Integer> expected = new HashMap<>();
+        Map<Integer, Integer> map = fill(expected, RNG.nextInt(TEST_SIZE) + 1);
+        assertEquals(expected.size(), map.entrySet().size());
+        int count = 0;
+        for (Pair<Integer, Integer> entry : map.entrySet()) {
+            assertEquals(expected.get(entry.first()), entry.second());
+            assertTrue(map.entrySet().contains(entry));
+            count++;
+        }
+        assertEquals(expected.size(), count);
+    }
+
+    @Test
+    public void testKeySet() {
+        java.util.Map<Integer, Integer> expected = new HashMap<>();
+        Map<Integer, Integer> map = fill(expected, RNG.nextInt(TEST_SIZE) + 1);
+        java.util.Set<Integer> keys = new java.util.HashSet<>(expected.keySet());
+        for (Integer key : map.keySet()) {
+            assertTrue(keys.remove(key));
+        }
+        assertTrue(keys.isEmpty());
+    }
+
+    @Test
+    public void testIteratorRemove() {
+        java.util.Map<Integer, Integer> expected = new HashMap<>();
+        Map<Integer, Integer> map = fill(expected, RNG.nextInt(TEST_SIZE) + 1);
+        Iterator<Integer> itr = map.keySet().iterator();
+        while (itr.hasNext()) {
+            Integer key = itr.next();
+            if (key % 2 == 0) {
+                itr.remove();
+                expected.remove(key);
+            }
+        }
+        assertEquals(expected.size(), map.size());
+        for (Integer key : map.keySet()) {
+            assertTrue(expected.containsKey(key));
+        }
+        for (Integer key : expected.keySet()) {
+            assertTrue(map.containsKey(key));
+        }
+    }
+
+    @Test(expected = ConcurrentModificationException.class)
+    public void testConcurrentModification() {
+        Map<Integer, Integer> map = fill(new HashMap<>(), RNG.nextInt(TEST_SIZE) + 2);
+        for (Integer key : map.keySet()) {
+            map.remove(key);
+        }
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void testNullKey() {
+        mapSupplier.get().put(null, 1);
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void testNullValue() {
+        mapSupplier.get().put(1, null);
+    }
+
+    @Test
+    public void testGetOrDefault() {
+        Map<Integer, Integer> map = mapSupplier.get();
+        map.put(1, 10);
+        assertEquals(Integer.valueOf(10), map.getOrDefault(1, -1));
+        assertEquals(Integer.valueOf(-1), map.getOrDefault(2, -1));
+    }
+
+    @Test
+    public void testPutIfAbsent() {
+        Map<Integer, Integer> map = mapSupplier.get();
+        assertNull(map.putIfAbsent(1, 10));
+        assertEquals(Integer.valueOf(10), map.putIfAbsent(1, 20));
+        assertEquals(Integer.valueOf(10), map.get(1));
+        assertEquals(1, map.size());
+    }
+
+    @Test
+    public void testComputeIfAbsent() {
+        Map<Integer, Integer> map = mapSupplier.get();
+        assertEquals(Integer.valueOf(2), map.computeIfAbsent(1, key -> key * 2));
+        assertEquals(Integer.valueOf(2), map.computeIfAbsent(1, key -> key * 3));
+        assertNull(map.computeIfAbsent(2, key -> null));
+        assertFalse(map.containsKey(2));
+        assertEquals(1, map.size());
+    }
+
+    @Test
+    public void testComputeIfPresent() {
+        Map<Integer, Integer> map = mapSupplier.get();
+        assertNull(map.computeIfPresent(1, (key, value) -> value + 1));
+        assertFalse(map.containsKey(1));
+        map.put(1, 10);
+        assertEquals(Integer.valueOf(11), map.computeIfPresent(1, (key, value) -> value + 1));
+        assertNull(map.computeIfPresent(1, (key, value) -> null));
+        assertTrue(map.isEmpty());
+    }
+
+    @Test
+    public void testCompute() {
+        java.util.Map<Integer, Integer> expected = new HashMap<>();
+        Map<Integer, Integer> map = mapSupplier.get();
+        for (int i = 0; i < TEST_SIZE; i++) {
+            int key = RNG.nextInt(100);
+            int choice = RNG.nextInt(3);
+            assertEquals(expected.compute(key, (k, v) -> choice == 0 ? null : (v == null ? 0 : v) + choice),
+                         map.compute(key, (k, v) -> choice == 0 ? null : (v == null ? 0 : v) + choice));
+            assertEquals(expected.size(), map.size());
+        }
+        for (java.util.Map.Entry<Integer, Integer> entry : expected.entrySet()) {
+            assertEquals(entry.getValue(), map.get(entry.getKey()));
+        }
+    }
+
+    @Test
+    public void testMerge() {
+        java.util.Map<Integer, Integer> expected = new HashMap<>();
+        Map<Integer, Integer> map = mapSupplier.get();
+        for (int i = 0; i < TEST_SIZE; i++) {
+            int key = RNG.nextInt(100);
+            // counts that reach three are dropped again
+            assertEquals(expected.merge(key, 1, (a, b) -> a + b == 3 ? null : a + b),
+                         map.merge(key, 1, (a, b) -> a + b == 3 ? null : a + b));
+            assertEquals(expected.size(), map.size());
+        }
+        for (java.util.Map.Entry<Integer, Integer> entry : expected.entrySet()) {
+            assertEquals(entry.getValue(), map.get(entry.getKey()));
+        }
+    }
+
+    @Test
+    public void testParallelStreams() {
+        java.util.Map<Integer, Integer> expected = new HashMap<>();
+        Map<Integer, Integer> map = fill(expected, RNG.nextInt(TEST_SIZE) + 1);
+        assertEquals(expected.keySet(), map.keySet().parallelStream().collect(Collectors.toSet()));
+        assertEquals(expected.size(), map.keySet().parallelStream().count());
+        assertEquals(expected, map.entrySet().parallelStream().collect(Collectors.toMap(Pair::first, Pair::second)));
+    }
+
+    protected Map<Integer, Integer> fill(java.util.Map<Integer, Integer> expected, int size) {
+        Map<Integer, Integer> map = mapSupplier.get();
+        for (int i = 0; i < size; i++) {
+            int key = RNG.nextInt(TEST_SIZE);
+            int value = RNG.nextInt();
+            assertEquals(expected.put(key, value), map.put(key, value));
+        }
+        return map;
+    }
+}
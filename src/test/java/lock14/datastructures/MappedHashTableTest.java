@@ -0,0 +1,85 @@
+package lock14.datastructures;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import lock14.datastructures.impl.MappedHashTable;
+import lock14.datastructures.impl.Serializer;
+
+public class MappedHashTableTest extends MapTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    public MappedHashTableTest() {
+        super(MappedHashTableTest::newTable);
+    }
+
+    private static Map<Integer, Integer> newTable() {
+        try {
+            Path directory = Files.createTempDirectory("mapped");
+            directory.toFile().deleteOnExit();
+            Path file = directory.resolve("table");
+            file.toFile().deleteOnExit();
+            file.resolveSibling("table.data").toFile().deleteOnExit();
+            return new MappedHashTable<>(file, Serializer.INTEGER, Serializer.INTEGER, 16, 1 << 16);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Test
+    public void testReopen() throws IOException {
+        Path file = folder.getRoot().toPath().resolve("table");
+        try (MappedHashTable<String, Long> map = new MappedHashTable<>(file, Serializer.STRING, Serializer.LONG, 16,
+                                                                       1 << 12)) {
+            for (long i = 0; i < TEST_SIZE; i++) {
+                map.put("key" + i, i);
+            }
+            for (long i = 0; i < TEST_SIZE; i += 2) {
+                map.remove("key" + i);
+            }
+        }
+        try (MappedHashTable<String, Long> map = new MappedHashTable<>(file, Serializer.STRING, Serializer.LONG)) {
+            assertEquals(TEST_SIZE / 2, map.size());
+            for (long i = 0; i < TEST_SIZE; i++) {
+                assertEquals(i % 2 == 0 ? null : Long.valueOf(i), map.get("key" + i));
+            }
+            assertNull(map.put("new", -1L));
+        }
+        try (MappedHashTable<String, Long> map = new MappedHashTable<>(file, Serializer.STRING, Serializer.LONG)) {
+            assertEquals(TEST_SIZE / 2 + 1, map.size());
+            assertEquals(Long.valueOf(-1L), map.get("new"));
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void testOpenForeignFile() throws IOException {
+        Path file = folder.getRoot().toPath().resolve("table");
+        Files.write(file, new byte[64]);
+        new MappedHashTable<>(file, Serializer.INTEGER, Serializer.INTEGER).close();
+    }
+
+    @Test(expected = IOException.class)
+    public void testReopenWithoutDataFile() throws IOException {
+        Path file = folder.getRoot().toPath().resolve("table");
+        try (MappedHashTable<Integer, Integer> map = new MappedHashTable<>(file, Serializer.INTEGER,
+                                                                           Serializer.INTEGER)) {
+            map.put(1, 1);
+        }
+        Files.delete(file.resolveSibling("table.data"));
+        new MappedHashTable<>(file, Serializer.INTEGER, Serializer.INTEGER).close();
+    }
+
+    @Test(expected = IOException.class)
+    public void testRejectsForeignFile() throws IOException {
+        Path file = folder.newFile("foreign").toPath();
+        Files.write(file, new byte[64]);
+        new MappedHashTable<>(file, Serializer.INTEGER, Serializer.INTEGER);
+    }
+}
@@ -0,0 +1,43 @@
+package lock14.datastructures;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import java.util.HashMap;
+import org.junit.Test;
+import lock14.datastructures.impl.ObjectIntHashTable;
+
+public class ObjectIntHashTableTest extends MapTest {
+
+    public ObjectIntHashTableTest() {
+        super(() -> new ObjectIntHashTable<Integer>().asMap());
+    }
+
+    @Test
+    public void testAddTo() {
+        ObjectIntHashTable<String> table = new ObjectIntHashTable<>();
+        java.util.Map<String, Integer> expected = new HashMap<>();
+        for (int i = 0; i < TEST_SIZE; i++) {
+            String key = Integer.toString(RNG.nextInt(100));
+            assertEquals((int) expected.getOrDefault(key, 0), table.addTo(key, 2));
+            expected.merge(key, 2, Integer::sum);
+        }
+        assertEquals(expected.size(), table.size());
+        table.forEach((key, value) -> assertEquals((int) expected.get(key), value));
+    }
+
+    @Test
+    public void testMapViewForeignKeys() {
+        Map<String, Integer> map = new ObjectIntHashTable<String>().asMap();
+        map.put("1", 1);
+        assertNull(map.get(null));
+        assertNull(map.get(1));
+        assertFalse(map.containsKey(null));
+        assertFalse(map.containsValue(1L));
+        assertTrue(map.containsValue(1));
+        assertNull(map.remove(null));
+        assertEquals(Integer.valueOf(1), map.remove("1"));
+        assertTrue(map.isEmpty());
+    }
+}
@@ -0,0 +1,101 @@
+package lock14.datastructures;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import java.nio.charset.StandardCharsets;
+import org.junit.Test;
+import lock14.datastructures.impl.OffHeapHashTable;
+import lock14.datastructures.impl.Serializer;
+
+public class OffHeapHashTableTest extends MapTest {
+
+    public OffHeapHashTableTest() {
+        super(() -> new OffHeapHashTable<>(Serializer.INTEGER, Serializer.INTEGER, 16, 4096));
+    }
+
+    @Test
+    public void testStrings() {
+        try (OffHeapHashTable<String, String> map = new OffHeapHashTable<>(Serializer.STRING, Serializer.STRING)) {
+            for (int i = 0; i < TEST_SIZE; i++) {
+                assertNull(map.put("key" + i, "value" + i));
+            }
+            assertEquals("value" + 0, map.put("key" + 0, "replaced"));
+            assertEquals("replaced", map.get("key" + 0));
+            assertEquals("value" + 42, map.get("key" + 42));
+            assertTrue(map.containsValue("value" + 7));
+            assertEquals(TEST_SIZE, map.size());
+        }
+    }
+
+    @Test
+    public void testStringSizeMatchesEncoding() {
+        String[] values =
+                        {"", "ascii", "\u00e9t\u00e9", "\u20ac", "\ud83d\ude00", "\ud83d", "a\ude00b", "\ud83d\ud83d"};
+        try (OffHeapHashTable<String, Integer> map = new OffHeapHashTable<>(Serializer.STRING, Serializer.INTEGER)) {
+            for (int i = 0; i < values.length; i++) {
+                assertEquals(values[i].getBytes(StandardCharsets.UTF_8).length, Serializer.STRING.size(values[i]));
+                map.put(values[i], i);
+            }
+            for (int i = 0; i < values.length; i++) {
+                assertEquals(Integer.valueOf(i), map.get(values[i]));
+            }
+        }
+    }
+
+    @Test
+    public void testByteArrayKeysCompareByContent() {
+        try (OffHeapHashTable<byte[], byte[]> map = new OffHeapHashTable<>(Serializer.BYTE_ARRAY,
+                                                                           Serializer.BYTE_ARRAY)) {
+            map.put(new byte[]{1, 2, 3}, new byte[]{4, 5});
+            assertArrayEquals(new byte[]{4, 5}, map.get(new byte[]{1, 2, 3}));
+            assertFalse(map.containsKey(new byte[]{1, 2}));
+        }
+    }
+
+    @Test
+    public void testRecordLargerThanSlab() {
+        try (OffHeapHashTable<Integer, String> map = new OffHeapHashTable<>(Serializer.INTEGER, Serializer.STRING,
+                                                                            16, 64)) {
+            StringBuilder value = new StringBuilder();
+            for (int i = 0; i < 1000; i++) {
+                value.append('x');
+            }
+            map.put(1, value.toString());
+            map.put(2, "small");
+            assertEquals(value.toString(), map.get(1));
+            assertEquals("small", map.get(2));
+        }
+    }
+
+    @Test
+    public void testCompact() {
+        try (OffHeapHashTable<Integer, Long> map = new OffHeapHashTable<>(Serializer.INTEGER, Serializer.LONG, 16,
+                                                                          1024)) {
+            for (int i = 0; i < TEST_SIZE; i++) {
+                map.put(i, (long) i);
+            }
+            for (int i = 0; i < TEST_SIZE; i += 2) {
+                map.remove(i);
+            }
+            assertTrue(map.usedBytes() > map.liveBytes());
+            long before = map.offHeapBytes();
+            map.compact();
+            assertEquals(map.liveBytes(), map.usedBytes());
+            assertTrue(map.offHeapBytes() < before);
+            for (int i = 0; i < TEST_SIZE; i++) {
+                assertEquals(i % 2 == 0 ? null : Long.valueOf(i), map.get(i));
+            }
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testUseAfterClose() {
+        OffHeapHashTable<Integer, Integer> map = new OffHeapHashTable<>(Serializer.INTEGER, Serializer.INTEGER);
+        map.put(1, 1);
+        map.close();
+        map.get(1);
+    }
+}
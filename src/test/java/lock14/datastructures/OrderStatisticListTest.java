@@ -0,0 +1,90 @@
+package lock14.datastructures;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import java.util.Comparator;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Test;
+import lock14.datastructures.impl.OrderStatisticList;
+
+public class OrderStatisticListTest extends CollectionTest<Integer> {
+
+    public OrderStatisticListTest() {
+        super(OrderStatisticList::new, OrderStatisticList::new, new AtomicInteger()::getAndIncrement);
+    }
+
+    @Test
+    public void testAddAndRemoveByIndex() {
+        OrderStatisticList<Integer> list = new OrderStatisticList<>();
+        java.util.List<Integer> expected = new java.util.ArrayList<>();
+        for (int i = 0; i < TEST_SIZE / 10; i++) {
+            int index = RNG.nextInt(expected.size() + 1);
+            list.add(index, i);
+            expected.add(index, i);
+        }
+        assertSameElements(expected, list);
+        for (int i = 0; i < TEST_SIZE / 10; i++) {
+            int index = RNG.nextInt(expected.size());
+            if (RNG.nextInt(3) == 0) {
+                list.set(index, -i);
+                expected.set(index, -i);
+            } else {
+                list.remove(index);
+                expected.remove(index);
+            }
+        }
+        assertSameElements(expected, list);
+    }
+
+    @Test
+    public void testSplitAndConcat() {
+        java.util.List<Integer> expected = new java.util.ArrayList<>();
+        OrderStatisticList<Integer> list = new OrderStatisticList<>();
+        for (int i = 0; i < TEST_SIZE; i++) {
+            list.add(i);
+            expected.add(i);
+        }
+        for (int i = 0; i < 1000; i++) {
+            int from = RNG.nextInt(list.size() + 1);
+            int to = from + RNG.nextInt(list.size() - from + 1);
+            // move the range [from, to) to the front
+            OrderStatisticList<Integer> tail = list.split(to);
+            OrderStatisticList<Integer> middle = list.split(from);
+            middle.concat(list);
+            middle.concat(tail);
+            assertEquals(0, tail.size());
+            list = middle;
+            java.util.List<Integer> moved = new java.util.ArrayList<>(expected.subList(from, to));
+            expected.subList(from, to).clear();
+            expected.addAll(0, moved);
+        }
+        assertSameElements(expected, list);
+    }
+
+    @Test
+    public void testRank() {
+        OrderStatisticList<Integer> list = new OrderStatisticList<>();
+        for (int i = 0; i < TEST_SIZE / 10; i++) {
+            int value = RNG.nextInt(1000);
+            list.add(list.rank(value, Comparator.naturalOrder()), value);
+        }
+        Integer previous = null;
+        for (Integer value : list) {
+            assertTrue(previous == null || previous <= value);
+            previous = value;
+        }
+        for (int i = 0; i < 100; i++) {
+            int value = RNG.nextInt(1000);
+            int rank = list.rank(value, Comparator.naturalOrder());
+            assertTrue(rank == 0 || list.get(rank - 1) < value);
+            assertTrue(rank == list.size() || list.get(rank) >= value);
+        }
+    }
+
+    private static void assertSameElements(java.util.List<Integer> expected, List<Integer> actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i), actual.get(i));
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package lock14.datastructures;
+
+import lock14.datastructures.impl.PairingHeap;
+
+public class PairingHeapTest extends AddressableQueueTest {
+    public PairingHeapTest() {
+        super(PairingHeap::new, PairingHeap::new, PairingHeap::new,
+              (queue, other) -> ((PairingHeap<Integer>) queue).meld((PairingHeap<Integer>) other));
+    }
+}
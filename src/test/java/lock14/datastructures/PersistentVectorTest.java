@@ -0,0 +1,150 @@
+package lock14.datastructures;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import java.util.ListIterator;
+import java.util.Random;
+import org.junit.Test;
+import lock14.datastructures.impl.ArrayList;
+import lock14.datastructures.impl.PersistentVector;
+
+public class PersistentVectorTest {
+    private static final int TEST_SIZE = 100000;
+    private static final Random RNG = new Random();
+
+    @Test
+    public void testPlusAndGet() {
+        PersistentVector<Integer> vector = new PersistentVector<>();
+        for (int i = 0; i < TEST_SIZE; i++) {
+            PersistentVector<Integer> next = vector.plus(i);
+            assertEquals(i, vector.size());
+            assertEquals(i + 1, next.size());
+            vector = next;
+        }
+        for (int i = 0; i < TEST_SIZE; i++) {
+            assertEquals(Integer.valueOf(i), vector.get(i));
+        }
+    }
+
+    @Test
+    public void testWithSharesOldVersion() {
+        PersistentVector<Integer> vector = range(0, 5000);
+        PersistentVector<Integer> changed = vector;
+        for (int i = 0; i < vector.size(); i += 7) {
+            changed = changed.with(i, -i);
+        }
+        for (int i = 0; i < vector.size(); i++) {
+            assertEquals(Integer.valueOf(i), vector.get(i));
+            assertEquals(Integer.valueOf(i % 7 == 0 ? -i : i), changed.get(i));
+        }
+    }
+
+    @Test
+    public void testBuilder() {
+        PersistentVector.Builder<Integer> builder = PersistentVector.builder();
+        for (int i = 0; i < TEST_SIZE; i++) {
+            builder.add(i);
+        }
+        PersistentVector<Integer> vector = builder.build();
+        assertEquals(TEST_SIZE, vector.size());
+        builder.add(TEST_SIZE);
+        assertEquals(TEST_SIZE, vector.size());
+        assertEquals(TEST_SIZE + 1, builder.build().size());
+        assertEquals(range(0, TEST_SIZE), vector);
+        assertEquals(range(0, TEST_SIZE + 10), vector.toBuilder().addAll(range(TEST_SIZE, TEST_SIZE + 10)).build());
+    }
+
+    @Test
+    public void testConcat() {
+        int[] sizes = {0, 1, 31, 32, 33, 1000, 1024, 1057, 40000};
+        for (int left : sizes) {
+            for (int right : sizes) {
+                PersistentVector<Integer> vector = range(0, left).concat(range(left, left + right));
+                assertEquals(range(0, left + right), vector);
+                assertEquals(range(0, left + right + 1), vector.plus(left + right));
+            }
+        }
+    }
+
+    @Test
+    public void testRepeatedConcatOfSmallVectors() {
+        PersistentVector<Integer> vector = new PersistentVector<>();
+        int size = 0;
+        for (int i = 0; i < 2000; i++) {
+            int length = i % 45;
+            vector = vector.concat(range(size, size + length));
+            size += length;
+        }
+        assertEquals(range(0, size), vector);
+        vector = range(0, size).concat(vector);
+        for (int i = 0; i < 2 * size; i++) {
+            assertEquals(Integer.valueOf(i % size), vector.get(i));
+        }
+    }
+
+    @Test
+    public void testConcatOfSingleElements() {
+        PersistentVector<Integer> vector = new PersistentVector<>();
+        for (int i = 0; i < TEST_SIZE; i++) {
+            vector = vector.concat(range(i, i + 1));
+        }
+        assertEquals(range(0, TEST_SIZE), vector);
+        assertEquals(range(0, TEST_SIZE + 50), vector.concat(range(TEST_SIZE, TEST_SIZE + 50)));
+    }
+
+    @Test
+    public void testSlice() {
+        PersistentVector<Integer> vector = range(0, 20000);
+        for (int i = 0; i < 200; i++) {
+            int from = RNG.nextInt(vector.size());
+            int to = from + RNG.nextInt(vector.size() - from + 1);
+            assertEquals(range(from, to), vector.slice(from, to));
+        }
+        assertSame(vector, vector.slice(0, vector.size()));
+        assertTrue(vector.slice(5, 5).isEmpty());
+    }
+
+    @Test
+    public void testSliceAndConcatAsInsert() {
+        PersistentVector<Integer> vector = new PersistentVector<>();
+        java.util.List<Integer> expected = new java.util.ArrayList<>();
+        for (int i = 0; i < 3000; i++) {
+            int index = RNG.nextInt(expected.size() + 1);
+            vector = vector.slice(0, index).plus(i).concat(vector.slice(index, vector.size()));
+            expected.add(index, i);
+        }
+        assertEquals(expected.size(), vector.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i), vector.get(i));
+        }
+    }
+
+    @Test
+    public void testListIterator() {
+        PersistentVector<Integer> vector = range(100, 500).concat(range(500, 1000));
+        ListIterator<Integer> it = vector.listIterator(vector.size());
+        for (int i = 999; i >= 100; i--) {
+            assertEquals(Integer.valueOf(i), it.previous());
+        }
+        assertEquals(range(100, 1000), new ArrayList<>(vector));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testAddIsUnsupported() {
+        range(0, 10).add(10);
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testRemoveIsUnsupported() {
+        range(0, 10).remove(0);
+    }
+
+    private static PersistentVector<Integer> range(int from, int to) {
+        PersistentVector.Builder<Integer> builder = PersistentVector.builder();
+        for (int i = from; i < to; i++) {
+            builder.add(i);
+        }
+        return builder.build();
+    }
+}
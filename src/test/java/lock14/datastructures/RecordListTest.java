@@ -0,0 +1,211 @@
+package lock14.datastructures;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import java.util.Random;
+import org.junit.Test;
+import lock14.datastructures.impl.IntArrayList;
+import lock14.datastructures.impl.RecordList;
+import lock14.datastructures.impl.RecordSchema;
+
+public class RecordListTest {
+    private static final int TEST_SIZE = 10000;
+    private static final Random RNG = new Random();
+
+    private static final RecordSchema SCHEMA = RecordSchema.builder()
+                                                           .addInt("id")
+                                                           .addLong("timestamp")
+                                                           .addDouble("price")
+                                                           .addShort("quantity")
+                                                           .addByte("side")
+                                                           .addFloat("weight")
+                                                           .build();
+    private static final int ID = SCHEMA.field("id");
+    private static final int TIMESTAMP = SCHEMA.field("timestamp");
+    private static final int PRICE = SCHEMA.field("price");
+    private static final int QUANTITY = SCHEMA.field("quantity");
+    private static final int SIDE = SCHEMA.field("side");
+    private static final int WEIGHT = SCHEMA.field("weight");
+
+    @Test
+    public void testSchema() {
+        assertEquals(6, SCHEMA.fieldCount());
+        assertEquals(4 + 8 + 8 + 2 + 1 + 4, SCHEMA.recordSize());
+        assertEquals(RecordSchema.Type.LONG, SCHEMA.type(TIMESTAMP));
+        assertEquals("price", SCHEMA.name(PRICE));
+        assertEquals("{id: INT, timestamp: LONG, price: DOUBLE, quantity: SHORT, side: BYTE, weight: FLOAT}",
+                     SCHEMA.toString());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testDuplicateField() {
+        RecordSchema.builder().addInt("id").addLong("id");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnknownField() {
+        SCHEMA.field("missing");
+    }
+
+    @Test
+    public void testOnHeap() {
+        checkRecords(new RecordList(SCHEMA));
+    }
+
+    @Test
+    public void testOffHeap() {
+        try (RecordList records = new RecordList(SCHEMA, 0, true)) {
+            assertTrue(records.isOffHeap());
+            checkRecords(records);
+        }
+    }
+
+    @Test
+    public void testCursor() {
+        RecordList records = new RecordList(SCHEMA);
+        RecordList.Cursor cursor = records.cursor();
+        for (int i = 0; i < TEST_SIZE; i++) {
+            cursor.at(records.add()).setInt(ID, i).setDouble(PRICE, i / 2.0);
+        }
+        cursor = records.cursor();
+        int count = 0;
+        while (cursor.next()) {
+            assertEquals(count, cursor.index());
+            assertEquals(count, cursor.getInt(ID));
+            assertEquals(count / 2.0, cursor.getDouble(PRICE), 0.0);
+            assertEquals(0L, cursor.getLong(TIMESTAMP));
+            count++;
+        }
+        assertEquals(TEST_SIZE, count);
+        assertFalse(cursor.next());
+    }
+
+    @Test
+    public void testScans() {
+        for (boolean offHeap : new boolean[]{false, true}) {
+            try (RecordList records = new RecordList(SCHEMA, 16, offHeap)) {
+                java.util.List<Integer> expectedInts = new java.util.ArrayList<>();
+                java.util.List<Integer> expectedDoubles = new java.util.ArrayList<>();
+                java.util.List<Integer> expectedShorts = new java.util.ArrayList<>();
+                long idSum = 0;
+                double priceSum = 0;
+                for (int i = 0; i < TEST_SIZE; i++) {
+                    int id = RNG.nextInt(1000);
+                    double price = RNG.nextDouble();
+                    short quantity = (short) RNG.nextInt(100);
+                    int index = records.add();
+                    records.setInt(index, ID, id);
+                    records.setDouble(index, PRICE, price);
+                    records.setShort(index, QUANTITY, quantity);
+                    if (id < 100) {
+                        expectedInts.add(index);
+                    }
+                    if (price > 0.9) {
+                        expectedDoubles.add(index);
+                    }
+                    if (quantity % 10 == 0) {
+                        expectedShorts.add(index);
+                    }
+                    idSum += id;
+                    priceSum += price;
+                }
+                assertEquals(expectedInts, toList(records.filterInt(ID, id -> id < 100)));
+                assertEquals(expectedInts, toList(records.filterLong(ID, id -> id < 100)));
+                assertEquals(expectedDoubles, toList(records.filterDouble(PRICE, price -> price > 0.9)));
+                assertEquals(expectedShorts, toList(records.filterInt(QUANTITY, q -> q % 10 == 0)));
+                assertEquals(idSum, records.sumLong(ID));
+                assertEquals(priceSum, records.sumDouble(PRICE), 1e-6);
+            }
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testWrongType() {
+        RecordList records = new RecordList(SCHEMA);
+        records.add();
+        records.getInt(0, PRICE);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testWrongScanType() {
+        new RecordList(SCHEMA).filterLong(PRICE, v -> true);
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testOutOfRange() {
+        RecordList records = new RecordList(SCHEMA);
+        records.add();
+        records.getLong(1, TIMESTAMP);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testClosed() {
+        RecordList records = new RecordList(SCHEMA, 4, true);
+        records.close();
+        records.add();
+    }
+
+    private static void checkRecords(RecordList records) {
+        java.util.List<long[]> expected = new java.util.ArrayList<>();
+        for (int i = 0; i < TEST_SIZE; i++) {
+            long[] record = randomRecord();
+            int index = records.add();
+            assertEquals(i, index);
+            write(records, index, record);
+            expected.add(record);
+        }
+        for (int i = 0; i < TEST_SIZE / 10; i++) {
+            int index = RNG.nextInt(expected.size());
+            records.remove(index);
+            expected.remove(index);
+        }
+        for (int i = 0; i < TEST_SIZE / 10; i++) {
+            int index = RNG.nextInt(expected.size());
+            long[] record = randomRecord();
+            write(records, index, record);
+            expected.set(index, record);
+        }
+        assertEquals(expected.size(), records.size());
+        for (int i = 0; i < expected.size(); i++) {
+            long[] record = expected.get(i);
+            assertEquals(record[0], records.getInt(i, ID));
+            assertEquals(record[1], records.getLong(i, TIMESTAMP));
+            assertEquals(Double.longBitsToDouble(record[2]), records.getDouble(i, PRICE), 0.0);
+            assertEquals(record[3], records.getShort(i, QUANTITY));
+            assertEquals(record[4], records.getByte(i, SIDE));
+            assertEquals(Float.intBitsToFloat((int) record[5]), records.getFloat(i, WEIGHT), 0.0f);
+        }
+        records.clear();
+        assertTrue(records.isEmpty());
+        int index = records.add();
+        assertEquals(0, records.getLong(index, TIMESTAMP));
+        assertEquals(0.0, records.getDouble(index, PRICE), 0.0);
+    }
+
+    private static long[] randomRecord() {
+        return new long[]{
+                          RNG.nextInt(),
+                          RNG.nextLong(),
+                          Double.doubleToLongBits(RNG.nextDouble()),
+                          (short) RNG.nextInt(),
+                          (byte) RNG.nextInt(),
+                          Float.floatToIntBits(RNG.nextFloat())
+        };
+    }
+
+    private static void write(RecordList records, int index, long[] record) {
+        records.setInt(index, ID, (int) record[0]);
+        records.setLong(index, TIMESTAMP, record[1]);
+        records.setDouble(index, PRICE, Double.longBitsToDouble(record[2]));
+        records.setShort(index, QUANTITY, (short) record[3]);
+        records.setByte(index, SIDE, (byte) record[4]);
+        records.setFloat(index, WEIGHT, Float.intBitsToFloat((int) record[5]));
+    }
+
+    private static java.util.List<Integer> toList(IntArrayList indices) {
+        java.util.List<Integer> list = new java.util.ArrayList<>();
+        indices.forEach(list::add);
+        return list;
+    }
+}
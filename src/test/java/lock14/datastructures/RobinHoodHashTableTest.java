@@ -0,0 +1,10 @@
+package lock14.datastructures;
+
+import lock14.datastructures.impl.RobinHoodHashTable;
+
+public class RobinHoodHashTableTest extends MapTest {
+
+    public RobinHoodHashTableTest() {
+        super(RobinHoodHashTable::new);
+    }
+}
@@ -0,0 +1,97 @@
+package lock14.datastructures;
+
+import static org.junit.Assert.assertEquals;
+import java.util.ArrayDeque;
+import java.util.ListIterator;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Test;
+import lock14.datastructures.impl.TieredVector;
+
+public class TieredVectorTest extends CollectionTest<Integer> {
+
+    public TieredVectorTest() {
+        super(TieredVector::new, TieredVector::new, new AtomicInteger()::getAndIncrement);
+    }
+
+    @Test
+    public void testAddAtBothEnds() {
+        TieredVector<Integer> list = new TieredVector<>();
+        ArrayDeque<Integer> expected = new ArrayDeque<>();
+        for (int i = 0; i < TEST_SIZE; i++) {
+            if (RNG.nextBoolean()) {
+                list.add(0, i);
+                expected.addFirst(i);
+            } else {
+                list.add(i);
+                expected.addLast(i);
+            }
+        }
+        assertSameElements(new java.util.ArrayList<>(expected), list);
+        while (!expected.isEmpty()) {
+            if (RNG.nextBoolean()) {
+                assertEquals(expected.removeFirst(), list.get(0));
+                list.remove(0);
+            } else {
+                assertEquals(expected.removeLast(), list.get(list.size() - 1));
+                list.remove(list.size() - 1);
+            }
+        }
+        assertEquals(0, list.size());
+    }
+
+    @Test
+    public void testAddAndRemoveInMiddle() {
+        TieredVector<Integer> list = new TieredVector<>();
+        java.util.List<Integer> expected = new java.util.ArrayList<>();
+        for (int i = 0; i < TEST_SIZE / 10; i++) {
+            int index = RNG.nextInt(expected.size() + 1);
+            list.add(index, i);
+            expected.add(index, i);
+        }
+        assertSameElements(expected, list);
+        for (int i = 0; i < TEST_SIZE / 10; i++) {
+            int index = RNG.nextInt(expected.size());
+            if (RNG.nextInt(3) == 0) {
+                list.set(index, -i);
+                expected.set(index, -i);
+            } else {
+                list.remove(index);
+                expected.remove(index);
+            }
+        }
+        assertSameElements(expected, list);
+    }
+
+    @Test
+    public void testListIterator() {
+        TieredVector<Integer> list = new TieredVector<>();
+        for (int i = 0; i < 1000; i++) {
+            list.add(i);
+        }
+        ListIterator<Integer> it = list.listIterator();
+        while (it.hasNext()) {
+            if (it.next() % 2 == 0) {
+                it.remove();
+            } else {
+                it.add(-1);
+            }
+        }
+        assertEquals(1000, list.size());
+        for (int i = 0; i < list.size(); i += 2) {
+            assertEquals(Integer.valueOf(i + 1), list.get(i));
+            assertEquals(Integer.valueOf(-1), list.get(i + 1));
+        }
+        while (it.hasPrevious()) {
+            it.previous();
+            it.remove();
+        }
+        assertEquals(0, list.size());
+    }
+
+    private static void assertSameElements(java.util.List<Integer> expected, List<Integer> actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i), actual.get(i));
+        }
+    }
+}
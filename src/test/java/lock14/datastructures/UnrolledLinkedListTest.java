@@ -0,0 +1,108 @@
+package lock14.datastructures;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import java.util.ListIterator;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Test;
+import lock14.datastructures.impl.SequentialQueue;
+import lock14.datastructures.impl.UnrolledLinkedList;
+
+public class UnrolledLinkedListTest extends CollectionTest<Integer> {
+
+    public UnrolledLinkedListTest() {
+        super(UnrolledLinkedList::new, UnrolledLinkedList::new, new AtomicInteger()::getAndIncrement);
+    }
+
+    @Test
+    public void testAddAndRemoveByIndex() {
+        UnrolledLinkedList<Integer> list = new UnrolledLinkedList<>();
+        java.util.List<Integer> expected = new java.util.ArrayList<>();
+        for (int i = 0; i < TEST_SIZE / 10; i++) {
+            int index = RNG.nextInt(expected.size() + 1);
+            list.add(index, i);
+            expected.add(index, i);
+        }
+        assertSameElements(expected, list);
+        for (int i = 0; i < TEST_SIZE / 10; i++) {
+            int index = RNG.nextInt(expected.size());
+            if (RNG.nextInt(3) == 0) {
+                list.set(index, -i);
+                expected.set(index, -i);
+            } else {
+                list.remove(index);
+                expected.remove(index);
+            }
+        }
+        assertSameElements(expected, list);
+    }
+
+    @Test
+    public void testListIteratorMatchesJavaUtil() {
+        UnrolledLinkedList<Integer> list = new UnrolledLinkedList<>();
+        java.util.LinkedList<Integer> expected = new java.util.LinkedList<>();
+        ListIterator<Integer> itr = list.listIterator();
+        java.util.ListIterator<Integer> expectedItr = expected.listIterator();
+        for (int i = 0; i < TEST_SIZE; i++) {
+            switch (RNG.nextInt(5)) {
+                case 0:
+                    if (itr.hasNext()) {
+                        assertEquals(expectedItr.next(), itr.next());
+                        if (RNG.nextBoolean()) {
+                            itr.remove();
+                            expectedItr.remove();
+                        }
+                    }
+                    break;
+                case 1:
+                    if (itr.hasPrevious()) {
+                        assertEquals(expectedItr.previous(), itr.previous());
+                        if (RNG.nextBoolean()) {
+                            itr.remove();
+                            expectedItr.remove();
+                        } else {
+                            itr.set(-i);
+                            expectedItr.set(-i);
+                        }
+                    }
+                    break;
+                default:
+                    itr.add(i);
+                    expectedItr.add(i);
+                    break;
+            }
+            assertEquals(expectedItr.nextIndex(), itr.nextIndex());
+        }
+        assertSameElements(expected, list);
+        while (itr.hasPrevious()) {
+            assertEquals(expectedItr.previous(), itr.previous());
+        }
+        assertFalse(expectedItr.hasPrevious());
+    }
+
+    @Test
+    public void testAsQueue() {
+        Queue<Integer> queue = new SequentialQueue<>(UnrolledLinkedList.class);
+        int next = 0;
+        int expected = 0;
+        for (int i = 0; i < TEST_SIZE; i++) {
+            if (RNG.nextInt(3) == 0 && !queue.isEmpty()) {
+                assertEquals(Integer.valueOf(expected++), queue.dequeue());
+            } else {
+                queue.enqueue(next++);
+            }
+        }
+        assertEquals(next - expected, queue.size());
+        while (!queue.isEmpty()) {
+            assertEquals(Integer.valueOf(expected++), queue.dequeue());
+        }
+    }
+
+    private static void assertSameElements(java.util.List<Integer> expected, List<Integer> actual) {
+        assertEquals(expected.size(), actual.size());
+        java.util.Iterator<Integer> itr = expected.iterator();
+        for (Integer e : actual) {
+            assertEquals(itr.next(), e);
+        }
+    }
+}